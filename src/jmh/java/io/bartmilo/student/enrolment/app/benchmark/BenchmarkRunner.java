@@ -0,0 +1,45 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark at 1, 8 and 64 threads with the GC profiler attached, writing one JSON
+ * result file per thread count to {@code target/jmh}. Regular JMH command line options passed as
+ * arguments, e.g. {@code -wi 1 -i 2 RentalBenchmarks}, override the defaults of the benchmarks.
+ */
+public final class BenchmarkRunner {
+
+  private static final int[] THREAD_COUNTS = {1, 8, 64};
+  private static final Path RESULT_DIRECTORY = Path.of("target", "jmh");
+
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args)
+      throws CommandLineOptionException, IOException, RunnerException {
+    var commandLineOptions = new CommandLineOptions(args);
+    Files.createDirectories(RESULT_DIRECTORY);
+    for (var threads : THREAD_COUNTS) {
+      var optionsBuilder = new OptionsBuilder().parent(commandLineOptions);
+      if (commandLineOptions.getIncludes().isEmpty()) {
+        optionsBuilder.include(BenchmarkRunner.class.getPackageName() + ".*");
+      }
+      var options =
+          optionsBuilder
+              .threads(threads)
+              .addProfiler(GCProfiler.class)
+              .resultFormat(ResultFormatType.JSON)
+              .result(RESULT_DIRECTORY.resolve("results-" + threads + "-threads.json").toString())
+              .build();
+      new Runner(options).run();
+    }
+  }
+}
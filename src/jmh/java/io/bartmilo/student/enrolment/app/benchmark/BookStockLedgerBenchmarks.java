@@ -0,0 +1,78 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import io.bartmilo.student.enrolment.app.Application;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Rentals of one hot book with every rental updating the book row, against rentals reserving
+ * copies from the in-memory stock ledger. Both runs use the same context, database and workload;
+ * only {@code app.book.stock-ledger.enabled} differs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookStockLedgerBenchmarks {
+
+  @Param({"false", "true"})
+  public boolean stockLedger;
+
+  private ConfigurableApplicationContext applicationContext;
+  private RentalService rentalService;
+  private Long bookId;
+  private Long studentId;
+  private LocalDateTime dueDate;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:stock-ledger;MODE=PostgreSQL;"
+                    + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "app.book.stock-ledger.enabled=" + stockLedger,
+                "logging.level.root=WARN",
+                // application.properties traces every statement and bound parameter
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+    rentalService = applicationContext.getBean(RentalService.class);
+    var bookService = applicationContext.getBean(BookService.class);
+    var studentService = applicationContext.getBean(StudentService.class);
+
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(Integer.MAX_VALUE);
+    bookId = bookService.save(bookDto).getId();
+    studentId = studentService.save(TestDataUtil.createSingleTestStudentDto()).id();
+    dueDate = LocalDateTime.now().plusDays(30);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public RentalDto rentBook() {
+    return rentalService.rentBook(bookId, studentId, dueDate);
+  }
+}
@@ -0,0 +1,119 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import io.bartmilo.student.enrolment.app.Application;
+import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One page of the book and student list endpoints, read through managed entities and the mappers
+ * against read straight into the response records. Run with the GC profiler to compare the
+ * allocation per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListReadPathBenchmarks {
+
+  private static final int ROWS = 10_000;
+  private static final Pageable PAGE = PageRequest.of(10, 50, Sort.by("id"));
+
+  private ConfigurableApplicationContext applicationContext;
+  private BookService bookService;
+  private BookMapper bookMapper;
+  private StudentService studentService;
+  private StudentMapper studentMapper;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:list-read-path;MODE=PostgreSQL;"
+                    + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "logging.level.root=WARN",
+                // application.properties traces every statement and bound parameter
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+    bookService = applicationContext.getBean(BookService.class);
+    bookMapper = applicationContext.getBean(BookMapper.class);
+    studentService = applicationContext.getBean(StudentService.class);
+    studentMapper = applicationContext.getBean(StudentMapper.class);
+    insertRows(applicationContext.getBean(JdbcTemplate.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public Page<BookResponse> booksThroughEntities() {
+    return bookService.findAll(PAGE).map(bookMapper::convertDtoToResponse);
+  }
+
+  @Benchmark
+  public Page<BookResponse> booksProjected() {
+    return bookService.findAllResponses(PAGE);
+  }
+
+  @Benchmark
+  public Page<StudentResponse> studentsThroughEntities() {
+    return studentService.findAll(PAGE).map(studentMapper::convertDtoToResponse);
+  }
+
+  @Benchmark
+  public Page<StudentResponse> studentsProjected() {
+    return studentService.findAllResponses(PAGE);
+  }
+
+  private static void insertRows(JdbcTemplate jdbcTemplate) {
+    var createdAt = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0));
+    List<Object[]> books = new ArrayList<>();
+    List<Object[]> students = new ArrayList<>();
+    List<Object[]> cards = new ArrayList<>();
+    for (long id = 1; id <= ROWS; id++) {
+      books.add(new Object[] {id, "Author " + id, "Title " + id, "ISBN-" + id, createdAt, 10});
+      students.add(new Object[] {id, "First" + id, "Last" + id, "student" + id + "@uni.edu", 20});
+      cards.add(new Object[] {id, String.format("%015d", id), "ACTIVE", id});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO book (id, book_author, title, isbn, created_at, stock)"
+            + " VALUES (?, ?, ?, ?, ?, ?)",
+        books);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO student (id, first_name, last_name, email, age) VALUES (?, ?, ?, ?, ?)",
+        students);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO student_id_card (id, card_number, status, student_id) VALUES (?, ?, ?, ?)",
+        cards);
+  }
+}
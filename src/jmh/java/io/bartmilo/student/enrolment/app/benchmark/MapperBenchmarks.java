@@ -0,0 +1,108 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapperImpl;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapper;
+import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapperImpl;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEntity;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentIdCardMapperImpl;
+import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
+import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapperImpl;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/** MapStruct conversions used on every rent and return, without any database work. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmarks {
+
+  private RentalMapper rentalMapper;
+  private BookMapper bookMapper;
+  private StudentMapper studentMapper;
+  private RentalEntity rentalEntity;
+  private RentalDto rentalDto;
+  private BookEntity bookEntity;
+  private BookDto bookDto;
+  private StudentEntity studentEntity;
+  private StudentDto studentDto;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // The generated mappers are Spring beans wired to each other, as in the application
+    try (var applicationContext =
+        new AnnotationConfigApplicationContext(
+            RentalMapperImpl.class,
+            BookMapperImpl.class,
+            StudentMapperImpl.class,
+            StudentIdCardMapperImpl.class)) {
+      rentalMapper = applicationContext.getBean(RentalMapper.class);
+      bookMapper = applicationContext.getBean(BookMapper.class);
+      studentMapper = applicationContext.getBean(StudentMapper.class);
+    }
+    rentalEntity = TestDataUtil.createSingleTestRentalEntity();
+    rentalDto = rentalMapper.convertEntityToDto(rentalEntity);
+    bookEntity = TestDataUtil.createSingleTestBookEntity();
+    bookDto = bookMapper.convertEntityToDto(bookEntity);
+    studentEntity = rentalEntity.getStudentEntity();
+    studentDto = studentMapper.convertEntityToDto(studentEntity);
+  }
+
+  @Benchmark
+  public RentalDto rentalEntityToDto() {
+    return rentalMapper.convertEntityToDto(rentalEntity);
+  }
+
+  @Benchmark
+  public RentalEntity rentalDtoToEntity() {
+    return rentalMapper.convertDtoToEntity(rentalDto);
+  }
+
+  @Benchmark
+  public RentalResponse rentalDtoToResponse() {
+    return rentalMapper.convertDtoToResponse(rentalDto);
+  }
+
+  @Benchmark
+  public BookDto bookEntityToDto() {
+    return bookMapper.convertEntityToDto(bookEntity);
+  }
+
+  @Benchmark
+  public BookEntity bookDtoToEntity() {
+    return bookMapper.convertDtoToEntity(bookDto);
+  }
+
+  @Benchmark
+  public BookResponse bookDtoToResponse() {
+    return bookMapper.convertDtoToResponse(bookDto);
+  }
+
+  @Benchmark
+  public StudentDto studentEntityToDto() {
+    return studentMapper.convertEntityToDto(studentEntity);
+  }
+
+  @Benchmark
+  public StudentEntity studentDtoToEntity() {
+    return studentMapper.convertDtoToEntity(studentDto);
+  }
+
+  @Benchmark
+  public StudentResponse studentDtoToResponse() {
+    return studentMapper.convertDtoToResponse(studentDto);
+  }
+}
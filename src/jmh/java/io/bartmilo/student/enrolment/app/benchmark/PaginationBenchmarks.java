@@ -0,0 +1,136 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import io.bartmilo.student.enrolment.app.Application;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSortKey;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Latency of fetching one page of books at increasing depth, with offset pagination ({@code
+ * Pageable}, including its count query) against keyset pagination. The catalog holds exactly
+ * enough books for the deepest page, so the offset queries at that depth skip almost the whole
+ * table while the keyset queries seek straight to it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginationBenchmarks {
+
+  private static final int PAGE_SIZE = 20;
+  private static final int PAGES = 10_000;
+  private static final int INSERT_BATCH_SIZE = 1_000;
+
+  @Param({"1", "100", "1000", "10000"})
+  private int page;
+
+  private ConfigurableApplicationContext applicationContext;
+  private BookService bookService;
+  private String idCursor;
+  private String titleCursor;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:pagination;MODE=PostgreSQL;"
+                    + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "logging.level.root=WARN",
+                // application.properties traces every statement and bound parameter
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+    bookService = applicationContext.getBean(BookService.class);
+    var jdbcTemplate = applicationContext.getBean(JdbcTemplate.class);
+    insertBooks(jdbcTemplate);
+
+    // The cursor of a page is the last row of the page before it
+    if (page == 1) {
+      idCursor = "";
+      titleCursor = "";
+    } else {
+      var offset = (page - 1) * PAGE_SIZE - 1;
+      idCursor =
+          new KeysetCursor(
+                  "",
+                  jdbcTemplate.queryForObject(
+                      "SELECT id FROM book ORDER BY id LIMIT 1 OFFSET ?", Long.class, offset))
+              .encode();
+      titleCursor =
+          jdbcTemplate.queryForObject(
+              "SELECT title, id FROM book ORDER BY title, id LIMIT 1 OFFSET ?",
+              (rs, rowNum) -> new KeysetCursor(rs.getString("title"), rs.getLong("id")).encode(),
+              offset);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public Page<BookResponse> offsetPageById() {
+    return bookService.findAllResponses(PageRequest.of(page - 1, PAGE_SIZE, Sort.by("id")));
+  }
+
+  @Benchmark
+  public CursorSlice<BookResponse> keysetPageById() {
+    return bookService.findAllResponses(BookSortKey.ID, idCursor, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public Page<BookResponse> offsetPageByTitle() {
+    return bookService.findAllResponses(PageRequest.of(page - 1, PAGE_SIZE, Sort.by("title", "id")));
+  }
+
+  @Benchmark
+  public CursorSlice<BookResponse> keysetPageByTitle() {
+    return bookService.findAllResponses(BookSortKey.TITLE, titleCursor, PAGE_SIZE);
+  }
+
+  private static void insertBooks(JdbcTemplate jdbcTemplate) {
+    var createdAt = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0));
+    var batch = new ArrayList<Object[]>(INSERT_BATCH_SIZE);
+    for (long id = 1; id <= (long) PAGES * PAGE_SIZE; id++) {
+      batch.add(
+          new Object[] {id, "Author " + id % 997, "Title " + id, "ISBN-" + id, createdAt, 10});
+      if (batch.size() == INSERT_BATCH_SIZE) {
+        insertBatch(jdbcTemplate, batch);
+        batch.clear();
+      }
+    }
+    insertBatch(jdbcTemplate, batch);
+  }
+
+  private static void insertBatch(JdbcTemplate jdbcTemplate, ArrayList<Object[]> batch) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO book (id, book_author, title, isbn, created_at, stock)"
+            + " VALUES (?, ?, ?, ?, ?, ?)",
+        batch);
+  }
+}
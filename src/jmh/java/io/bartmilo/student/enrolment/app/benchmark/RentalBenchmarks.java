@@ -0,0 +1,100 @@
+package io.bartmilo.student.enrolment.app.benchmark;
+
+import io.bartmilo.student.enrolment.app.Application;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Rent and return hot path against the full application context on an in-memory H2 database in
+ * PostgreSQL mode. All threads rent the same book, so the numbers at 8 and 64 threads include the
+ * contention on its stock row.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalBenchmarks {
+
+  private ConfigurableApplicationContext applicationContext;
+  private RentalService rentalService;
+  private BookService bookService;
+  private Long bookId;
+  private Long studentId;
+  private LocalDateTime dueDate;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;"
+                    + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "logging.level.root=WARN",
+                // application.properties traces every statement and bound parameter
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+    rentalService = applicationContext.getBean(RentalService.class);
+    bookService = applicationContext.getBean(BookService.class);
+    var studentService = applicationContext.getBean(StudentService.class);
+
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(Integer.MAX_VALUE);
+    bookId = bookService.save(bookDto).getId();
+    studentId = studentService.save(TestDataUtil.createSingleTestStudentDto()).id();
+    dueDate = LocalDateTime.now().plusDays(30);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public RentalDto rentBook() {
+    return rentalService.rentBook(bookId, studentId, dueDate);
+  }
+
+  @Benchmark
+  public RentalDto returnBook(OpenRental openRental) {
+    return rentalService.returnBook(openRental.rentalId);
+  }
+
+  @Benchmark
+  public BookDto decrementBookStock() {
+    return bookService.decrementBookStock(bookId);
+  }
+
+  /**
+   * A rental opened before each call of {@link #returnBook}. Per-invocation setup is only
+   * acceptable because a return takes far longer than the timestamps around it.
+   */
+  @State(Scope.Thread)
+  public static class OpenRental {
+    private Long rentalId;
+
+    @Setup(Level.Invocation)
+    public void rent(RentalBenchmarks rentalBenchmarks) {
+      rentalId = rentalBenchmarks.rentBook().getId();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package io.bartmilo.student.enrolment.app.cache;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+/**
+ * Read-through view of one cache of the application {@link CacheManager}, so the backing store is
+ * chosen with {@code spring.cache.type} and bounded by its spec.
+ *
+ * <p>Concurrent misses on one key run the loader only once, the other callers wait for its result.
+ * Evictions made inside a transaction are applied once it commits, so a concurrent miss cannot
+ * reload and cache the state the transaction is about to replace. Values the loader fails to
+ * produce are not cached.
+ *
+ * @param <V> the type of the cached values
+ */
+public class ReadThroughCache<V> {
+
+  private final Cache cache;
+  private final UnaryOperator<V> copier;
+
+  /**
+   * @param copier copies a cached value before it is handed out, so callers cannot change the
+   *     cached instance; {@link UnaryOperator#identity()} for immutable values
+   */
+  public ReadThroughCache(CacheManager cacheManager, String name, UnaryOperator<V> copier) {
+    this.cache =
+        new TransactionAwareCacheDecorator(
+            Objects.requireNonNull(cacheManager.getCache(name), "No cache configured: " + name));
+    this.copier = copier;
+  }
+
+  /**
+   * Returns the cached value of the key, loading and caching it on a miss.
+   *
+   * @param loader loads the value; a runtime exception it throws is rethrown as is
+   */
+  public V get(Object key, Supplier<V> loader) {
+    try {
+      return copier.apply(cache.get(key, loader::get));
+    } catch (Cache.ValueRetrievalException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  /** Drops the cached value of the key, once the current transaction commits. */
+  public void evict(Object key) {
+    cache.evict(key);
+  }
+}
@@ -0,0 +1,17 @@
+package io.bartmilo.student.enrolment.app.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lets Spring Boot set up the application {@link org.springframework.cache.CacheManager} from the
+ * {@code spring.cache.*} properties and bind its caches to the {@code cache.*} metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  public static final String BOOK_CACHE = "books";
+  public static final String STUDENT_CACHE = "students";
+  public static final String STUDENT_EMAIL_CACHE = "studentEmails";
+}
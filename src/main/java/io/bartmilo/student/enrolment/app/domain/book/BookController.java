@@ -2,17 +2,32 @@ package io.bartmilo.student.enrolment.app.domain.book;
 
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportFormat;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookPopularityResponse;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookRequest;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSortKey;
+import io.bartmilo.student.enrolment.app.domain.book.model.PopularityWindow;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookImportService;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookPopularityTracker;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookSearchEngine;
 import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
@@ -20,31 +35,138 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 public class BookController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BookController.class);
+  private static final int MAX_KEYSET_PAGE_SIZE = 500;
   private final BookService bookService;
   private final BookMapper bookMapper;
+  private final BookPopularityTracker bookPopularityTracker;
+  private final BookSearchEngine bookSearchEngine;
+  private final BookImportService bookImportService;
 
-  public BookController(BookService bookService, BookMapper bookMapper) {
+  public BookController(
+      BookService bookService,
+      BookMapper bookMapper,
+      BookPopularityTracker bookPopularityTracker,
+      BookSearchEngine bookSearchEngine,
+      BookImportService bookImportService) {
     this.bookService = bookService;
     this.bookMapper = bookMapper;
+    this.bookPopularityTracker = bookPopularityTracker;
+    this.bookSearchEngine = bookSearchEngine;
+    this.bookImportService = bookImportService;
   }
 
   @GetMapping
   public ResponseEntity<Page<BookResponse>> getAllBooks(
       @PageableDefault(size = 10) Pageable pageable) {
     LOGGER.info("Request to get all books");
-    var bookDtoPage = bookService.findAll(pageable);
+    var bookResponsePage = bookService.findAllResponses(pageable);
     LOGGER.info("Books retrieved with pagination");
-    var bookResponsePage = bookDtoPage.map(bookMapper::convertDtoToResponse);
     return ResponseEntity.ok(bookResponsePage);
   }
 
+  /**
+   * Keyset pagination mode of {@link #getAllBooks}, selected by the {@code after} parameter. Pass
+   * an empty {@code after} for the first page and the returned {@code nextCursor} for the next.
+   */
+  @GetMapping(params = {"after", "available!=true"})
+  public ResponseEntity<CursorSlice<BookResponse>> getBooksAfter(
+      @RequestParam String after,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(defaultValue = "50") int size) {
+    LOGGER.info("Request to get books by {} after cursor: {}", sort, after);
+    var sortKey = BookSortKey.fromParam(sort);
+    var pageSize = Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    var bookResponseSlice = bookService.findAllResponses(sortKey, after, pageSize);
+    LOGGER.info("Books retrieved: {}", bookResponseSlice.content().size());
+    return ResponseEntity.ok(bookResponseSlice);
+  }
+
+  /**
+   * Lists the books with copies in stock in ID order, in keyset pagination mode. The books can be
+   * narrowed down to one author and to titles starting with the given text; both ignore case.
+   */
+  @GetMapping(params = "available=true")
+  public ResponseEntity<CursorSlice<BookResponse>> getAvailableBooks(
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) String author,
+      @RequestParam(required = false) String title,
+      @RequestParam(defaultValue = "50") int size) {
+    LOGGER.info("Request to get available books after cursor: {}", after);
+    var pageSize = Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    var bookResponseSlice =
+        bookService.findAvailableResponses(
+            after, pageSize, blankToNull(author), blankToNull(title));
+    LOGGER.info("Available books retrieved: {}", bookResponseSlice.content().size());
+    return ResponseEntity.ok(bookResponseSlice);
+  }
+
+  @GetMapping("/popular")
+  public ResponseEntity<List<BookPopularityResponse>> getPopularBooks(
+      @RequestParam(defaultValue = "7d") String window,
+      @RequestParam(defaultValue = "10") int limit) {
+    LOGGER.info("Request to get {} most rented books of window: {}", limit, window);
+    var popularityWindow = PopularityWindow.fromParam(window);
+    var bookPopularityResponseList = bookPopularityTracker.findTopBooks(popularityWindow, limit);
+    LOGGER.info("Popular books retrieved: {}", bookPopularityResponseList.size());
+    return ResponseEntity.ok(bookPopularityResponseList);
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity<List<BookSearchResponse>> searchBooks(
+      @RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+    LOGGER.info("Request to search books for: {}", q);
+    if (q.isBlank()) {
+      throw new IllegalArgumentException("Search query must not be blank.");
+    }
+    var bookSearchResponseList = bookSearchEngine.search(q, Math.max(1, Math.min(limit, 100)));
+    LOGGER.info("Books found: {}", bookSearchResponseList.size());
+    return ResponseEntity.ok(bookSearchResponseList);
+  }
+
+  /**
+   * Imports books from a CSV or NDJSON body, see {@link BookImportService#importBooks}. The body is
+   * streamed, so it may be of any size.
+   */
+  @PostMapping(
+      value = "/import",
+      consumes = {BookImportFormat.CSV_VALUE, BookImportFormat.NDJSON_VALUE})
+  public ResponseEntity<BookImportResponse> importBooks(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+    LOGGER.info("Request to import books from a body of type: {}", contentType);
+    var format = BookImportFormat.fromContentType(contentType);
+    var bookImportResponse = bookImportService.importBooks(body, format);
+    LOGGER.info(
+        "Books imported: {}, skipped: {}, rejected: {}",
+        bookImportResponse.inserted(),
+        bookImportResponse.skipped(),
+        bookImportResponse.rejected());
+    return ResponseEntity.ok(bookImportResponse);
+  }
+
+  @GetMapping("/isbn/{isbn}")
+  public ResponseEntity<BookResponse> getBookByIsbn(@PathVariable String isbn) {
+    LOGGER.debug("Request to get book by ISBN: {}", isbn);
+    var bookDto = bookService.findByIsbn(isbn);
+    var bookResponse = bookMapper.convertDtoToResponse(bookDto);
+    return ResponseEntity.ok(bookResponse);
+  }
+
+  /**
+   * Returns the book with its version as a strong ETag. A request whose {@code If-None-Match} still
+   * matches is answered with 304 from the version alone, without loading the book.
+   */
   @GetMapping("/{id}")
-  public ResponseEntity<BookResponse> getBookById(@PathVariable Long id) {
+  public ResponseEntity<BookResponse> getBookById(@PathVariable Long id, WebRequest webRequest) {
     LOGGER.info("Request to get book by ID: {}", id);
+    var version = findConditionalVersion(id, webRequest);
+    if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+      LOGGER.info("Book not modified with ID: {}", id);
+      return null;
+    }
     var bookDto = bookService.findById(id);
     LOGGER.info("Book retrieved successfully: {}", bookDto);
     var bookResponse = bookMapper.convertDtoToResponse(bookDto);
-    return ResponseEntity.ok(bookResponse);
+    return ResponseEntity.ok().eTag(String.valueOf(bookDto.getVersion())).body(bookResponse);
   }
 
   @PostMapping
@@ -62,18 +184,30 @@ public class BookController {
     return ResponseEntity.created(location).body(bookResponse);
   }
 
+  /**
+   * Updates the book. With an {@code If-Match} header the update is refused with 412 unless the
+   * book still has the version of the ETag, also when it changes while the update runs.
+   */
   @PutMapping("/{id}")
   public ResponseEntity<BookResponse> updateBook(
-      @PathVariable Long id, @RequestBody BookDto bookDto) {
+      @PathVariable Long id, @RequestBody BookDto bookDto, WebRequest webRequest) {
     LOGGER.info("Request to update book with ID: {}", id);
+    var version = findConditionalVersion(id, webRequest);
+    if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+      LOGGER.error("Precondition failed for update of book with ID: {}", id);
+      return null;
+    }
     if (!bookService.isExists(id)) {
       LOGGER.error("Attempted to update a non-existent book with ID: {}", id);
       return ResponseEntity.notFound().build();
     }
+    if (webRequest.getHeader(HttpHeaders.IF_MATCH) != null) {
+      version.ifPresent(bookDto::setVersion);
+    }
     var updatedBookDto = bookService.partialUpdate(id, bookDto);
     LOGGER.info("Book updated successfully: {}", updatedBookDto);
     var bookResponse = bookMapper.convertDtoToResponse(updatedBookDto);
-    return ResponseEntity.ok(bookResponse);
+    return ResponseEntity.ok().eTag(String.valueOf(updatedBookDto.getVersion())).body(bookResponse);
   }
 
   @DeleteMapping("/{id}")
@@ -87,4 +221,22 @@ public class BookController {
     LOGGER.info("Book deleted successfully with ID: {}", id);
     return ResponseEntity.noContent().build();
   }
+
+  /**
+   * Reads the version of the book only when the request is conditional, so unconditional requests
+   * do not pay for the extra query.
+   *
+   * @return the version of the book; empty if the request is unconditional or the book is missing
+   */
+  private Optional<Long> findConditionalVersion(Long id, WebRequest webRequest) {
+    if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null
+        && webRequest.getHeader(HttpHeaders.IF_MATCH) == null) {
+      return Optional.empty();
+    }
+    return bookService.findVersion(id);
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
 }
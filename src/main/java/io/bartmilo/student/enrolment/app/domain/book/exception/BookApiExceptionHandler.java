@@ -1,6 +1,7 @@
 package io.bartmilo.student.enrolment.app.domain.book.exception;
 
 import io.bartmilo.student.enrolment.app.domain.book.BookController;
+import io.bartmilo.student.enrolment.app.domain.hold.BookHoldController;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.ZonedDateTime;
 import lombok.extern.slf4j.Slf4j;
@@ -10,7 +11,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @Slf4j
-@ControllerAdvice(assignableTypes = {BookController.class})
+@ControllerAdvice(assignableTypes = {BookController.class, BookHoldController.class})
 public class BookApiExceptionHandler {
 
   @ExceptionHandler(BookNotFoundException.class)
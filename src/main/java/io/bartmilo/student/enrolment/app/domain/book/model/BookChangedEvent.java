@@ -0,0 +1,39 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+/**
+ * Published by the book service whenever a book is created, updated or deleted, so that
+ * derived read models such as the catalog search index can follow the book table.
+ *
+ * @param bookId the ID of the changed book
+ * @param title the title after the change; {@code null} when the book was deleted
+ * @param bookAuthor the author after the change; {@code null} when the book was deleted
+ * @param isbn the ISBN after the change; {@code null} when the book was deleted
+ * @param previousIsbn the ISBN before the change; {@code null} when the book was created
+ * @param deleted whether the book was deleted
+ */
+public record BookChangedEvent(
+    Long bookId,
+    String title,
+    String bookAuthor,
+    String isbn,
+    String previousIsbn,
+    boolean deleted) {
+
+  public static BookChangedEvent created(BookDto bookDto) {
+    return updated(bookDto, null);
+  }
+
+  public static BookChangedEvent updated(BookDto bookDto, String previousIsbn) {
+    return new BookChangedEvent(
+        bookDto.getId(),
+        bookDto.getTitle(),
+        bookDto.getBookAuthor(),
+        bookDto.getIsbn(),
+        previousIsbn,
+        false);
+  }
+
+  public static BookChangedEvent deleted(Long bookId, String previousIsbn) {
+    return new BookChangedEvent(bookId, null, null, null, previousIsbn, true);
+  }
+}
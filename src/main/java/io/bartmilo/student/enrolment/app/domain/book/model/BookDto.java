@@ -7,7 +7,7 @@ import lombok.*;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode
 @ToString
 public class BookDto {
@@ -17,4 +17,5 @@ public class BookDto {
   private String isbn;
   private LocalDateTime createdAt;
   private Integer stock;
+  private Long version;
 }
@@ -43,6 +43,11 @@ public class BookEntity {
   @Column(name = "stock")
   private Integer stock;
 
+  /* Bumped on every update; the strong ETag of the book */
+  @Version
+  @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+  private Long version;
+
   /* RELATIONS */
 
   @OneToMany(mappedBy = "bookEntity", orphanRemoval = true)
@@ -0,0 +1,38 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import java.util.Arrays;
+import org.springframework.http.MediaType;
+
+/** The body formats {@code POST /books/import} accepts, told apart by their content type. */
+public enum BookImportFormat {
+  CSV(BookImportFormat.CSV_VALUE),
+  NDJSON(BookImportFormat.NDJSON_VALUE);
+
+  public static final String CSV_VALUE = "text/csv";
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+
+  private final MediaType mediaType;
+
+  BookImportFormat(String mediaType) {
+    this.mediaType = MediaType.parseMediaType(mediaType);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the content type is not an import format
+   */
+  public static BookImportFormat fromContentType(String contentType) {
+    var requested = MediaType.parseMediaType(contentType);
+    return Arrays.stream(values())
+        .filter(format -> format.mediaType.equalsTypeAndSubtype(requested))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unsupported import format: "
+                        + contentType
+                        + ", expected "
+                        + CSV_VALUE
+                        + " or "
+                        + NDJSON_VALUE));
+  }
+}
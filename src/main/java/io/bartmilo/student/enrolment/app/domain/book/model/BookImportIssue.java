@@ -0,0 +1,9 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+/**
+ * A row of a bulk import that was not inserted.
+ *
+ * @param line the line of the import body the row starts on
+ * @param reason why the row was skipped or rejected
+ */
+public record BookImportIssue(long line, String reason) {}
@@ -0,0 +1,21 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import java.util.List;
+import lombok.Builder;
+
+/**
+ * Summary of a bulk import of books.
+ *
+ * @param inserted the number of books inserted
+ * @param skipped the number of rows skipped because their title or ISBN already exists
+ * @param rejected the number of rows rejected because they are malformed or invalid
+ * @param skippedRows the first skipped rows with their reasons
+ * @param rejectedRows the first rejected rows with their reasons
+ */
+@Builder
+public record BookImportResponse(
+    long inserted,
+    long skipped,
+    long rejected,
+    List<BookImportIssue> skippedRows,
+    List<BookImportIssue> rejectedRows) {}
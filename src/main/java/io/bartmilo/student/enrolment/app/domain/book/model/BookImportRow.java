@@ -0,0 +1,27 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+/**
+ * One record of a bulk import body, as read and before validation. All values are kept as text so
+ * that a malformed value rejects only its own row.
+ *
+ * @param line the line of the body the record starts on, starting at 1
+ * @param title the title, or {@code null} when missing
+ * @param bookAuthor the author, or {@code null} when missing
+ * @param isbn the ISBN, or {@code null} when missing
+ * @param stock the stock, or {@code null} when missing
+ * @param createdAt the creation timestamp or date, or {@code null} when missing
+ * @param malformed why the record could not be read, {@code null} when it was read
+ */
+public record BookImportRow(
+    long line,
+    String title,
+    String bookAuthor,
+    String isbn,
+    String stock,
+    String createdAt,
+    String malformed) {
+
+  public static BookImportRow malformed(long line, String reason) {
+    return new BookImportRow(line, null, null, null, null, null, reason);
+  }
+}
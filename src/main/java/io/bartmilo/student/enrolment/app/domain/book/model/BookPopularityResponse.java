@@ -0,0 +1,16 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import lombok.Builder;
+
+/**
+ * A book ranked by its rentals within a popularity window.
+ *
+ * @param bookId the ID of the book
+ * @param title the title of the book
+ * @param bookAuthor the author of the book
+ * @param rentals the number of rentals within the window
+ * @param activeRentals the number of copies currently rented out
+ */
+@Builder
+public record BookPopularityResponse(
+    Long bookId, String title, String bookAuthor, long rentals, long activeRentals) {}
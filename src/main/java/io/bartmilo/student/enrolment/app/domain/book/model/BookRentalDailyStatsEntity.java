@@ -0,0 +1,43 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import lombok.*;
+
+/**
+ * Number of rentals of one book on one day. The rolling window counts are sums over at most 30 of
+ * these buckets per book; older buckets are dropped by the rebuild job.
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "BookRentalDailyStats")
+@Table(
+    name = "book_rental_daily_stats",
+    indexes =
+        @Index(name = "book_rental_daily_stats_rental_day_idx", columnList = "rental_day"))
+public class BookRentalDailyStatsEntity {
+  @EmbeddedId private BookRentalDayId id;
+
+  @Column(name = "rentals", nullable = false)
+  private Long rentals;
+
+  @Getter
+  @Setter
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Embeddable
+  public static class BookRentalDayId implements Serializable {
+    @Column(name = "book_id", updatable = false)
+    private Long bookId;
+
+    @Column(name = "rental_day", updatable = false)
+    private LocalDate rentalDay;
+  }
+}
@@ -0,0 +1,33 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Running rental counters of one book, maintained incrementally by the popularity tracker so the
+ * catalog never has to group the rental table.
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "BookRentalStats")
+@Table(name = "book_rental_stats")
+public class BookRentalStatsEntity {
+  @Id
+  @Column(name = "book_id", updatable = false)
+  private Long bookId;
+
+  @Column(name = "total_rentals", nullable = false)
+  private Long totalRentals;
+
+  @Column(name = "active_rentals", nullable = false)
+  private Long activeRentals;
+
+  @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime updatedAt;
+}
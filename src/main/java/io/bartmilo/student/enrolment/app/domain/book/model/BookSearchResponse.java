@@ -0,0 +1,14 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import lombok.Builder;
+
+/**
+ * A book matching a catalog search.
+ *
+ * @param bookId the ID of the book
+ * @param title the title of the book
+ * @param bookAuthor the author of the book
+ * @param score the relevance of the book to the query; higher is more relevant
+ */
+@Builder
+public record BookSearchResponse(Long bookId, String title, String bookAuthor, double score) {}
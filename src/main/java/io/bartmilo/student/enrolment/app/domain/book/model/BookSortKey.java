@@ -0,0 +1,28 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import java.util.Arrays;
+
+/** The orders {@code GET /books?after=} can seek through, each ascending with the ID as tiebreak. */
+public enum BookSortKey {
+  ID("id"),
+  TITLE("title");
+
+  private final String param;
+
+  BookSortKey(String param) {
+    this.param = param;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the value does not name a sort key
+   */
+  public static BookSortKey fromParam(String param) {
+    return Arrays.stream(values())
+        .filter(sortKey -> sortKey.param.equalsIgnoreCase(param))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unknown sort key: " + param + ", expected id or title"));
+  }
+}
@@ -0,0 +1,45 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * A stock change taken by the stock ledger that has not been written to the {@code book} table
+ * yet. Rows are inserted in the same transaction as the rental that caused them, so they survive a
+ * crash, and are removed once the flusher has folded them into {@code book.stock}.
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "BookStockJournal")
+@Table(
+    name = "book_stock_journal",
+    indexes = @Index(name = "book_stock_journal_book_id_idx", columnList = "book_id"))
+public class BookStockJournalEntity {
+  @Id
+  @SequenceGenerator(
+      name = "book_stock_journal_sequence",
+      sequenceName = "book_stock_journal_sequence",
+      allocationSize = 50)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_stock_journal_sequence")
+  @Column(name = "id", updatable = false)
+  private Long id;
+
+  @Column(name = "book_id", nullable = false, updatable = false)
+  private Long bookId;
+
+  @Column(name = "delta", nullable = false, updatable = false)
+  private Integer delta;
+
+  @Column(
+      name = "created_at",
+      nullable = false,
+      updatable = false,
+      columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime createdAt;
+}
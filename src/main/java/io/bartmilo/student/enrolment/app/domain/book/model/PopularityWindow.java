@@ -0,0 +1,36 @@
+package io.bartmilo.student.enrolment.app.domain.book.model;
+
+import java.util.Arrays;
+
+/** The time windows books can be ranked over on {@code GET /books/popular}. */
+public enum PopularityWindow {
+  LAST_7_DAYS("7d", 7),
+  LAST_30_DAYS("30d", 30),
+  ALL_TIME("all", 0);
+
+  private final String param;
+  private final int days;
+
+  PopularityWindow(String param, int days) {
+    this.param = param;
+    this.days = days;
+  }
+
+  /** Number of days counted, today included; {@code 0} for {@link #ALL_TIME}. */
+  public int days() {
+    return days;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the value does not name a window
+   */
+  public static PopularityWindow fromParam(String param) {
+    return Arrays.stream(values())
+        .filter(window -> window.param.equalsIgnoreCase(param))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unknown popularity window: " + param + ", expected 7d, 30d or all"));
+  }
+}
@@ -0,0 +1,44 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookPopularityResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintenance and ranking of the book rental aggregates, executed as plain JDBC so that a whole
+ * flush of deltas goes out as a few batches.
+ */
+public interface BookPopularityRepository {
+
+  /** Change of the counters of one book. */
+  record StatsDelta(Long bookId, long rentals, long activeRentals) {}
+
+  /** Rentals of one book to add to one daily bucket. */
+  record DayDelta(Long bookId, LocalDate rentalDay, long rentals) {}
+
+  /**
+   * Adds the deltas to {@code book_rental_stats}, creating the rows of books seen for the first
+   * time. The deltas should be sorted by book ID so concurrent flushes lock rows in the same order.
+   *
+   * @throws org.springframework.dao.DuplicateKeyException if another node created one of the new
+   *     rows concurrently; the caller should retry the whole flush
+   */
+  void applyStatsDeltas(List<StatsDelta> statsDeltas, LocalDateTime updatedAt);
+
+  /** Adds the deltas to {@code book_rental_daily_stats}, with the same rules as for stats. */
+  void applyDayDeltas(List<DayDelta> dayDeltas);
+
+  /** Returns the books rented most often on or after the given day. */
+  List<BookPopularityResponse> findTopRentedSince(LocalDate fromDay, int limit);
+
+  /** Returns the books rented most often overall. */
+  List<BookPopularityResponse> findTopRentedOfAllTime(int limit);
+
+  /**
+   * Recomputes all aggregates from the {@code rental} table as of {@code asOf}, keeping daily
+   * buckets from the given day on. Rentals and returns after {@code asOf} are left out, to be
+   * applied as increments. This scans the whole rental table and is meant for repairing drift only.
+   */
+  void rebuildFromRentals(LocalDate fromDay, LocalDateTime asOf, LocalDateTime updatedAt);
+}
@@ -0,0 +1,159 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookPopularityResponse;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class BookPopularityRepositoryImpl implements BookPopularityRepository {
+
+  private static final String UPDATE_STATS_SQL =
+      "UPDATE book_rental_stats SET total_rentals = total_rentals + ?,"
+          + " active_rentals = active_rentals + ?, updated_at = ? WHERE book_id = ?";
+  private static final String INSERT_STATS_SQL =
+      "INSERT INTO book_rental_stats (book_id, total_rentals, active_rentals, updated_at)"
+          + " VALUES (?, ?, ?, ?)";
+  private static final String UPDATE_DAY_SQL =
+      "UPDATE book_rental_daily_stats SET rentals = rentals + ?"
+          + " WHERE book_id = ? AND rental_day = ?";
+  private static final String INSERT_DAY_SQL =
+      "INSERT INTO book_rental_daily_stats (book_id, rental_day, rentals) VALUES (?, ?, ?)";
+  private static final String TOP_SINCE_SQL =
+      "SELECT d.book_id, b.title, b.book_author, SUM(d.rentals) AS rentals,"
+          + " COALESCE(MAX(s.active_rentals), 0) AS active_rentals"
+          + " FROM book_rental_daily_stats d"
+          + " JOIN book b ON b.id = d.book_id"
+          + " LEFT JOIN book_rental_stats s ON s.book_id = d.book_id"
+          + " WHERE d.rental_day >= ?"
+          + " GROUP BY d.book_id, b.title, b.book_author"
+          + " ORDER BY rentals DESC, d.book_id LIMIT ?";
+  private static final String TOP_ALL_TIME_SQL =
+      "SELECT s.book_id, b.title, b.book_author, s.total_rentals AS rentals, s.active_rentals"
+          + " FROM book_rental_stats s"
+          + " JOIN book b ON b.id = s.book_id"
+          + " WHERE s.total_rentals > 0"
+          + " ORDER BY s.total_rentals DESC, s.book_id LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public BookPopularityRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void applyStatsDeltas(List<StatsDelta> statsDeltas, LocalDateTime updatedAt) {
+    if (statsDeltas.isEmpty()) {
+      return;
+    }
+    var timestamp = Timestamp.valueOf(updatedAt);
+    var updateCounts =
+        jdbcTemplate.batchUpdate(
+            UPDATE_STATS_SQL,
+            statsDeltas,
+            statsDeltas.size(),
+            (ps, statsDelta) -> {
+              ps.setLong(1, statsDelta.rentals());
+              ps.setLong(2, statsDelta.activeRentals());
+              ps.setTimestamp(3, timestamp);
+              ps.setLong(4, statsDelta.bookId());
+            });
+    var missing = missing(statsDeltas, updateCounts[0]);
+    jdbcTemplate.batchUpdate(
+        INSERT_STATS_SQL,
+        missing,
+        statsDeltas.size(),
+        (ps, statsDelta) -> {
+          ps.setLong(1, statsDelta.bookId());
+          ps.setLong(2, statsDelta.rentals());
+          ps.setLong(3, statsDelta.activeRentals());
+          ps.setTimestamp(4, timestamp);
+        });
+  }
+
+  @Override
+  public void applyDayDeltas(List<DayDelta> dayDeltas) {
+    if (dayDeltas.isEmpty()) {
+      return;
+    }
+    var updateCounts =
+        jdbcTemplate.batchUpdate(
+            UPDATE_DAY_SQL,
+            dayDeltas,
+            dayDeltas.size(),
+            (ps, dayDelta) -> {
+              ps.setLong(1, dayDelta.rentals());
+              ps.setLong(2, dayDelta.bookId());
+              ps.setDate(3, Date.valueOf(dayDelta.rentalDay()));
+            });
+    var missing = missing(dayDeltas, updateCounts[0]);
+    jdbcTemplate.batchUpdate(
+        INSERT_DAY_SQL,
+        missing,
+        dayDeltas.size(),
+        (ps, dayDelta) -> {
+          ps.setLong(1, dayDelta.bookId());
+          ps.setDate(2, Date.valueOf(dayDelta.rentalDay()));
+          ps.setLong(3, dayDelta.rentals());
+        });
+  }
+
+  @Override
+  public List<BookPopularityResponse> findTopRentedSince(LocalDate fromDay, int limit) {
+    return jdbcTemplate.query(
+        TOP_SINCE_SQL, BookPopularityRepositoryImpl::mapRow, Date.valueOf(fromDay), limit);
+  }
+
+  @Override
+  public List<BookPopularityResponse> findTopRentedOfAllTime(int limit) {
+    return jdbcTemplate.query(TOP_ALL_TIME_SQL, BookPopularityRepositoryImpl::mapRow, limit);
+  }
+
+  @Override
+  public void rebuildFromRentals(LocalDate fromDay, LocalDateTime asOf, LocalDateTime updatedAt) {
+    var asOfTimestamp = Timestamp.valueOf(asOf);
+    jdbcTemplate.update("DELETE FROM book_rental_stats");
+    jdbcTemplate.update(
+        "INSERT INTO book_rental_stats (book_id, total_rentals, active_rentals, updated_at)"
+            + " SELECT book_id, COUNT(*),"
+            + " SUM(CASE WHEN returned_at IS NULL OR returned_at > ? THEN 1 ELSE 0 END), ?"
+            + " FROM rental WHERE book_id IS NOT NULL AND rented_at <= ? GROUP BY book_id",
+        asOfTimestamp,
+        Timestamp.valueOf(updatedAt),
+        asOfTimestamp);
+    jdbcTemplate.update("DELETE FROM book_rental_daily_stats");
+    jdbcTemplate.update(
+        "INSERT INTO book_rental_daily_stats (book_id, rental_day, rentals)"
+            + " SELECT book_id, CAST(rented_at AS DATE), COUNT(*) FROM rental"
+            + " WHERE book_id IS NOT NULL AND rented_at >= ? AND rented_at <= ?"
+            + " GROUP BY book_id, CAST(rented_at AS DATE)",
+        Timestamp.valueOf(fromDay.atStartOfDay()),
+        asOfTimestamp);
+  }
+
+  /** The deltas whose update matched no row, in their original order. */
+  private static <T> List<T> missing(List<T> deltas, int[] updateCounts) {
+    var missing = new ArrayList<T>();
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        missing.add(deltas.get(i));
+      }
+    }
+    return missing;
+  }
+
+  private static BookPopularityResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+    return BookPopularityResponse.builder()
+        .bookId(rs.getLong("book_id"))
+        .title(rs.getString("title"))
+        .bookAuthor(rs.getString("book_author"))
+        .rentals(rs.getLong("rentals"))
+        .activeRentals(rs.getLong("active_rentals"))
+        .build();
+  }
+}
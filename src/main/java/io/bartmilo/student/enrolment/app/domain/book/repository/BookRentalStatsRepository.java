@@ -0,0 +1,9 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookRentalStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookRentalStatsRepository
+    extends JpaRepository<BookRentalStatsEntity, Long>, BookPopularityRepository {}
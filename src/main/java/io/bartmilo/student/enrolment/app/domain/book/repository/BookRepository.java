@@ -1,8 +1,115 @@
 package io.bartmilo.student.enrolment.app.domain.book.repository;
 
 import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BookRepository extends JpaRepository<BookEntity, Long> {}
+public interface BookRepository extends JpaRepository<BookEntity, Long>, BookStockRepository {
+
+  /**
+   * Books projected straight into BookResponse, for the list endpoints. Only the response columns
+   * are read and no entity is hydrated or attached to the persistence context.
+   */
+  String RESPONSE_SELECT =
+      "SELECT new io.bartmilo.student.enrolment.app.domain.book.model.BookResponse("
+          + "b.id, b.bookAuthor, b.title, b.isbn, b.createdAt, b.stock) FROM Book b";
+
+  @Query(value = RESPONSE_SELECT, countQuery = "SELECT COUNT(b) FROM Book b")
+  Page<BookResponse> findResponsePage(Pageable pageable);
+
+  /** The version of a book, for answering conditional requests without loading the book. */
+  @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  /** Finds a book by ISBN through the index of the {@code isbn_unique} constraint. */
+  Optional<BookEntity> findByIsbn(String isbn);
+
+  /** The given titles that are already taken, for deduplicating bulk imports. */
+  @Query("SELECT b.title FROM Book b WHERE b.title IN :titles")
+  Set<String> findExistingTitles(@Param("titles") Collection<String> titles);
+
+  /** The given ISBNs that are already taken, for deduplicating bulk imports. */
+  @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+  Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+  /** The given books in ID order, for pages whose IDs come from the availability index. */
+  @Query(RESPONSE_SELECT + " WHERE b.id IN :ids ORDER BY b.id")
+  List<BookResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * The IDs of the books after the given ID matching the optional author and title prefix filters,
+   * in ID order, to be intersected with the availability index. Seeks from the ID, so a page only
+   * reads the candidates up to its last book.
+   *
+   * @param titlePattern a {@code LIKE} pattern escaped with {@code \}
+   */
+  @Query(
+      "SELECT b.id FROM Book b WHERE b.id > :afterId"
+          + " AND (:bookAuthor IS NULL OR LOWER(b.bookAuthor) = LOWER(:bookAuthor))"
+          + " AND (:titlePattern IS NULL"
+          + " OR LOWER(b.title) LIKE LOWER(:titlePattern) ESCAPE '\\')"
+          + " ORDER BY b.id")
+  List<Long> findIdsByAuthorAndTitleAfter(
+      @Param("afterId") Long afterId,
+      @Param("bookAuthor") String bookAuthor,
+      @Param("titlePattern") String titlePattern,
+      Pageable limit);
+
+  /** The given books that are out of stock, to update the availability index after a batch. */
+  @Query("SELECT b.id FROM Book b WHERE b.id IN :ids AND b.stock <= 0")
+  List<Long> findIdsOutOfStock(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Books after the given ID in ID order, for keyset pagination. Only the page size of the {@code
+   * limit} is used and no count query is run.
+   */
+  @Query(RESPONSE_SELECT + " WHERE b.id > :id ORDER BY b.id")
+  List<BookResponse> findPageAfterId(@Param("id") Long id, Pageable limit);
+
+  /**
+   * Books after the given (title, ID) in title order, for keyset pagination. Seeks through the
+   * index of the {@code title_unique} constraint.
+   */
+  @Query(
+      RESPONSE_SELECT
+          + " WHERE b.title > :title OR (b.title = :title AND b.id > :id)"
+          + " ORDER BY b.title, b.id")
+  List<BookResponse> findPageAfterTitle(
+      @Param("title") String title, @Param("id") Long id, Pageable limit);
+
+  /**
+   * Atomically takes the given amount from the stock of a book. The guard on the current stock is
+   * evaluated by the database together with the write, so concurrent rentals can never take the
+   * stock below zero.
+   *
+   * @return the number of updated rows; {@code 0} when the book does not exist or its stock is
+   *     insufficient
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE Book b SET b.stock = b.stock - :amount, b.version = b.version + 1"
+          + " WHERE b.id = :id AND b.stock >= :amount")
+  int decrementStock(@Param("id") Long id, @Param("amount") int amount);
+
+  /**
+   * Atomically adds the given amount to the stock of a book.
+   *
+   * @return the number of updated rows; {@code 0} when the book does not exist
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE Book b SET b.stock = b.stock + :amount, b.version = b.version + 1"
+          + " WHERE b.id = :id")
+  int incrementStock(@Param("id") Long id, @Param("amount") int amount);
+}
@@ -0,0 +1,45 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookStockJournalEntity;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookStockJournalRepository extends JpaRepository<BookStockJournalEntity, Long> {
+
+  @Query("SELECT j FROM BookStockJournal j ORDER BY j.id")
+  List<BookStockJournalEntity> findOldest(Pageable pageable);
+
+  /**
+   * Returns the stock of a book with its pending journal entries applied. Both are read by a single
+   * statement so a concurrent flush cannot be counted twice or missed.
+   */
+  @Query(
+      value =
+          "SELECT COALESCE(b.stock, 0) + COALESCE((SELECT SUM(j.delta) FROM book_stock_journal j"
+              + " WHERE j.book_id = b.id), 0) FROM book b WHERE b.id = :bookId",
+      nativeQuery = true)
+  Optional<Integer> findLedgerStockByBookId(@Param("bookId") Long bookId);
+
+  /**
+   * Like {@link #findLedgerStockByBookId} but leaving out the given journal entries, those of
+   * transactions that have not completed yet.
+   */
+  @Query(
+      value =
+          "SELECT COALESCE(b.stock, 0) + COALESCE((SELECT SUM(j.delta) FROM book_stock_journal j"
+              + " WHERE j.book_id = b.id AND j.id NOT IN (:entryIds)), 0)"
+              + " FROM book b WHERE b.id = :bookId",
+      nativeQuery = true)
+  Optional<Integer> findLedgerStockByBookIdExcluding(
+      @Param("bookId") Long bookId, @Param("entryIds") Collection<Long> entryIds);
+
+  @Query("SELECT j.id FROM BookStockJournal j WHERE j.bookId = :bookId")
+  List<Long> findIdsByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,19 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import java.util.List;
+
+/** Stock operations that are executed as plain JDBC batches instead of one statement per call. */
+public interface BookStockRepository {
+
+  /**
+   * Takes one copy from the stock of every given book, sending all guarded updates in a single
+   * JDBC batch. The updates are applied in ascending book ID order, so concurrent batches lock the
+   * book rows in a consistent order. The same book may appear several times and is then updated
+   * once per entry.
+   *
+   * @param bookIds IDs of the books to take from stock, one entry per copy.
+   * @return the update count of each entry, in list order; {@code 0} means the book does not exist
+   *     or is out of stock.
+   */
+  int[] decrementStocks(List<Long> bookIds);
+}
@@ -0,0 +1,54 @@
+package io.bartmilo.student.enrolment.app.domain.book.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class BookStockRepositoryImpl implements BookStockRepository {
+
+  private static final String DECREMENT_STOCK_SQL =
+      "UPDATE book SET stock = stock - 1, version = version + 1 WHERE id = ? AND stock >= 1";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public BookStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public int[] decrementStocks(List<Long> bookIds) {
+    if (bookIds.isEmpty()) {
+      return new int[0];
+    }
+    // Sorted by book ID, so batches sharing books lock their rows in the same order as each
+    // other and as bulk returns; the sort is stable and keeps repeated IDs as separate updates
+    var batchOrder =
+        IntStream.range(0, bookIds.size())
+            .boxed()
+            .sorted(Comparator.comparing(bookIds::get))
+            .toList();
+    var batchCounts =
+        jdbcTemplate.batchUpdate(
+            DECREMENT_STOCK_SQL,
+            new BatchPreparedStatementSetter() {
+              @Override
+              public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, bookIds.get(batchOrder.get(i)));
+              }
+
+              @Override
+              public int getBatchSize() {
+                return batchOrder.size();
+              }
+            });
+    var updateCounts = new int[batchCounts.length];
+    for (int i = 0; i < batchCounts.length; i++) {
+      updateCounts[batchOrder.get(i)] = batchCounts[i];
+    }
+    return updateCounts;
+  }
+}
@@ -0,0 +1,174 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory index of the books with at least one copy in stock, kept as a compressed bitmap of book
+ * IDs. Sequence-generated IDs are dense, so the bitmap costs at most a bit per book ID ever issued:
+ * about 128 KB for a million books, and less when most books are out of stock.
+ *
+ * <p>The index is loaded from the book table in one streaming pass when the application is ready.
+ * After that, the stock-changing methods of {@link BookServiceImpl} report every change, which is
+ * applied once their transaction commits. Changes committed concurrently to the same book may be
+ * reported out of order, and books written by other instances or directly to the database are not
+ * reported at all, so the index is also reloaded every {@code
+ * app.book.availability-index.refresh-interval}.
+ */
+@Component
+public class BookAvailabilityIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookAvailabilityIndex.class);
+  private static final String LOAD_SQL = "SELECT id FROM book WHERE stock > 0";
+  private static final int LOAD_FETCH_SIZE = 1_000;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Roaring64Bitmap availableBookIds = new Roaring64Bitmap();
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public BookAvailabilityIndex(
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  /** Replaces the whole index with the books currently in stock. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${app.book.availability-index.refresh-interval:PT15M}",
+      fixedDelayString = "${app.book.availability-index.refresh-interval:PT15M}")
+  public void rebuild() {
+    var loadedBookIds = new Roaring64Bitmap();
+    RowCallbackHandler indexRow = rs -> loadedBookIds.addLong(rs.getLong("id"));
+    // Inside a transaction, so the PostgreSQL driver honours the fetch size and streams the rows
+    transactionTemplate.executeWithoutResult(
+        status ->
+            jdbcTemplate.query(
+                con -> {
+                  var preparedStatement = con.prepareStatement(LOAD_SQL);
+                  preparedStatement.setFetchSize(LOAD_FETCH_SIZE);
+                  return preparedStatement;
+                },
+                indexRow));
+    loadedBookIds.runOptimize();
+    lock.writeLock().lock();
+    try {
+      availableBookIds.clear();
+      availableBookIds.or(loadedBookIds);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    LOGGER.info(
+        "Loaded {} available books into the availability index, {} bytes",
+        loadedBookIds.getLongCardinality(),
+        loadedBookIds.serializedSizeInBytes());
+  }
+
+  /**
+   * Records whether a book has copies in stock. Within a transaction the change is only applied
+   * once it commits.
+   */
+  public void update(Long bookId, boolean available) {
+    afterCommit(
+        () -> {
+          lock.writeLock().lock();
+          try {
+            if (available) {
+              availableBookIds.addLong(bookId);
+            } else {
+              availableBookIds.removeLong(bookId);
+            }
+          } finally {
+            lock.writeLock().unlock();
+          }
+        });
+  }
+
+  /** Drops a deleted book. Within a transaction the change is only applied once it commits. */
+  public void remove(Long bookId) {
+    update(bookId, false);
+  }
+
+  public boolean isAvailable(Long bookId) {
+    lock.readLock().lock();
+    try {
+      return availableBookIds.contains(bookId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public long count() {
+    lock.readLock().lock();
+    try {
+      return availableBookIds.getLongCardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the IDs of available books after the given ID, in ID order.
+   *
+   * @param afterId the last ID of the previous page; {@code 0} for the first page
+   * @param limit the maximum number of IDs to return
+   * @param candidateIds restricts the result to these books, e.g. the books of one author; {@code
+   *     null} for all books
+   */
+  public List<Long> findAvailableAfter(long afterId, int limit, Collection<Long> candidateIds) {
+    Roaring64Bitmap candidates = null;
+    if (candidateIds != null) {
+      candidates = new Roaring64Bitmap();
+      for (var candidateId : candidateIds) {
+        candidates.addLong(candidateId);
+      }
+    }
+    var bookIds = new ArrayList<Long>(Math.max(limit, 0));
+    lock.readLock().lock();
+    try {
+      if (candidates != null) {
+        candidates.and(availableBookIds);
+      }
+      var iterator = (candidates != null ? candidates : availableBookIds).getLongIterator();
+      // IDs are compared unsigned, so the iterator must not start from a negative ID
+      iterator.advanceIfNeeded(Math.max(afterId, 0) + 1);
+      while (bookIds.size() < limit && iterator.hasNext()) {
+        bookIds.add(iterator.next());
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return bookIds;
+  }
+
+  private static void afterCommit(Runnable change) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      change.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            change.run();
+          }
+        });
+  }
+}
@@ -0,0 +1,243 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportFormat;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the records of a bulk import body one at a time, so that the body is never held in memory
+ * as a whole. A record that cannot be read is returned as a malformed row and reading goes on with
+ * the next one.
+ *
+ * <p>CSV bodies follow RFC 4180: quoted fields may contain separators, doubled quotes and line
+ * breaks. The first record is a header naming the columns {@code title}, {@code bookAuthor}, {@code
+ * isbn} and optionally {@code stock} and {@code createdAt}, in any order and case, with or without
+ * underscores. NDJSON bodies hold one object per line with fields of the same names.
+ */
+abstract class BookImportRowReader implements Iterator<BookImportRow> {
+
+  private static final List<String> REQUIRED_COLUMNS = List.of("title", "bookauthor", "isbn");
+
+  protected final BufferedReader reader;
+  protected long line;
+  private BookImportRow next;
+
+  private BookImportRowReader(InputStream body) {
+    this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException if a CSV body has no header or misses a required column
+   */
+  static BookImportRowReader open(
+      InputStream body, BookImportFormat format, ObjectMapper objectMapper) {
+    return switch (format) {
+      case CSV -> new Csv(body);
+      case NDJSON -> new Ndjson(body, objectMapper);
+    };
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = readNext();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public BookImportRow next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    var row = next;
+    next = null;
+    return row;
+  }
+
+  /** Returns the next record, or {@code null} at the end of the body. */
+  protected abstract BookImportRow readNext() throws IOException;
+
+  private static String normalizeName(String name) {
+    return name.strip().replace("_", "").toLowerCase(Locale.ROOT);
+  }
+
+  private static final class Csv extends BookImportRowReader {
+
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final int headerSize;
+
+    private Csv(InputStream body) {
+      super(body);
+      List<String> header;
+      try {
+        header = readRecord();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      if (header == null) {
+        throw new IllegalArgumentException("CSV import body has no header.");
+      }
+      headerSize = header.size();
+      for (int i = 0; i < header.size(); i++) {
+        columns.putIfAbsent(normalizeName(header.get(i)), i);
+      }
+      for (var requiredColumn : REQUIRED_COLUMNS) {
+        if (!columns.containsKey(requiredColumn)) {
+          throw new IllegalArgumentException(
+              "CSV import header misses the column: " + requiredColumn);
+        }
+      }
+    }
+
+    @Override
+    protected BookImportRow readNext() throws IOException {
+      List<String> fields;
+      long recordLine;
+      do {
+        recordLine = line + 1;
+        fields = readRecord();
+        if (fields == null) {
+          return null;
+        }
+      } while (fields.size() == 1 && fields.get(0).isBlank());
+      if (fields.size() != headerSize) {
+        return BookImportRow.malformed(
+            recordLine, "Expected " + headerSize + " fields but found " + fields.size());
+      }
+      return new BookImportRow(
+          recordLine,
+          field(fields, "title"),
+          field(fields, "bookauthor"),
+          field(fields, "isbn"),
+          field(fields, "stock"),
+          field(fields, "createdat"),
+          null);
+    }
+
+    private String field(List<String> fields, String column) {
+      var index = columns.get(column);
+      return index == null ? null : fields.get(index);
+    }
+
+    /**
+     * Reads one record, which spans several lines when a quoted field contains line breaks.
+     *
+     * @return the fields of the record, or {@code null} at the end of the body
+     */
+    private List<String> readRecord() throws IOException {
+      var text = reader.readLine();
+      if (text == null) {
+        return null;
+      }
+      line++;
+      var fields = new ArrayList<String>();
+      var field = new StringBuilder();
+      var quoted = false;
+      var i = 0;
+      while (true) {
+        if (i == text.length()) {
+          if (!quoted) {
+            break;
+          }
+          // A quoted line break: the record goes on on the next line
+          text = reader.readLine();
+          if (text == null) {
+            break;
+          }
+          line++;
+          field.append('\n');
+          i = 0;
+          continue;
+        }
+        var c = text.charAt(i++);
+        if (quoted) {
+          if (c != '"') {
+            field.append(c);
+          } else if (i < text.length() && text.charAt(i) == '"') {
+            field.append('"');
+            i++;
+          } else {
+            quoted = false;
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else {
+          field.append(c);
+        }
+      }
+      fields.add(field.toString());
+      return fields;
+    }
+  }
+
+  private static final class Ndjson extends BookImportRowReader {
+
+    private final ObjectMapper objectMapper;
+
+    private Ndjson(InputStream body, ObjectMapper objectMapper) {
+      super(body);
+      this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected BookImportRow readNext() throws IOException {
+      String text;
+      do {
+        text = reader.readLine();
+        if (text == null) {
+          return null;
+        }
+        line++;
+      } while (text.isBlank());
+      JsonNode object;
+      try {
+        object = objectMapper.readTree(text);
+      } catch (JsonProcessingException ex) {
+        return BookImportRow.malformed(line, "Malformed JSON: " + ex.getOriginalMessage());
+      }
+      if (!object.isObject()) {
+        return BookImportRow.malformed(line, "Expected a JSON object");
+      }
+      var fields = new HashMap<String, String>();
+      object
+          .fields()
+          .forEachRemaining(
+              field -> {
+                if (!field.getValue().isNull()) {
+                  fields.putIfAbsent(normalizeName(field.getKey()), field.getValue().asText());
+                }
+              });
+      return new BookImportRow(
+          line,
+          fields.get("title"),
+          fields.get("bookauthor"),
+          fields.get("isbn"),
+          fields.get("stock"),
+          fields.get("createdat"),
+          null);
+    }
+  }
+}
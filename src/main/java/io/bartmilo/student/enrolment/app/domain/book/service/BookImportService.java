@@ -0,0 +1,21 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportFormat;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportResponse;
+import java.io.InputStream;
+
+public interface BookImportService {
+
+  /**
+   * Imports the books of a CSV or NDJSON body. The body is read as a stream and committed in
+   * chunks, so an import of any size runs in constant memory and a failure only loses the chunk
+   * it happens in. Rows whose title or ISBN already exists are skipped, invalid rows are rejected;
+   * neither stops the import.
+   *
+   * @param body The body to read the books from.
+   * @param format The format of the body.
+   * @return The numbers of inserted, skipped and rejected rows, with the reasons of the first ones.
+   * @throws IllegalArgumentException if a CSV body has no usable header
+   */
+  BookImportResponse importBooks(InputStream body, BookImportFormat format);
+}
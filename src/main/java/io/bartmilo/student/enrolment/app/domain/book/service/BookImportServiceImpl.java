@@ -0,0 +1,249 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookChangedEvent;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportFormat;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportIssue;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportRow;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams bulk imports into the book table chunk by chunk. Every chunk is deduplicated with two
+ * {@code IN} lookups on the unique title and ISBN indexes instead of one lookup per row, and
+ * written by the configured {@link BookImportWriter} in its own transaction.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookImportServiceImpl.class);
+
+  private final BookRepository bookRepository;
+  private final BookImportWriter bookImportWriter;
+  private final BookAvailabilityIndex bookAvailabilityIndex;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+  private final int maxReportedRows;
+
+  public BookImportServiceImpl(
+      BookRepository bookRepository,
+      BookImportWriter bookImportWriter,
+      BookAvailabilityIndex bookAvailabilityIndex,
+      ApplicationEventPublisher applicationEventPublisher,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.book.import.chunk-size:5000}") int chunkSize,
+      @Value("${app.book.import.max-reported-rows:100}") int maxReportedRows) {
+    this.bookRepository = bookRepository;
+    this.bookImportWriter = bookImportWriter;
+    this.bookAvailabilityIndex = bookAvailabilityIndex;
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.chunkSize = chunkSize;
+    this.maxReportedRows = maxReportedRows;
+  }
+
+  private static LocalDateTime parseCreatedAt(String createdAt) {
+    try {
+      return LocalDateTime.parse(createdAt);
+    } catch (DateTimeParseException ex) {
+      return LocalDate.parse(createdAt).atStartOfDay();
+    }
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  @Override
+  public BookImportResponse importBooks(InputStream body, BookImportFormat format) {
+    LOGGER.info("Importing books from a {} body in chunks of {}", format, chunkSize);
+    var start = System.nanoTime();
+    var summary = new Summary();
+    var rows = BookImportRowReader.open(body, format, objectMapper);
+    var chunk = new ArrayList<Candidate>(chunkSize);
+    while (rows.hasNext()) {
+      var row = rows.next();
+      var rejection = validate(row);
+      if (rejection != null) {
+        summary.reject(row.line(), rejection);
+        continue;
+      }
+      chunk.add(new Candidate(row.line(), toEntity(row)));
+      if (chunk.size() == chunkSize) {
+        importChunk(chunk, summary);
+      }
+    }
+    importChunk(chunk, summary);
+    LOGGER.info(
+        "Imported books in {} ms: {} inserted, {} skipped, {} rejected",
+        (System.nanoTime() - start) / 1_000_000,
+        summary.inserted,
+        summary.skipped,
+        summary.rejected);
+    return summary.toResponse();
+  }
+
+  /**
+   * @return why the row is rejected, or {@code null} when it is valid
+   */
+  private String validate(BookImportRow row) {
+    if (row.malformed() != null) {
+      return row.malformed();
+    }
+    if (isBlank(row.title())) {
+      return "Missing title";
+    }
+    if (isBlank(row.bookAuthor())) {
+      return "Missing bookAuthor";
+    }
+    if (isBlank(row.isbn())) {
+      return "Missing isbn";
+    }
+    if (!isBlank(row.stock())) {
+      try {
+        if (Integer.parseInt(row.stock().strip()) < 0) {
+          return "Negative stock: " + row.stock();
+        }
+      } catch (NumberFormatException ex) {
+        return "Invalid stock: " + row.stock();
+      }
+    }
+    if (!isBlank(row.createdAt())) {
+      try {
+        parseCreatedAt(row.createdAt().strip());
+      } catch (DateTimeParseException ex) {
+        return "Invalid createdAt: " + row.createdAt();
+      }
+    }
+    return null;
+  }
+
+  private BookEntity toEntity(BookImportRow row) {
+    return BookEntity.builder()
+        .title(row.title().strip())
+        .bookAuthor(row.bookAuthor().strip())
+        .isbn(row.isbn().strip())
+        .stock(isBlank(row.stock()) ? 0 : Integer.parseInt(row.stock().strip()))
+        .createdAt(
+            isBlank(row.createdAt())
+                ? LocalDateTime.now()
+                : parseCreatedAt(row.createdAt().strip()))
+        .build();
+  }
+
+  private void importChunk(List<Candidate> chunk, Summary summary) {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    ChunkResult result;
+    try {
+      result = transactionTemplate.execute(status -> writeChunk(chunk));
+    } catch (DataIntegrityViolationException ex) {
+      // A concurrent writer took a title or ISBN after the lookups; they see it on the retry
+      LOGGER.warn("Retrying import chunk of {} rows after a constraint violation", chunk.size());
+      result = transactionTemplate.execute(status -> writeChunk(chunk));
+    }
+    summary.inserted += result.inserted();
+    for (var issue : result.skippedRows()) {
+      summary.skip(issue);
+    }
+    chunk.clear();
+  }
+
+  private ChunkResult writeChunk(List<Candidate> chunk) {
+    var titles = new HashSet<String>(chunk.size() * 2);
+    var isbns = new HashSet<String>(chunk.size() * 2);
+    for (var candidate : chunk) {
+      titles.add(candidate.bookEntity().getTitle());
+      isbns.add(candidate.bookEntity().getIsbn());
+    }
+    var takenTitles = new HashSet<>(bookRepository.findExistingTitles(titles));
+    var takenIsbns = new HashSet<>(bookRepository.findExistingIsbns(isbns));
+    var skippedRows = new ArrayList<BookImportIssue>();
+    var bookEntityList = new ArrayList<BookEntity>(chunk.size());
+    for (var candidate : chunk) {
+      var bookEntity = candidate.bookEntity();
+      // add() also catches duplicates within the body itself
+      if (!takenTitles.add(bookEntity.getTitle())) {
+        skippedRows.add(new BookImportIssue(candidate.line(), "Duplicate title"));
+      } else if (!takenIsbns.add(bookEntity.getIsbn())) {
+        skippedRows.add(new BookImportIssue(candidate.line(), "Duplicate ISBN"));
+      } else {
+        bookEntityList.add(bookEntity);
+      }
+    }
+    var ids = bookImportWriter.insertAll(bookEntityList);
+    for (int i = 0; i < bookEntityList.size(); i++) {
+      var bookEntity = bookEntityList.get(i);
+      // New IDs are not in the index yet, so only books in stock need to be added
+      if (bookEntity.getStock() > 0) {
+        bookAvailabilityIndex.update(ids.get(i), true);
+      }
+      applicationEventPublisher.publishEvent(
+          new BookChangedEvent(
+              ids.get(i),
+              bookEntity.getTitle(),
+              bookEntity.getBookAuthor(),
+              bookEntity.getIsbn(),
+              null,
+              false));
+    }
+    return new ChunkResult(bookEntityList.size(), skippedRows);
+  }
+
+  private record Candidate(long line, BookEntity bookEntity) {}
+
+  private record ChunkResult(int inserted, List<BookImportIssue> skippedRows) {}
+
+  private final class Summary {
+    private final List<BookImportIssue> skippedRows = new ArrayList<>();
+    private final List<BookImportIssue> rejectedRows = new ArrayList<>();
+    private long inserted;
+    private long skipped;
+    private long rejected;
+
+    private void skip(BookImportIssue issue) {
+      skipped++;
+      if (skippedRows.size() < maxReportedRows) {
+        skippedRows.add(issue);
+      }
+    }
+
+    private void reject(long line, String reason) {
+      rejected++;
+      if (rejectedRows.size() < maxReportedRows) {
+        rejectedRows.add(new BookImportIssue(line, reason));
+      }
+    }
+
+    private BookImportResponse toResponse() {
+      return BookImportResponse.builder()
+          .inserted(inserted)
+          .skipped(skipped)
+          .rejected(rejected)
+          .skippedRows(skippedRows)
+          .rejectedRows(rejectedRows)
+          .build();
+    }
+  }
+}
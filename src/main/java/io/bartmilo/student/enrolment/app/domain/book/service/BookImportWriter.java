@@ -0,0 +1,19 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import java.util.List;
+
+/**
+ * Writes one chunk of a bulk book import. The implementation is selected with {@code
+ * app.book.import.writer}.
+ */
+public interface BookImportWriter {
+
+  /**
+   * Inserts the books within the current transaction. The books have already been checked against
+   * the unique constraints of the book table.
+   *
+   * @return the generated IDs, in the order of the books
+   */
+  List<Long> insertAll(List<BookEntity> bookEntityList);
+}
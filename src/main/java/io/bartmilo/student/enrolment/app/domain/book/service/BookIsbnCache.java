@@ -0,0 +1,61 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookChangedEvent;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded in-memory cache of books by ISBN for the scanner lookups at the desk.
+ *
+ * <p>A {@link BookChangedEvent} carries the ISBN of the book before and after the change, and both
+ * entries are dropped once the changing transaction commits, so a concurrent lookup cannot reload
+ * the uncommitted state. Dropping an entry waits for a load of the same ISBN that is still running,
+ * so a book loaded from the row before the change is dropped as well.
+ *
+ * <p>Stock changes from rentals and returns do not publish events, so the cached stock may lag by
+ * up to {@code app.book.isbn-cache.ttl}. The rental path never reads stock from this cache.
+ */
+@Component
+public class BookIsbnCache {
+
+  private final Cache<String, BookDto> booksByIsbn;
+
+  public BookIsbnCache(
+      @Value("${app.book.isbn-cache.max-size:10000}") long maxSize,
+      @Value("${app.book.isbn-cache.ttl:PT30S}") Duration ttl) {
+    this.booksByIsbn = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+  }
+
+  /**
+   * Returns the book with the given ISBN, loading and caching it on a miss. Books that are not found
+   * are not cached, so a book created afterwards is found by the next lookup.
+   *
+   * @param loader looks the book up in the database
+   * @return a copy of the cached book, safe for the caller to modify
+   */
+  public Optional<BookDto> get(String isbn, Function<String, Optional<BookDto>> loader) {
+    var bookDto = booksByIsbn.get(isbn, key -> loader.apply(key).orElse(null));
+    return Optional.ofNullable(bookDto).map(BookIsbnCache::copyOf);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent bookChangedEvent) {
+    if (bookChangedEvent.previousIsbn() != null) {
+      booksByIsbn.invalidate(bookChangedEvent.previousIsbn());
+    }
+    if (bookChangedEvent.isbn() != null) {
+      booksByIsbn.invalidate(bookChangedEvent.isbn());
+    }
+  }
+
+  private static BookDto copyOf(BookDto bookDto) {
+    return bookDto.toBuilder().build();
+  }
+}
@@ -0,0 +1,223 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookPopularityResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.PopularityWindow;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookPopularityRepository.DayDelta;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookPopularityRepository.StatsDelta;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRentalStatsRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalActivityEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the book popularity aggregates from committed rental activity and serves the most
+ * rented books from memory.
+ *
+ * <p>Rentals and returns are queued when their transaction commits and folded into {@code
+ * book_rental_stats} and the per-day {@code book_rental_daily_stats} buckets by a periodic flush,
+ * as one batch of increments per table. After every flush the top books of each {@link
+ * PopularityWindow} are read back into a small in-memory ranking, so {@code GET /books/popular}
+ * never touches the database. The ranking includes increments flushed by other nodes.
+ *
+ * <p>Queued activity is lost if the application stops before a flush, and the nightly {@link
+ * #rebuild()} recomputes everything from the rental table to repair such drift. The rebuild counts
+ * the rentals and returns up to the moment it starts and applies the queued activity that occurred
+ * later on top, so activity committed while it runs is not counted twice. Activity that occurred
+ * before the rebuild started but commits only after it has read the rental table is not counted
+ * until the next rebuild; this inaccuracy is accepted, as it is bounded by the rental transactions
+ * in flight at that moment.
+ */
+@Component
+public class BookPopularityTracker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookPopularityTracker.class);
+
+  private final Queue<RentalActivityEvent> pendingActivity = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final BookRentalStatsRepository bookRentalStatsRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int topSize;
+  private volatile Map<PopularityWindow, List<BookPopularityResponse>> ranking =
+      new EnumMap<>(PopularityWindow.class);
+
+  public BookPopularityTracker(
+      BookRentalStatsRepository bookRentalStatsRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.book.popularity.top-size:20}") int topSize) {
+    this.bookRentalStatsRepository = bookRentalStatsRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.topSize = topSize;
+  }
+
+  @TransactionalEventListener
+  public void onRentalActivity(RentalActivityEvent rentalActivityEvent) {
+    pendingActivity.add(rentalActivityEvent);
+  }
+
+  /**
+   * Returns the most rented books of a window, most rented first, as of the last flush.
+   *
+   * @param limit the maximum number of books, capped by {@code app.book.popularity.top-size}
+   */
+  public List<BookPopularityResponse> findTopBooks(PopularityWindow window, int limit) {
+    var topBooks = ranking.getOrDefault(window, List.of());
+    return topBooks.subList(0, Math.min(Math.max(limit, 0), topBooks.size()));
+  }
+
+  /** Applies the queued rental activity to the aggregates and refreshes the ranking. */
+  @Scheduled(
+      fixedDelayString = "${app.book.popularity.flush-interval-ms:5000}",
+      initialDelayString = "${app.book.popularity.flush-interval-ms:5000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      var drained = new ArrayList<RentalActivityEvent>();
+      drain(drained);
+      if (!drained.isEmpty()) {
+        try {
+          transactionTemplate.executeWithoutResult(status -> applyActivity(drained));
+          LOGGER.info("Flushed {} rental activity events into book popularity", drained.size());
+        } catch (RuntimeException ex) {
+          // e.g. another node created the same stats row first; the retry updates it instead
+          LOGGER.warn("Book popularity flush failed, retrying with the next flush", ex);
+          pendingActivity.addAll(drained);
+          return;
+        }
+      }
+      refreshRanking();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Recomputes the aggregates from the rental table as of now. Queued activity that occurred up to
+   * now is part of the rental table, so it is discarded rather than applied twice; activity that
+   * occurs while the rebuild runs is applied on top.
+   */
+  @Scheduled(cron = "${app.book.popularity.rebuild-cron:0 30 3 * * *}")
+  public void rebuild() {
+    flushLock.lock();
+    try {
+      LOGGER.info("Rebuilding book popularity from the rental table");
+      var now = LocalDateTime.now();
+      // Whole microseconds, as stored by the timestamp columns compared against it
+      var cutOff = now.truncatedTo(ChronoUnit.MICROS);
+      var drained = new ArrayList<RentalActivityEvent>();
+      try {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              bookRentalStatsRepository.rebuildFromRentals(
+                  firstDayOf(PopularityWindow.LAST_30_DAYS), cutOff, now);
+              // Drained after the rental table was read, so no activity falls in between
+              drain(drained);
+              applyActivity(occurredAfter(drained, cutOff));
+            });
+      } catch (RuntimeException ex) {
+        pendingActivity.addAll(drained);
+        throw ex;
+      }
+      refreshRanking();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void refreshRanking() {
+    var refreshed =
+        new EnumMap<PopularityWindow, List<BookPopularityResponse>>(PopularityWindow.class);
+    for (var window : PopularityWindow.values()) {
+      refreshed.put(
+          window,
+          List.copyOf(
+              window == PopularityWindow.ALL_TIME
+                  ? bookRentalStatsRepository.findTopRentedOfAllTime(topSize)
+                  : bookRentalStatsRepository.findTopRentedSince(firstDayOf(window), topSize)));
+    }
+    ranking = refreshed;
+  }
+
+  /** Moves the queued activity to the list, one event at a time so no concurrent add is lost. */
+  private void drain(List<RentalActivityEvent> drained) {
+    RentalActivityEvent rentalActivityEvent;
+    while ((rentalActivityEvent = pendingActivity.poll()) != null) {
+      drained.add(rentalActivityEvent);
+    }
+  }
+
+  private static List<RentalActivityEvent> occurredAfter(
+      List<RentalActivityEvent> rentalActivityEvents, LocalDateTime cutOff) {
+    var laterActivity = new ArrayList<RentalActivityEvent>();
+    for (var rentalActivityEvent : rentalActivityEvents) {
+      var laterEvents =
+          rentalActivityEvent.rentalEvents().stream()
+              .filter(rentalEvent -> rentalEvent.occurredAt().isAfter(cutOff))
+              .toList();
+      if (!laterEvents.isEmpty()) {
+        laterActivity.add(new RentalActivityEvent(rentalActivityEvent.eventType(), laterEvents));
+      }
+    }
+    return laterActivity;
+  }
+
+  private void applyActivity(List<RentalActivityEvent> rentalActivityEvents) {
+    // Sorted so concurrent flushes on several nodes lock the rows in the same order
+    var statsDeltas = new TreeMap<Long, long[]>();
+    var dayDeltas = new TreeMap<Long, TreeMap<LocalDate, Long>>();
+    for (var rentalActivityEvent : rentalActivityEvents) {
+      var rented = RentalEvent.RENTED.equals(rentalActivityEvent.eventType());
+      for (var rentalEvent : rentalActivityEvent.rentalEvents()) {
+        var statsDelta = statsDeltas.computeIfAbsent(rentalEvent.bookId(), id -> new long[2]);
+        if (rented) {
+          statsDelta[0]++;
+          statsDelta[1]++;
+          dayDeltas
+              .computeIfAbsent(rentalEvent.bookId(), id -> new TreeMap<>())
+              .merge(rentalEvent.occurredAt().toLocalDate(), 1L, Long::sum);
+        } else {
+          statsDelta[1]--;
+        }
+      }
+    }
+    bookRentalStatsRepository.applyStatsDeltas(
+        statsDeltas.entrySet().stream()
+            .map(entry -> new StatsDelta(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+            .toList(),
+        LocalDateTime.now());
+    bookRentalStatsRepository.applyDayDeltas(
+        dayDeltas.entrySet().stream()
+            .flatMap(
+                bookEntry ->
+                    bookEntry.getValue().entrySet().stream()
+                        .map(
+                            dayEntry ->
+                                new DayDelta(
+                                    bookEntry.getKey(), dayEntry.getKey(), dayEntry.getValue())))
+            .toList());
+  }
+
+  private static LocalDate firstDayOf(PopularityWindow window) {
+    return LocalDate.now().minusDays(window.days() - 1L);
+  }
+}
@@ -0,0 +1,22 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import java.util.List;
+
+/**
+ * Full-text search over the title and author of the books in the catalog. The implementation is
+ * selected with {@code app.book.search.engine}.
+ */
+public interface BookSearchEngine {
+
+  /**
+   * Returns the books whose title or author contain every term of the query, most relevant first.
+   * Every term also matches the words it is a prefix of, so partially typed queries find results.
+   * Implementations may add near matches, e.g. titles with a small typo.
+   *
+   * @param query the free-text query
+   * @param limit the maximum number of books to return
+   * @return the matching books; empty when the query contains no searchable term
+   */
+  List<BookSearchResponse> search(String query, int limit);
+}
@@ -0,0 +1,28 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** Splits titles, authors and queries into the terms the search engines match on. */
+final class BookSearchTerms {
+
+  private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private BookSearchTerms() {}
+
+  /** Returns the lower-case words of the text in order, without punctuation or duplicates. */
+  static List<String> tokenize(String text) {
+    var terms = new ArrayList<String>();
+    if (text == null) {
+      return terms;
+    }
+    for (var term : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!term.isEmpty() && !terms.contains(term)) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+}
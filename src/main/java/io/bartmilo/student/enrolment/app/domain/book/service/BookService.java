@@ -1,6 +1,11 @@
 package io.bartmilo.student.enrolment.app.domain.book.service;
 
 import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSortKey;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -22,6 +27,40 @@ public interface BookService {
    */
   Page<BookDto> findAll(Pageable pageable);
 
+  /**
+   * Returns one page of books for the list endpoint, read straight into responses without loading
+   * the book entities.
+   *
+   * @param pageable The pagination information.
+   * @return A page of books.
+   */
+  Page<BookResponse> findAllResponses(Pageable pageable);
+
+  /**
+   * Returns one page of books in keyset pagination mode, read straight into responses. Each page
+   * seeks straight past the last book of the previous one, so it costs the same however deep it
+   * is, and no count is run.
+   *
+   * @param sortKey The order to page through.
+   * @param after The cursor of the previous page; {@code null} or blank for the first page.
+   * @param size The page size.
+   * @return The page of books, with the cursor of the next page.
+   */
+  CursorSlice<BookResponse> findAllResponses(BookSortKey sortKey, String after, int size);
+
+  /**
+   * Returns one page of the books with copies in stock, in ID order. The page is taken from the
+   * {@link BookAvailabilityIndex}, so only the returned books are read from the database.
+   *
+   * @param after The cursor of the previous page; {@code null} or blank for the first page.
+   * @param size The page size.
+   * @param bookAuthor Only books by this author, ignoring case; {@code null} for any author.
+   * @param title Only books whose title starts with this, ignoring case; {@code null} for any title.
+   * @return The page of books, with the cursor of the next page.
+   */
+  CursorSlice<BookResponse> findAvailableResponses(
+      String after, int size, String bookAuthor, String title);
+
   /**
    * Returns the book with the specified id.
    *
@@ -30,6 +69,24 @@ public interface BookService {
    */
   BookDto findById(Long id);
 
+  /**
+   * Returns the book with the specified ISBN. Served from an in-memory cache when possible, so the
+   * stock of the returned book may lag slightly behind the database.
+   *
+   * @param isbn ISBN of the book to retrieve.
+   * @return The requested book if found.
+   */
+  BookDto findByIsbn(String isbn);
+
+  /**
+   * Returns the version of the book with the specified ID, without loading the book. Every update
+   * of the book, stock changes included, bumps its version.
+   *
+   * @param id ID of the book.
+   * @return The version of the book, or empty if it does not exist.
+   */
+  Optional<Long> findVersion(Long id);
+
   /**
    * Returns boolean of book in the database with the specified ID. Checks whether the book exists
    * in the database.
@@ -40,11 +97,14 @@ public interface BookService {
   boolean isExists(Long id);
 
   /**
-   * Updates the specified book, identified by given ID.
+   * Updates the specified book, identified by given ID. When the book carries a version, the update
+   * only goes through if the stored book still has that version.
    *
    * @param id The ID of the book to update.
    * @param bookDto The book to update.
    * @return The updated book.
+   * @throws org.springframework.dao.OptimisticLockingFailureException if the book has a different
+   *     version or is updated concurrently
    */
   BookDto partialUpdate(Long id, BookDto bookDto);
 
@@ -59,7 +119,25 @@ public interface BookService {
 
   BookDto decrementBookStock(Long bookId);
 
+  /**
+   * Takes one copy from the stock of each given book in a single batch. Unlike {@link
+   * #decrementBookStock(Long)} a missing or out-of-stock book does not throw, so the caller can
+   * handle every entry on its own.
+   *
+   * @param bookIds IDs of the books to take from stock, one entry per copy.
+   * @return for each entry, in list order, whether a copy was taken.
+   */
+  boolean[] decrementBookStocks(List<Long> bookIds);
+
   void returnBookToStock(BookDto bookDto);
 
   void incrementBookStock(Long bookId);
+
+  /**
+   * Puts the given number of copies back into the stock of a book with a single update.
+   *
+   * @param bookId The ID of the book.
+   * @param amount The number of copies to put back.
+   */
+  void incrementBookStock(Long bookId, int amount);
 }
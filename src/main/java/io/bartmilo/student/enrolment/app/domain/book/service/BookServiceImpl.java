@@ -1,13 +1,28 @@
 package io.bartmilo.student.enrolment.app.domain.book.service;
 
+import io.bartmilo.student.enrolment.app.cache.ReadThroughCache;
+import io.bartmilo.student.enrolment.app.config.CacheConfig;
 import io.bartmilo.student.enrolment.app.domain.book.exception.BookNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookChangedEvent;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSortKey;
 import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,17 +31,42 @@ import org.springframework.transaction.annotation.Transactional;
 public class BookServiceImpl implements BookService {
 
   public static final String BOOK_NOT_FOUND_WITH_ID = "Book not found with ID: ";
+  public static final String BOOK_NOT_FOUND_WITH_ISBN = "Book not found with ISBN: ";
   private static final Logger LOGGER = LoggerFactory.getLogger(BookServiceImpl.class);
+  private static final int CANDIDATE_CHUNK_SIZE = 1_000;
   private final BookRepository bookRepository;
   private final BookMapper bookMapper;
+  private final Optional<BookStockLedger> bookStockLedger;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final BookIsbnCache bookIsbnCache;
+  private final ReadThroughCache<BookDto> bookCache;
+  private final BookAvailabilityIndex bookAvailabilityIndex;
 
-  public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper) {
+  public BookServiceImpl(
+      BookRepository bookRepository,
+      BookMapper bookMapper,
+      Optional<BookStockLedger> bookStockLedger,
+      ApplicationEventPublisher applicationEventPublisher,
+      BookIsbnCache bookIsbnCache,
+      CacheManager cacheManager,
+      BookAvailabilityIndex bookAvailabilityIndex) {
     this.bookRepository = bookRepository;
     this.bookMapper = bookMapper;
+    this.bookStockLedger = bookStockLedger;
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.bookIsbnCache = bookIsbnCache;
+    this.bookCache =
+        new ReadThroughCache<>(
+            cacheManager, CacheConfig.BOOK_CACHE, bookDto -> bookDto.toBuilder().build());
+    this.bookAvailabilityIndex = bookAvailabilityIndex;
+  }
+
+  private static boolean isInStock(Integer stock) {
+    return stock != null && stock > 0;
   }
 
   private static void checkBookStock(Long bookId, int amount, BookEntity bookEntity) {
-    if (bookEntity.getStock() <= 0) {
+    if (bookEntity.getStock() == null || bookEntity.getStock() <= 0) {
       LOGGER.error("Book stock unavailable for book ID: {}", bookId);
       throw new IllegalArgumentException("Book is not available for rent.");
     }
@@ -42,7 +82,11 @@ public class BookServiceImpl implements BookService {
     LOGGER.info("Saving book to the database: {}", bookDto);
     var bookEntity = bookMapper.convertDtoToEntity(bookDto);
     var savedBookEntity = bookRepository.save(bookEntity);
-    return bookMapper.convertEntityToDto(savedBookEntity);
+    var savedBookDto = bookMapper.convertEntityToDto(savedBookEntity);
+    bookCache.evict(savedBookDto.getId());
+    bookAvailabilityIndex.update(savedBookDto.getId(), isInStock(savedBookDto.getStock()));
+    applicationEventPublisher.publishEvent(BookChangedEvent.created(savedBookDto));
+    return savedBookDto;
   }
 
   @Override
@@ -55,12 +99,115 @@ public class BookServiceImpl implements BookService {
 
   @Override
   @Transactional(readOnly = true)
+  public Page<BookResponse> findAllResponses(Pageable pageable) {
+    LOGGER.info("Fetching book responses with pagination");
+    return bookRepository.findResponsePage(pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorSlice<BookResponse> findAllResponses(BookSortKey sortKey, String after, int size) {
+    LOGGER.info("Fetching books by {} after cursor: {}", sortKey, after);
+    // The first page starts before the smallest key and ID
+    var cursor =
+        after == null || after.isBlank()
+            ? new KeysetCursor("", Long.MIN_VALUE)
+            : KeysetCursor.decode(after);
+    var limit = PageRequest.of(0, size + 1);
+    var bookResponseList =
+        switch (sortKey) {
+          case ID -> bookRepository.findPageAfterId(cursor.id(), limit);
+          case TITLE -> bookRepository.findPageAfterTitle(cursor.key(), cursor.id(), limit);
+        };
+    return CursorSlice.of(
+        bookResponseList,
+        size,
+        bookResponse ->
+            new KeysetCursor(
+                sortKey == BookSortKey.TITLE ? bookResponse.title() : "", bookResponse.id()));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorSlice<BookResponse> findAvailableResponses(
+      String after, int size, String bookAuthor, String title) {
+    LOGGER.info(
+        "Fetching available books by author: {} and title: {} after cursor: {}",
+        bookAuthor,
+        title,
+        after);
+    var afterId = after == null || after.isBlank() ? 0L : KeysetCursor.decode(after).id();
+    // Without a filter the index alone decides
+    var bookIds =
+        bookAuthor == null && title == null
+            ? bookAvailabilityIndex.findAvailableAfter(afterId, size + 1, null)
+            : findAvailableIdsAfter(afterId, size + 1, bookAuthor, title);
+    var bookResponseList =
+        bookIds.isEmpty() ? List.<BookResponse>of() : bookRepository.findResponsesByIdIn(bookIds);
+    return CursorSlice.of(
+        bookResponseList, size, bookResponse -> new KeysetCursor("", bookResponse.id()));
+  }
+
+  /**
+   * Reads the books matching the filters in chunks of candidates from the given ID on, until the
+   * availability index has found enough of them in stock or no candidates are left.
+   */
+  private List<Long> findAvailableIdsAfter(
+      long afterId, int limit, String bookAuthor, String title) {
+    var titlePattern = title == null ? null : escapeLikePattern(title) + '%';
+    var bookIds = new ArrayList<Long>(limit);
+    var seekId = afterId;
+    List<Long> candidateIds;
+    do {
+      candidateIds =
+          bookRepository.findIdsByAuthorAndTitleAfter(
+              seekId, bookAuthor, titlePattern, PageRequest.of(0, CANDIDATE_CHUNK_SIZE));
+      bookIds.addAll(
+          bookAvailabilityIndex.findAvailableAfter(seekId, limit - bookIds.size(), candidateIds));
+      if (!candidateIds.isEmpty()) {
+        seekId = candidateIds.get(candidateIds.size() - 1);
+      }
+    } while (bookIds.size() < limit && candidateIds.size() == CANDIDATE_CHUNK_SIZE);
+    return bookIds;
+  }
+
+  private static String escapeLikePattern(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /**
+   * Deliberately not transactional, like {@link #findByIsbn}: on a miss the repository runs the
+   * lookup in its own read-only transaction.
+   */
+  @Override
   public BookDto findById(Long id) {
     LOGGER.info("Finding book with ID: {}", id);
-    return bookRepository
-        .findById(id)
-        .map(bookMapper::convertEntityToDto)
-        .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + id));
+    return bookCache.get(
+        id,
+        () ->
+            bookRepository
+                .findById(id)
+                .map(bookMapper::convertEntityToDto)
+                .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + id)));
+  }
+
+  /**
+   * Deliberately not transactional: a cache hit must not pay for a connection checkout, and on a
+   * miss the repository runs the lookup in its own read-only transaction.
+   */
+  @Override
+  public BookDto findByIsbn(String isbn) {
+    LOGGER.debug("Finding book with ISBN: {}", isbn);
+    return bookIsbnCache
+        .get(isbn, key -> bookRepository.findByIsbn(key).map(bookMapper::convertEntityToDto))
+        .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ISBN + isbn));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<Long> findVersion(Long id) {
+    LOGGER.debug("Finding version of book with ID: {}", id);
+    return bookRepository.findVersionById(id);
   }
 
   @Override
@@ -84,20 +231,34 @@ public class BookServiceImpl implements BookService {
   @Transactional
   public void delete(Long id) {
     LOGGER.info("Deleting book with ID: {}", id);
+    bookStockLedger.ifPresent(ledger -> ledger.reset(id));
+    var isbn = bookRepository.findById(id).map(BookEntity::getIsbn).orElse(null);
     bookRepository.deleteById(id);
+    bookCache.evict(id);
+    bookAvailabilityIndex.remove(id);
+    applicationEventPublisher.publishEvent(BookChangedEvent.deleted(id, isbn));
   }
 
   @Override
   @Transactional
   public BookDto decrementBookStock(Long bookId, int amount) {
-    var bookEntity =
-        bookRepository
-            .findById(bookId)
-            .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + bookId));
-    checkBookStock(bookId, amount, bookEntity);
-    bookEntity.setStock(bookEntity.getStock() - amount);
-    var savedBookEntity = bookRepository.save(bookEntity);
-    return bookMapper.convertEntityToDto(savedBookEntity);
+    LOGGER.info("Decrementing stock of book with ID: {} by {}", bookId, amount);
+    bookCache.evict(bookId);
+    BookDto bookDto;
+    if (bookStockLedger.isPresent()) {
+      bookDto = decrementLedgerStock(bookStockLedger.get(), bookId, amount);
+    } else {
+      if (bookRepository.decrementStock(bookId, amount) == 0) {
+        throw stockUnavailable(bookId, amount);
+      }
+      bookDto =
+          bookRepository
+              .findById(bookId)
+              .map(bookMapper::convertEntityToDto)
+              .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + bookId));
+    }
+    bookAvailabilityIndex.update(bookId, isInStock(bookDto.getStock()));
+    return bookDto;
   }
 
   @Override
@@ -106,27 +267,125 @@ public class BookServiceImpl implements BookService {
     return this.decrementBookStock(bookId, 1);
   }
 
+  @Override
+  @Transactional
+  public boolean[] decrementBookStocks(List<Long> bookIds) {
+    LOGGER.info("Decrementing stock of {} books in one batch", bookIds.size());
+    bookIds.forEach(bookCache::evict);
+    if (bookStockLedger.isPresent()) {
+      var reserved = reserveLedgerStocks(bookStockLedger.get(), bookIds);
+      for (int i = 0; i < reserved.length; i++) {
+        if (reserved[i]) {
+          var bookId = bookIds.get(i);
+          bookAvailabilityIndex.update(bookId, bookStockLedger.get().available(bookId) > 0);
+        }
+      }
+      return reserved;
+    }
+    var updateCounts = bookRepository.decrementStocks(bookIds);
+    var decremented = new boolean[updateCounts.length];
+    var decrementedBookIds = new HashSet<Long>();
+    for (int i = 0; i < updateCounts.length; i++) {
+      decremented[i] = updateCounts[i] != 0;
+      if (decremented[i]) {
+        decrementedBookIds.add(bookIds.get(i));
+      }
+    }
+    // One read for the whole batch finds the books whose last copies were taken
+    if (!decrementedBookIds.isEmpty()) {
+      bookRepository
+          .findIdsOutOfStock(decrementedBookIds)
+          .forEach(bookId -> bookAvailabilityIndex.update(bookId, false));
+    }
+    return decremented;
+  }
+
   @Override
   @Transactional
   public void returnBookToStock(BookDto bookDto) {
-    var bookEntity = bookMapper.convertDtoToEntity(bookDto);
-    bookEntity.setStock(bookEntity.getStock() + 1);
-    bookRepository.save(bookEntity);
+    this.incrementBookStock(bookDto.getId());
   }
 
   @Override
   @Transactional
   public void incrementBookStock(Long bookId) {
-    BookEntity book =
+    this.incrementBookStock(bookId, 1);
+  }
+
+  @Override
+  @Transactional
+  public void incrementBookStock(Long bookId, int amount) {
+    LOGGER.info("Incrementing stock of book with ID: {} by {}", bookId, amount);
+    bookCache.evict(bookId);
+    if (bookStockLedger.isPresent()) {
+      bookStockLedger.get().release(bookId, amount);
+    } else if (bookRepository.incrementStock(bookId, amount) == 0) {
+      throw new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + bookId);
+    }
+    bookAvailabilityIndex.update(bookId, true);
+  }
+
+  private BookDto decrementLedgerStock(BookStockLedger ledger, Long bookId, int amount) {
+    if (!ledger.reserve(bookId, amount)) {
+      LOGGER.error("Book stock unavailable for book ID: {}", bookId);
+      throw new IllegalArgumentException(
+          ledger.available(bookId) <= 0
+              ? "Book is not available for rent."
+              : "Insufficient book stock.");
+    }
+    var bookDto =
         bookRepository
             .findById(bookId)
-            .orElseThrow(() -> new BookNotFoundException("Book not found with ID: " + bookId));
-    book.setStock(book.getStock() + 1);
-    bookRepository.save(book);
+            .map(bookMapper::convertEntityToDto)
+            .orElseThrow(() -> new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + bookId));
+    // The row lags behind the ledger until the next flush
+    bookDto.setStock(ledger.available(bookId));
+    return bookDto;
+  }
+
+  private static void checkVersion(Long bookId, Long expectedVersion, Long version) {
+    if (expectedVersion != null && !expectedVersion.equals(version)) {
+      LOGGER.error(
+          "Book with ID: {} has version {}, expected {}", bookId, version, expectedVersion);
+      throw new OptimisticLockingFailureException(
+          "Book with ID: " + bookId + " was modified, expected version " + expectedVersion);
+    }
+  }
+
+  private static boolean[] reserveLedgerStocks(BookStockLedger ledger, List<Long> bookIds) {
+    var reserved = new boolean[bookIds.size()];
+    for (int i = 0; i < reserved.length; i++) {
+      try {
+        reserved[i] = ledger.reserve(bookIds.get(i), 1);
+      } catch (BookNotFoundException ex) {
+        reserved[i] = false;
+      }
+    }
+    return reserved;
+  }
+
+  /**
+   * Resolves why a guarded stock decrement did not update any row. Only called on the failure path,
+   * so the successful rental never pays for the extra read.
+   */
+  private RuntimeException stockUnavailable(Long bookId, int amount) {
+    var bookEntity = bookRepository.findById(bookId);
+    if (bookEntity.isEmpty()) {
+      return new BookNotFoundException(BOOK_NOT_FOUND_WITH_ID + bookId);
+    }
+    try {
+      checkBookStock(bookId, amount, bookEntity.get());
+    } catch (IllegalArgumentException ex) {
+      return ex;
+    }
+    // The stock was replenished between the guarded update and this read
+    return new IllegalArgumentException("Insufficient book stock.");
   }
 
   private BookDto updateExistingBook(BookDto bookDto, BookEntity existingBook) {
     LOGGER.info("Found book to update: {}", existingBook);
+    checkVersion(existingBook.getId(), bookDto.getVersion(), existingBook.getVersion());
+    var previousIsbn = existingBook.getIsbn();
 
     if (bookDto.getBookAuthor() != null) {
       existingBook.setBookAuthor(bookDto.getBookAuthor());
@@ -142,10 +401,17 @@ public class BookServiceImpl implements BookService {
     }
     if (bookDto.getStock() != null) {
       existingBook.setStock(bookDto.getStock());
+      bookStockLedger.ifPresent(ledger -> ledger.reset(existingBook.getId()));
     }
 
-    var updatedBook = bookRepository.save(existingBook);
+    // Flushed so that the returned book carries the bumped version
+    var updatedBook = bookRepository.saveAndFlush(existingBook);
     LOGGER.info("Updated book: {}", updatedBook);
-    return bookMapper.convertEntityToDto(updatedBook);
+    var updatedBookDto = bookMapper.convertEntityToDto(updatedBook);
+    bookCache.evict(updatedBookDto.getId());
+    bookAvailabilityIndex.update(updatedBookDto.getId(), isInStock(updatedBookDto.getStock()));
+    applicationEventPublisher.publishEvent(
+        BookChangedEvent.updated(updatedBookDto, previousIsbn));
+    return updatedBookDto;
   }
 }
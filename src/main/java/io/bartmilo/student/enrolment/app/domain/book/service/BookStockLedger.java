@@ -0,0 +1,373 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.exception.BookNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookStockJournalEntity;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookStockJournalRepository;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory stock ledger for titles rented by many students at once. Available copies are kept in
+ * striped, lock-free counters seeded from {@code book.stock}, so rentals of the same book no longer
+ * queue up on its row lock. Every change is recorded in the {@code book_stock_journal} table in the
+ * caller's transaction and folded back into {@code book.stock} by a write-behind flusher, which
+ * also applies whatever a crash left behind when the application starts.
+ *
+ * <p>A counter is seeded from the committed stock, which misses the journal entries of running
+ * transactions. The ledger therefore tracks these entries per book until their transaction
+ * completes: a seed leaves them out of the committed stock and takes the copies they reserve, and
+ * each one is settled against whichever counter is current when its transaction completes. A
+ * per-book read-write lock keeps seeding and dropping a counter apart from these steps, while
+ * rentals only share its read side.
+ *
+ * <p>The counters are local to one application instance, so the ledger must only be enabled when
+ * a single instance serves rentals. Enable it with {@code app.book.stock-ledger.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.book.stock-ledger.enabled", havingValue = "true")
+public class BookStockLedger {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookStockLedger.class);
+  private static final int STRIPES =
+      Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+  private final Map<Long, BookLedger> bookLedgers = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final BookStockJournalRepository bookStockJournalRepository;
+  private final BookRepository bookRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int flushBatchSize;
+
+  public BookStockLedger(
+      BookStockJournalRepository bookStockJournalRepository,
+      BookRepository bookRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.book.stock-ledger.flush-batch-size:10000}") int flushBatchSize) {
+    this.bookStockJournalRepository = bookStockJournalRepository;
+    this.bookRepository = bookRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.flushBatchSize = flushBatchSize;
+  }
+
+  /**
+   * Takes copies of a book without touching its row. Must be called within a transaction: the
+   * journal entry commits with it, and the copies are given back if it rolls back.
+   *
+   * @return {@code false} if fewer copies than requested are available
+   * @throws BookNotFoundException if the book does not exist
+   */
+  public boolean reserve(Long bookId, int amount) {
+    requireTransaction();
+    var bookLedger = bookLedgerFor(bookId);
+    Long entryId;
+    lockSeeded(bookLedger);
+    try {
+      if (!bookLedger.counter.tryTake(amount)) {
+        return false;
+      }
+      try {
+        entryId = journal(bookId, -amount);
+      } catch (RuntimeException ex) {
+        bookLedger.counter.add(amount);
+        throw ex;
+      }
+      bookLedger.pendingDeltas.put(entryId, -amount);
+    } finally {
+      bookLedger.lock.readLock().unlock();
+    }
+    settleOnCompletion(bookLedger, entryId);
+    return true;
+  }
+
+  /**
+   * Puts copies of a book back. Must be called within a transaction; the copies become available
+   * to other rentals once it commits.
+   *
+   * @throws BookNotFoundException if the book does not exist
+   */
+  public void release(Long bookId, int amount) {
+    requireTransaction();
+    var bookLedger = bookLedgerFor(bookId);
+    if (bookLedger.counter == null && !bookRepository.existsById(bookId)) {
+      throw new BookNotFoundException(BookServiceImpl.BOOK_NOT_FOUND_WITH_ID + bookId);
+    }
+    Long entryId;
+    // Tracked before a seed can read the stock, which would count the entry once committed
+    bookLedger.lock.readLock().lock();
+    try {
+      entryId = journal(bookId, amount);
+      bookLedger.pendingDeltas.put(entryId, amount);
+    } finally {
+      bookLedger.lock.readLock().unlock();
+    }
+    settleOnCompletion(bookLedger, entryId);
+  }
+
+  /** Returns the number of copies of a book currently available to rentals. */
+  public int available(Long bookId) {
+    var bookLedger = bookLedgerFor(bookId);
+    lockSeeded(bookLedger);
+    try {
+      return bookLedger.counter.sum();
+    } finally {
+      bookLedger.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Discards the pending changes and the counter of a book whose stock was set or deleted
+   * directly. Must be called within the transaction doing so; the counter is seeded again from the
+   * new state on next use. Reservations of transactions still running are not discarded: they
+   * commit after the new stock and are taken from the new counter.
+   */
+  public void reset(Long bookId) {
+    var bookLedger = bookLedgerFor(bookId);
+    var entryIds = bookStockJournalRepository.findIdsByBookId(bookId);
+    bookStockJournalRepository.deleteAllByIdInBatch(entryIds);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            bookLedger.lock.writeLock().lock();
+            try {
+              if (status == STATUS_COMMITTED) {
+                // Committed before the reset yet not settled: overwritten by the new stock
+                entryIds.forEach(bookLedger.pendingDeltas::remove);
+              }
+              bookLedger.counter = null;
+            } finally {
+              bookLedger.lock.writeLock().unlock();
+            }
+          }
+        });
+  }
+
+  /** Folds the pending journal entries into {@code book.stock}, coalescing them per book. */
+  @Scheduled(
+      fixedDelayString = "${app.book.stock-ledger.flush-interval-ms:1000}",
+      initialDelayString = "${app.book.stock-ledger.flush-interval-ms:1000}")
+  public void flush() {
+    // Two flushers reading the same entries would apply them twice
+    flushLock.lock();
+    try {
+      Integer flushed;
+      do {
+        flushed = transactionTemplate.execute(status -> flushBatch());
+      } while (flushed != null && flushed == flushBatchSize);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** Applies the changes a crash left in the journal before rentals start using the ledger. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reconcile() {
+    LOGGER.info("Reconciling book stock with the stock ledger journal");
+    flush();
+  }
+
+  private int flushBatch() {
+    var journalEntries = bookStockJournalRepository.findOldest(PageRequest.of(0, flushBatchSize));
+    // Entries of unsettled transactions are left for the next flush: a seed running meanwhile
+    // leaves them out of the journal, so it must not find them in book.stock either
+    var settledEntries = journalEntries.stream().filter(entry -> !isPending(entry)).toList();
+    if (settledEntries.isEmpty()) {
+      return 0;
+    }
+    // Sorted so the book rows are always locked in the same order
+    var deltas = new TreeMap<Long, Integer>();
+    settledEntries.forEach(
+        entry -> deltas.merge(entry.getBookId(), entry.getDelta(), Integer::sum));
+    deltas.forEach(
+        (bookId, delta) -> {
+          if (delta != 0) {
+            bookRepository.incrementStock(bookId, delta);
+          }
+        });
+    bookStockJournalRepository.deleteAllByIdInBatch(
+        settledEntries.stream().map(BookStockJournalEntity::getId).toList());
+    LOGGER.info(
+        "Flushed {} stock ledger entries into {} books", settledEntries.size(), deltas.size());
+    return journalEntries.size();
+  }
+
+  private boolean isPending(BookStockJournalEntity journalEntry) {
+    var bookLedger = bookLedgers.get(journalEntry.getBookId());
+    return bookLedger != null && bookLedger.pendingDeltas.containsKey(journalEntry.getId());
+  }
+
+  private BookLedger bookLedgerFor(Long bookId) {
+    return bookLedgers.computeIfAbsent(bookId, BookLedger::new);
+  }
+
+  /** Acquires the read lock of a book once its counter is seeded. */
+  private void lockSeeded(BookLedger bookLedger) {
+    while (true) {
+      bookLedger.lock.readLock().lock();
+      if (bookLedger.counter != null) {
+        return;
+      }
+      bookLedger.lock.readLock().unlock();
+      seed(bookLedger);
+    }
+  }
+
+  private void seed(BookLedger bookLedger) {
+    bookLedger.lock.writeLock().lock();
+    try {
+      if (bookLedger.counter != null) {
+        return;
+      }
+      var bookId = bookLedger.bookId;
+      var pendingDeltas = Map.copyOf(bookLedger.pendingDeltas);
+      var committedStock =
+          pendingDeltas.isEmpty()
+              ? bookStockJournalRepository.findLedgerStockByBookId(bookId)
+              : bookStockJournalRepository.findLedgerStockByBookIdExcluding(
+                  bookId, pendingDeltas.keySet());
+      var stock =
+          committedStock.orElseThrow(
+              () -> new BookNotFoundException(BookServiceImpl.BOOK_NOT_FOUND_WITH_ID + bookId));
+      // Copies reserved by running transactions are taken; released ones count once committed
+      for (var delta : pendingDeltas.values()) {
+        stock += Math.min(delta, 0);
+      }
+      bookLedger.counter = new StripedCounter(STRIPES, stock);
+    } finally {
+      bookLedger.lock.writeLock().unlock();
+    }
+  }
+
+  private void settleOnCompletion(BookLedger bookLedger, Long entryId) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            settle(bookLedger, entryId, status == STATUS_COMMITTED);
+          }
+        });
+  }
+
+  /**
+   * Applies a completed journal entry to the current counter: a committed release adds its copies
+   * and a rolled back reservation gives its copies back. A counter seeded later reads the outcome
+   * from the database instead.
+   */
+  private void settle(BookLedger bookLedger, Long entryId, boolean committed) {
+    bookLedger.lock.readLock().lock();
+    try {
+      // Missing if a reset overwrote the entry
+      var delta = bookLedger.pendingDeltas.remove(entryId);
+      var counter = bookLedger.counter;
+      if (delta != null && counter != null && (committed ? delta > 0 : delta < 0)) {
+        counter.add(Math.abs(delta));
+      }
+    } finally {
+      bookLedger.lock.readLock().unlock();
+    }
+  }
+
+  private static void requireTransaction() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("The stock ledger must be used within a transaction");
+    }
+  }
+
+  private Long journal(Long bookId, int delta) {
+    return bookStockJournalRepository
+        .save(
+            BookStockJournalEntity.builder()
+                .bookId(bookId)
+                .delta(delta)
+                .createdAt(LocalDateTime.now())
+                .build())
+        .getId();
+  }
+
+  /** The counter of one book and the journal entries of its unsettled transactions, by ID. */
+  private static final class BookLedger {
+    private final Long bookId;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> pendingDeltas = new ConcurrentHashMap<>();
+    private volatile StripedCounter counter;
+
+    BookLedger(Long bookId) {
+      this.bookId = bookId;
+    }
+  }
+
+  /**
+   * Available copies of one book spread over several atomic cells. Each operation starts at a
+   * random cell, so concurrent rentals mostly succeed on different cells instead of retrying on the
+   * same one.
+   */
+  static final class StripedCounter {
+    private final AtomicIntegerArray cells;
+    private final int mask;
+
+    StripedCounter(int stripes, int initial) {
+      this.cells = new AtomicIntegerArray(stripes);
+      this.mask = stripes - 1;
+      var share = Math.max(initial, 0) / stripes;
+      for (int i = 0; i < stripes; i++) {
+        cells.set(i, share);
+      }
+      cells.addAndGet(0, initial - share * stripes);
+    }
+
+    boolean tryTake(int amount) {
+      var start = ThreadLocalRandom.current().nextInt();
+      var remaining = amount;
+      for (int i = 0; i <= mask && remaining > 0; i++) {
+        var cell = (start + i) & mask;
+        int value;
+        do {
+          value = cells.get(cell);
+        } while (value > 0 && !cells.compareAndSet(cell, value, value - Math.min(value, remaining)));
+        if (value > 0) {
+          remaining -= Math.min(value, remaining);
+        }
+      }
+      if (remaining > 0) {
+        // Not enough copies in total: give back what was taken on the way
+        add(amount - remaining);
+        return false;
+      }
+      return true;
+    }
+
+    void add(int amount) {
+      if (amount != 0) {
+        cells.addAndGet(ThreadLocalRandom.current().nextInt() & mask, amount);
+      }
+    }
+
+    int sum() {
+      var sum = 0;
+      for (int i = 0; i <= mask; i++) {
+        sum += cells.get(i);
+      }
+      return sum;
+    }
+  }
+}
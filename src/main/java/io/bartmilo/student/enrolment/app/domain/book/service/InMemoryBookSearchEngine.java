@@ -0,0 +1,292 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookChangedEvent;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link BookSearchEngine} for databases without full-text search, backed by an inverted index kept
+ * in memory.
+ *
+ * <p>The index maps every word of a title or author to the sorted IDs of the books containing it.
+ * Words are kept in a sorted map, so the words starting with a query term form one contiguous
+ * range. A search only visits the books of the most selective query term and checks the remaining
+ * terms against those books, which keeps lookups in the low milliseconds even for a catalog with
+ * millions of titles, as long as one of the terms is reasonably specific.
+ *
+ * <p>The index is loaded from the book table when the application is ready and then follows the
+ * {@link BookChangedEvent}s of committed transactions. Books written by other instances or directly
+ * to the database are only picked up by the next restart.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.book.search.engine",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryBookSearchEngine implements BookSearchEngine {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryBookSearchEngine.class);
+  private static final String LOAD_SQL = "SELECT id, title, book_author FROM book";
+  private static final int LOAD_FETCH_SIZE = 1_000;
+  private static final double EXACT_TITLE_MATCH = 1.0;
+  private static final double PREFIX_TITLE_MATCH = 0.5;
+  private static final double EXACT_AUTHOR_MATCH = 0.4;
+  private static final double PREFIX_AUTHOR_MATCH = 0.2;
+  private static final double TITLE_COVERAGE_WEIGHT = 0.1;
+  private static final Comparator<BookSearchResponse> MOST_RELEVANT_FIRST =
+      Comparator.comparingDouble(BookSearchResponse::score)
+          .reversed()
+          .thenComparing(BookSearchResponse::bookId);
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, IndexedBook> books = new HashMap<>();
+  private final NavigableMap<String, Postings> postingsByTerm = new TreeMap<>();
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public InMemoryBookSearchEngine(
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  /** Replaces the whole index with the current content of the book table. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      books.clear();
+      postingsByTerm.clear();
+      RowCallbackHandler indexRow =
+          rs -> add(rs.getLong("id"), rs.getString("title"), rs.getString("book_author"));
+      // Inside a transaction, so the PostgreSQL driver honours the fetch size and streams the rows
+      transactionTemplate.executeWithoutResult(
+          status ->
+              jdbcTemplate.query(
+                  con -> {
+                    var preparedStatement = con.prepareStatement(LOAD_SQL);
+                    preparedStatement.setFetchSize(LOAD_FETCH_SIZE);
+                    return preparedStatement;
+                  },
+                  indexRow));
+      LOGGER.info("Loaded {} books into the search index", books.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent bookChangedEvent) {
+    lock.writeLock().lock();
+    try {
+      remove(bookChangedEvent.bookId());
+      if (!bookChangedEvent.deleted()) {
+        add(bookChangedEvent.bookId(), bookChangedEvent.title(), bookChangedEvent.bookAuthor());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<BookSearchResponse> search(String query, int limit) {
+    var terms = BookSearchTerms.tokenize(query);
+    if (terms.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    // Least relevant hit on top, so it is the one dropped once the queue exceeds the limit
+    var topHits = new PriorityQueue<>(MOST_RELEVANT_FIRST.reversed());
+    lock.readLock().lock();
+    try {
+      var candidateRange = mostSelectiveRange(terms);
+      var visited = candidateRange.size() > 1 ? new HashSet<Long>() : null;
+      for (var postings : candidateRange.values()) {
+        for (int i = 0; i < postings.size; i++) {
+          var bookId = postings.ids[i];
+          if (visited != null && !visited.add(bookId)) {
+            continue;
+          }
+          var indexedBook = books.get(bookId);
+          var score = score(indexedBook, terms);
+          if (score > 0) {
+            topHits.add(indexedBook.toResponse(bookId, score));
+            if (topHits.size() > limit) {
+              topHits.poll();
+            }
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    var hits = new ArrayList<>(topHits);
+    hits.sort(MOST_RELEVANT_FIRST);
+    return hits;
+  }
+
+  /** Returns the postings of the words starting with the query term that matches fewest books. */
+  private NavigableMap<String, Postings> mostSelectiveRange(List<String> terms) {
+    NavigableMap<String, Postings> mostSelective = null;
+    var fewestBooks = Long.MAX_VALUE;
+    for (var term : terms) {
+      var range = prefixRange(term);
+      long matchingBooks = 0;
+      for (var postings : range.values()) {
+        matchingBooks += postings.size;
+        if (matchingBooks >= fewestBooks) {
+          break;
+        }
+      }
+      if (matchingBooks < fewestBooks) {
+        mostSelective = range;
+        fewestBooks = matchingBooks;
+      }
+    }
+    return mostSelective;
+  }
+
+  private NavigableMap<String, Postings> prefixRange(String term) {
+    return postingsByTerm.subMap(term, true, term + Character.MAX_VALUE, false);
+  }
+
+  /**
+   * Scores a book against all query terms. Each term contributes its best match, with title matches
+   * above author matches and whole words above prefixes; a term without any match rejects the book.
+   * Titles made up mostly of query terms get a small bonus.
+   *
+   * @return the score of the book, or {@code 0} when it does not match every term
+   */
+  private static double score(IndexedBook indexedBook, List<String> terms) {
+    double score = 0;
+    int titleMatches = 0;
+    for (var term : terms) {
+      var titleMatch = match(indexedBook.titleTerms(), term, EXACT_TITLE_MATCH, PREFIX_TITLE_MATCH);
+      var authorMatch =
+          match(indexedBook.authorTerms(), term, EXACT_AUTHOR_MATCH, PREFIX_AUTHOR_MATCH);
+      if (titleMatch == 0 && authorMatch == 0) {
+        return 0;
+      }
+      if (titleMatch > 0) {
+        titleMatches++;
+      }
+      score += Math.max(titleMatch, authorMatch);
+    }
+    var titleTerms = Math.max(indexedBook.titleTerms().length, 1);
+    return score + TITLE_COVERAGE_WEIGHT * titleMatches / titleTerms;
+  }
+
+  private static double match(String[] words, String term, double exact, double prefix) {
+    double best = 0;
+    for (var word : words) {
+      if (word.equals(term)) {
+        return exact;
+      }
+      if (word.startsWith(term)) {
+        best = prefix;
+      }
+    }
+    return best;
+  }
+
+  private void add(long bookId, String title, String bookAuthor) {
+    var indexedBook =
+        new IndexedBook(
+            title,
+            bookAuthor,
+            BookSearchTerms.tokenize(title).toArray(String[]::new),
+            BookSearchTerms.tokenize(bookAuthor).toArray(String[]::new));
+    books.put(bookId, indexedBook);
+    for (var term : indexedBook.terms()) {
+      postingsByTerm.computeIfAbsent(term, key -> new Postings()).add(bookId);
+    }
+  }
+
+  private void remove(long bookId) {
+    var indexedBook = books.remove(bookId);
+    if (indexedBook == null) {
+      return;
+    }
+    for (var term : indexedBook.terms()) {
+      var postings = postingsByTerm.get(term);
+      if (postings != null && postings.remove(bookId) && postings.size == 0) {
+        postingsByTerm.remove(term);
+      }
+    }
+  }
+
+  private record IndexedBook(
+      String title, String bookAuthor, String[] titleTerms, String[] authorTerms) {
+
+    /** Returns the distinct words of the title and author. */
+    List<String> terms() {
+      var terms = new ArrayList<>(Arrays.asList(titleTerms));
+      for (var authorTerm : authorTerms) {
+        if (!terms.contains(authorTerm)) {
+          terms.add(authorTerm);
+        }
+      }
+      return terms;
+    }
+
+    BookSearchResponse toResponse(long bookId, double score) {
+      return BookSearchResponse.builder()
+          .bookId(bookId)
+          .title(title)
+          .bookAuthor(bookAuthor)
+          .score(score)
+          .build();
+    }
+  }
+
+  /** The sorted IDs of the books containing one word, stored without boxing. */
+  private static final class Postings {
+    private long[] ids = new long[2];
+    private int size;
+
+    void add(long bookId) {
+      var index = Arrays.binarySearch(ids, 0, size, bookId);
+      if (index >= 0) {
+        return;
+      }
+      var insertionPoint = -index - 1;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      System.arraycopy(ids, insertionPoint, ids, insertionPoint + 1, size - insertionPoint);
+      ids[insertionPoint] = bookId;
+      size++;
+    }
+
+    boolean remove(long bookId) {
+      var index = Arrays.binarySearch(ids, 0, size, bookId);
+      if (index < 0) {
+        return false;
+      }
+      System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+      size--;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link BookImportWriter}, inserting every chunk as one JDBC batch on any database. IDs
+ * are drawn from {@code book_sequence} inside the insert itself, like Hibernate does with its
+ * allocation size of one, and read back as generated keys.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.book.import.writer",
+    havingValue = "jdbc-batch",
+    matchIfMissing = true)
+public class JdbcBatchBookImportWriter implements BookImportWriter {
+
+  private static final String BOOK_SEQUENCE = "book_sequence";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String insertSql;
+
+  public JdbcBatchBookImportWriter(
+      JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+    this.jdbcTemplate = jdbcTemplate;
+    var nextBookId =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect()
+            .getSequenceSupport()
+            .getSelectSequenceNextValString(BOOK_SEQUENCE);
+    this.insertSql =
+        "INSERT INTO book (id, book_author, title, isbn, created_at, stock) VALUES ("
+            + nextBookId
+            + ", ?, ?, ?, ?, ?)";
+  }
+
+  @Override
+  public List<Long> insertAll(List<BookEntity> bookEntityList) {
+    if (bookEntityList.isEmpty()) {
+      return List.of();
+    }
+    var keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        con -> con.prepareStatement(insertSql, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            var bookEntity = bookEntityList.get(i);
+            ps.setString(1, bookEntity.getBookAuthor());
+            ps.setString(2, bookEntity.getTitle());
+            ps.setString(3, bookEntity.getIsbn());
+            ps.setTimestamp(4, Timestamp.valueOf(bookEntity.getCreatedAt()));
+            ps.setInt(5, bookEntity.getStock());
+          }
+
+          @Override
+          public int getBatchSize() {
+            return bookEntityList.size();
+          }
+        },
+        keyHolder);
+    return keyHolder.getKeyList().stream()
+        .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+        .toList();
+  }
+}
@@ -0,0 +1,60 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link BookSearchEngine} backed by PostgreSQL full-text search. It relies on the generated
+ * {@code book.search_vector} column with its GIN index and on the trigram index of {@code
+ * book.title}, both created by {@code schema-postgresql.sql}. Since the database keeps the column
+ * up to date on every write, this engine holds no state of its own.
+ *
+ * <p>Every query term is matched as a prefix. Books are ranked by {@code ts_rank}, which weighs
+ * title matches above author matches, plus the trigram similarity of the title to the query. Titles
+ * that are merely similar to the query are returned as well, so small typos still find the book.
+ */
+@Component
+@ConditionalOnProperty(name = "app.book.search.engine", havingValue = "postgres")
+public class PostgresBookSearchEngine implements BookSearchEngine {
+
+  private static final String SEARCH_SQL =
+      "SELECT b.id, b.title, b.book_author,"
+          + " ts_rank(b.search_vector, q.query) + similarity(b.title, ?) AS score"
+          + " FROM book b, to_tsquery('simple', ?) AS q(query)"
+          + " WHERE b.search_vector @@ q.query OR b.title % ?"
+          + " ORDER BY score DESC, b.id LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public PostgresBookSearchEngine(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<BookSearchResponse> search(String query, int limit) {
+    var terms = BookSearchTerms.tokenize(query);
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+    // Terms only contain letters and digits, so they cannot break out of the tsquery syntax
+    var tsQuery = terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+    var normalizedQuery = String.join(" ", terms);
+    return jdbcTemplate.query(
+        SEARCH_SQL,
+        (rs, rowNum) ->
+            BookSearchResponse.builder()
+                .bookId(rs.getLong("id"))
+                .title(rs.getString("title"))
+                .bookAuthor(rs.getString("book_author"))
+                .score(rs.getDouble("score"))
+                .build(),
+        normalizedQuery,
+        tsQuery,
+        normalizedQuery,
+        limit);
+  }
+}
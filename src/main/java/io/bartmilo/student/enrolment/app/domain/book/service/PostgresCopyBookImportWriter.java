@@ -0,0 +1,91 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * PostgreSQL fast path for bulk book imports. Every chunk is streamed with {@code COPY} into a
+ * temporary staging table and moved into the book table with a single {@code INSERT ... SELECT},
+ * which draws the IDs from {@code book_sequence}. The staging table lives as long as the pooled
+ * connection and is emptied on every commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.book.import.writer", havingValue = "postgres-copy")
+public class PostgresCopyBookImportWriter implements BookImportWriter {
+
+  private static final String CREATE_STAGING_SQL =
+      "CREATE TEMPORARY TABLE IF NOT EXISTS book_import_staging (book_author TEXT, title TEXT,"
+          + " isbn TEXT, created_at TIMESTAMP WITHOUT TIME ZONE, stock INTEGER)"
+          + " ON COMMIT DELETE ROWS";
+  private static final String COPY_SQL =
+      "COPY book_import_staging (book_author, title, isbn, created_at, stock)"
+          + " FROM STDIN (FORMAT csv)";
+  private static final String MOVE_SQL =
+      "INSERT INTO book (id, book_author, title, isbn, created_at, stock)"
+          + " SELECT nextval('book_sequence'), book_author, title, isbn, created_at, stock"
+          + " FROM book_import_staging RETURNING id, title";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSource dataSource;
+
+  public PostgresCopyBookImportWriter(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public List<Long> insertAll(List<BookEntity> bookEntityList) {
+    if (bookEntityList.isEmpty()) {
+      return List.of();
+    }
+    jdbcTemplate.execute(CREATE_STAGING_SQL);
+    var csv = new StringBuilder();
+    for (var bookEntity : bookEntityList) {
+      csv.append(quote(bookEntity.getBookAuthor()))
+          .append(',')
+          .append(quote(bookEntity.getTitle()))
+          .append(',')
+          .append(quote(bookEntity.getIsbn()))
+          .append(',')
+          .append(bookEntity.getCreatedAt())
+          .append(',')
+          .append(bookEntity.getStock())
+          .append('\n');
+    }
+    // The connection bound to the chunk transaction, so the rows are copied within it
+    var connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      connection
+          .unwrap(PGConnection.class)
+          .getCopyAPI()
+          .copyIn(COPY_SQL, new StringReader(csv.toString()));
+    } catch (SQLException | IOException ex) {
+      throw new DataAccessResourceFailureException("COPY into book_import_staging failed", ex);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+    // RETURNING does not promise the order of the staging rows, so IDs are matched by title
+    var idsByTitle = new HashMap<String, Long>();
+    RowCallbackHandler collectId = rs -> idsByTitle.put(rs.getString("title"), rs.getLong("id"));
+    jdbcTemplate.query(MOVE_SQL, collectId);
+    return bookEntityList.stream()
+        .map(bookEntity -> idsByTitle.get(bookEntity.getTitle()))
+        .toList();
+  }
+
+  private static String quote(String value) {
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
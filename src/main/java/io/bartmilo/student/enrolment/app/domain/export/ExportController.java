@@ -0,0 +1,83 @@
+package io.bartmilo.student.enrolment.app.domain.export;
+
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportFormat;
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportResource;
+import io.bartmilo.student.enrolment.app.domain.export.service.ExportService;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExportController.class);
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+  private final ExportService exportService;
+
+  public ExportController(ExportService exportService) {
+    this.exportService = exportService;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (var coding : acceptEncoding.split(",")) {
+      var parts = coding.split(";");
+      if (parts[0].strip().equalsIgnoreCase("gzip")
+          && (parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Dumps a whole table as NDJSON or CSV. The body is written while the rows are read, and is
+   * compressed on the fly when the client accepts gzip.
+   */
+  @GetMapping("/{resource}")
+  public ResponseEntity<StreamingResponseBody> export(
+      @PathVariable String resource,
+      @RequestParam(defaultValue = "ndjson") String format,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    LOGGER.info("Request to export {} as {}", resource, format);
+    var exportResource = ExportResource.fromParam(resource);
+    var exportFormat = ExportFormat.fromParam(format);
+    var gzip = acceptsGzip(acceptEncoding);
+    StreamingResponseBody body =
+        out -> {
+          if (gzip) {
+            var gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            exportService.export(exportResource, exportFormat, gzipOut);
+            gzipOut.finish();
+          } else {
+            exportService.export(exportResource, exportFormat, out);
+          }
+        };
+    var fileName = exportResource.fileName() + "." + exportFormat.fileExtension();
+    var response =
+        ResponseEntity.ok()
+            .contentType(exportFormat.mediaType())
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(body);
+  }
+}
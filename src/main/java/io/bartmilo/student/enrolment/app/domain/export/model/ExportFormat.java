@@ -0,0 +1,39 @@
+package io.bartmilo.student.enrolment.app.domain.export.model;
+
+import java.util.Arrays;
+import org.springframework.http.MediaType;
+
+/** The formats {@code GET /export/{resource}} writes, selected by the {@code format} parameter. */
+public enum ExportFormat {
+  NDJSON("ndjson", "application/x-ndjson"),
+  CSV("csv", "text/csv");
+
+  private final String param;
+  private final MediaType mediaType;
+
+  ExportFormat(String param, String mediaType) {
+    this.param = param;
+    this.mediaType = MediaType.parseMediaType(mediaType);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the parameter names no export format
+   */
+  public static ExportFormat fromParam(String param) {
+    return Arrays.stream(values())
+        .filter(format -> format.param.equalsIgnoreCase(param))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unknown export format: " + param + ", expected ndjson or csv"));
+  }
+
+  public String fileExtension() {
+    return param;
+  }
+
+  public MediaType mediaType() {
+    return mediaType;
+  }
+}
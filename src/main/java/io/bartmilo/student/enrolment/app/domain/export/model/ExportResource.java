@@ -0,0 +1,33 @@
+package io.bartmilo.student.enrolment.app.domain.export.model;
+
+import java.util.Arrays;
+
+/** The tables {@code GET /export/{resource}} dumps, named by the path of the request. */
+public enum ExportResource {
+  BOOKS("books"),
+  STUDENTS("students"),
+  RENTALS("rentals");
+
+  private final String param;
+
+  ExportResource(String param) {
+    this.param = param;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the parameter names no exported table
+   */
+  public static ExportResource fromParam(String param) {
+    return Arrays.stream(values())
+        .filter(resource -> resource.param.equalsIgnoreCase(param))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unknown export resource: " + param + ", expected books, students or rentals"));
+  }
+
+  public String fileName() {
+    return param;
+  }
+}
@@ -0,0 +1,21 @@
+package io.bartmilo.student.enrolment.app.domain.export.service;
+
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportFormat;
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportResource;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+  /**
+   * Writes every row of the given table to the stream, in ID order. The rows are read from a
+   * server-side cursor and written as they arrive, so memory use does not grow with the table.
+   *
+   * @param resource The table to export.
+   * @param format The format to write the rows in.
+   * @param out The stream to write to; flushed but not closed.
+   * @return The number of rows written.
+   * @throws IOException if writing to the stream fails, e.g. when the client went away
+   */
+  long export(ExportResource resource, ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,204 @@
+package io.bartmilo.student.enrolment.app.domain.export.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportFormat;
+import io.bartmilo.student.enrolment.app.domain.export.model.ExportResource;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.repository.RentalRepository;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.hibernate.ScrollMode;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams full table dumps. Rows are scrolled through a stateless session with a fetch size, so
+ * the driver holds one fetch of rows at a time and no persistence context collects them, and are
+ * read through the constructor expressions of the list endpoints, so no entity is hydrated either.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+  private static final Dataset<BookResponse> BOOKS =
+      new Dataset<>(
+          BookRepository.RESPONSE_SELECT + " ORDER BY b.id",
+          BookResponse.class,
+          List.of("id", "bookAuthor", "title", "isbn", "createdAt", "stock"),
+          book ->
+              Arrays.asList(
+                  book.id(),
+                  book.bookAuthor(),
+                  book.title(),
+                  book.isbn(),
+                  book.createdAt(),
+                  book.stock()));
+  private static final Dataset<StudentResponse> STUDENTS =
+      new Dataset<>(
+          StudentRepository.RESPONSE_SELECT + " ORDER BY s.id",
+          StudentResponse.class,
+          List.of("id", "firstName", "lastName", "email", "age", "cardNumber", "cardStatus"),
+          student -> {
+            var card = student.studentIdCardResponse();
+            return Arrays.asList(
+                student.id(),
+                student.firstName(),
+                student.lastName(),
+                student.email(),
+                student.age(),
+                card == null ? null : card.cardNumber(),
+                card == null ? null : card.status());
+          });
+  private static final Dataset<RentalResponse> RENTALS =
+      new Dataset<>(
+          RentalRepository.RESPONSE_SELECT + " ORDER BY r.id",
+          RentalResponse.class,
+          List.of("id", "rentedAt", "dueDate", "returnedAt", "studentId", "bookId"),
+          rental ->
+              Arrays.asList(
+                  rental.id(),
+                  rental.rentedAt(),
+                  rental.dueDate(),
+                  rental.returnedAt(),
+                  rental.studentId(),
+                  rental.bookId()));
+
+  private final SessionFactory sessionFactory;
+  private final ObjectMapper objectMapper;
+  private final int fetchSize;
+
+  public ExportServiceImpl(
+      EntityManagerFactory entityManagerFactory,
+      ObjectMapper objectMapper,
+      @Value("${app.export.fetch-size:1000}") int fetchSize) {
+    this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    this.objectMapper = objectMapper;
+    this.fetchSize = fetchSize;
+  }
+
+  private static void writeCsvRecord(Writer writer, List<?> values) throws IOException {
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      var value = values.get(i);
+      if (value == null) {
+        continue;
+      }
+      var text = value.toString();
+      if (text.indexOf(',') < 0
+          && text.indexOf('"') < 0
+          && text.indexOf('\n') < 0
+          && text.indexOf('\r') < 0) {
+        writer.write(text);
+      } else {
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+      }
+    }
+    writer.write('\n');
+  }
+
+  @Override
+  public long export(ExportResource resource, ExportFormat format, OutputStream out)
+      throws IOException {
+    LOGGER.info("Exporting {} as {}", resource, format);
+    var start = System.nanoTime();
+    var rows =
+        switch (resource) {
+          case BOOKS -> export(BOOKS, format, out);
+          case STUDENTS -> export(STUDENTS, format, out);
+          case RENTALS -> export(RENTALS, format, out);
+        };
+    LOGGER.info(
+        "Exported {} {} rows in {} ms", rows, resource, (System.nanoTime() - start) / 1_000_000);
+    return rows;
+  }
+
+  private <T> long export(Dataset<T> dataset, ExportFormat format, OutputStream out)
+      throws IOException {
+    return switch (format) {
+      case NDJSON -> exportNdjson(dataset, out);
+      case CSV -> exportCsv(dataset, out);
+    };
+  }
+
+  private <T> long exportNdjson(Dataset<T> dataset, OutputStream out) throws IOException {
+    // the writer must not flush the response after every row
+    var rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (var generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.setRootValueSeparator(null);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      return scroll(
+          dataset,
+          row -> {
+            rowWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+          });
+    }
+  }
+
+  private <T> long exportCsv(Dataset<T> dataset, OutputStream out) throws IOException {
+    var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writeCsvRecord(writer, dataset.columns());
+    var rows = scroll(dataset, row -> writeCsvRecord(writer, dataset.csvValues().apply(row)));
+    writer.flush();
+    return rows;
+  }
+
+  private <T> long scroll(Dataset<T> dataset, RowSink<T> sink) throws IOException {
+    long rows = 0;
+    try (var session = sessionFactory.openStatelessSession()) {
+      // must be set before the transaction starts, PostgreSQL rejects it afterwards
+      session.doWork(connection -> connection.setReadOnly(true));
+      var transaction = session.beginTransaction();
+      try (var results =
+          session
+              .createQuery(dataset.query(), dataset.type())
+              .setReadOnly(true)
+              .setFetchSize(fetchSize)
+              .scroll(ScrollMode.FORWARD_ONLY)) {
+        while (results.next()) {
+          sink.accept(results.get());
+          rows++;
+        }
+      } catch (IOException | RuntimeException ex) {
+        // most likely the client went away; hand the connection back without the cursor
+        transaction.rollback();
+        throw ex;
+      }
+      transaction.commit();
+    }
+    return rows;
+  }
+
+  @FunctionalInterface
+  private interface RowSink<T> {
+    void accept(T row) throws IOException;
+  }
+
+  /**
+   * One exported table: the query selecting its rows in ID order and the CSV columns of a row.
+   */
+  private record Dataset<T>(
+      String query, Class<T> type, List<String> columns, Function<T, List<?>> csvValues) {}
+}
@@ -0,0 +1,73 @@
+package io.bartmilo.student.enrolment.app.domain.hold;
+
+import io.bartmilo.student.enrolment.app.domain.hold.mapper.BookHoldMapper;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldConfirmRequest;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldRequest;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldResponse;
+import io.bartmilo.student.enrolment.app.domain.hold.service.BookHoldService;
+import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapper;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/books/{bookId}/holds")
+public class BookHoldController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookHoldController.class);
+  private final BookHoldService bookHoldService;
+  private final BookHoldMapper bookHoldMapper;
+  private final RentalMapper rentalMapper;
+
+  public BookHoldController(
+      BookHoldService bookHoldService, BookHoldMapper bookHoldMapper, RentalMapper rentalMapper) {
+    this.bookHoldService = bookHoldService;
+    this.bookHoldMapper = bookHoldMapper;
+    this.rentalMapper = rentalMapper;
+  }
+
+  @PostMapping
+  public ResponseEntity<BookHoldResponse> placeHold(
+      @PathVariable Long bookId, @RequestBody BookHoldRequest bookHoldRequest) {
+    LOGGER.info("Request to hold book with ID: {}: {}", bookId, bookHoldRequest);
+    var bookHoldDto =
+        bookHoldService.placeHold(
+            bookId, bookHoldRequest.studentId(), bookHoldRequest.minutes());
+    var location =
+        ServletUriComponentsBuilder.fromCurrentRequest()
+            .path("/{id}")
+            .buildAndExpand(bookHoldDto.id())
+            .toUri();
+    LOGGER.info("Hold placed successfully: {}", bookHoldDto);
+    return ResponseEntity.created(location).body(bookHoldMapper.convertDtoToResponse(bookHoldDto));
+  }
+
+  /** Turns the hold into a rental, which is created at {@code /rentals/{id}}. */
+  @PostMapping("/{holdId}/confirm")
+  public ResponseEntity<RentalResponse> confirmHold(
+      @PathVariable Long bookId,
+      @PathVariable Long holdId,
+      @RequestBody BookHoldConfirmRequest bookHoldConfirmRequest) {
+    LOGGER.info("Request to confirm hold with ID: {} on book with ID: {}", holdId, bookId);
+    var rentalDto =
+        bookHoldService.confirmHold(bookId, holdId, bookHoldConfirmRequest.dueDate());
+    var location =
+        ServletUriComponentsBuilder.fromCurrentContextPath()
+            .path("/rentals/{id}")
+            .buildAndExpand(rentalDto.getId())
+            .toUri();
+    LOGGER.info("Hold confirmed as rental: {}", rentalDto);
+    return ResponseEntity.created(location).body(rentalMapper.convertDtoToResponse(rentalDto));
+  }
+
+  @DeleteMapping("/{holdId}")
+  public ResponseEntity<Void> releaseHold(@PathVariable Long bookId, @PathVariable Long holdId) {
+    LOGGER.info("Request to release hold with ID: {} on book with ID: {}", holdId, bookId);
+    bookHoldService.releaseHold(bookId, holdId);
+    LOGGER.info("Hold released successfully with ID: {}", holdId);
+    return ResponseEntity.noContent().build();
+  }
+}
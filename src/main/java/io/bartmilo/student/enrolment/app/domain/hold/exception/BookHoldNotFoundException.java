@@ -0,0 +1,10 @@
+package io.bartmilo.student.enrolment.app.domain.hold.exception;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/** Thrown for holds that never existed as well as for holds that expired or were released. */
+public class BookHoldNotFoundException extends EntityNotFoundException {
+  public BookHoldNotFoundException(String message) {
+    super(message);
+  }
+}
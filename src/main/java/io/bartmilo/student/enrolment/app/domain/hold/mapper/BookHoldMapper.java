@@ -0,0 +1,18 @@
+package io.bartmilo.student.enrolment.app.domain.hold.mapper;
+
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldDto;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldEntity;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+import org.mapstruct.factory.Mappers;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface BookHoldMapper {
+
+  BookHoldMapper INSTANCE = Mappers.getMapper(BookHoldMapper.class);
+
+  BookHoldDto convertEntityToDto(BookHoldEntity entity);
+
+  BookHoldResponse convertDtoToResponse(BookHoldDto dto);
+}
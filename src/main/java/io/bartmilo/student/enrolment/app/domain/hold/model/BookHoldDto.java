@@ -0,0 +1,7 @@
+package io.bartmilo.student.enrolment.app.domain.hold.model;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+@Builder
+public record BookHoldDto(Long id, Long bookId, Long studentId, LocalDateTime expiresAt) {}
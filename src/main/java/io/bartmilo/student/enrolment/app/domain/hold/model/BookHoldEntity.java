@@ -0,0 +1,45 @@
+package io.bartmilo.student.enrolment.app.domain.hold.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * A copy of a book taken from its stock for a student until they confirm the rental or the hold
+ * expires. Only IDs and the expiry are stored, so the table stays small, and the row is what makes
+ * a hold survive a restart: it is deleted by whichever of confirm, release or expiry comes first.
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "BookHold")
+@Table(
+    name = "book_hold",
+    indexes = @Index(name = "book_hold_expires_at_idx", columnList = "expires_at"))
+public class BookHoldEntity {
+  @Id
+  @SequenceGenerator(
+      name = "book_hold_sequence",
+      sequenceName = "book_hold_sequence",
+      allocationSize = 50)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_hold_sequence")
+  @Column(name = "id", updatable = false)
+  private Long id;
+
+  @Column(name = "book_id", nullable = false, updatable = false)
+  private Long bookId;
+
+  @Column(name = "student_id", nullable = false, updatable = false)
+  private Long studentId;
+
+  @Column(
+      name = "expires_at",
+      nullable = false,
+      updatable = false,
+      columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime expiresAt;
+}
@@ -0,0 +1,6 @@
+package io.bartmilo.student.enrolment.app.domain.hold.model;
+
+import java.time.LocalDateTime;
+
+/** The part of a hold needed to schedule its expiry. */
+public record BookHoldExpiry(Long id, LocalDateTime expiresAt) {}
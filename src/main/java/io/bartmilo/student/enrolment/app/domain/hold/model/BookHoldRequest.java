@@ -0,0 +1,10 @@
+package io.bartmilo.student.enrolment.app.domain.hold.model;
+
+import lombok.Builder;
+
+/**
+ * @param studentId the student the copy is held for
+ * @param minutes how long the copy is held; the configured default when {@code null}
+ */
+@Builder
+public record BookHoldRequest(Long studentId, Integer minutes) {}
@@ -0,0 +1,50 @@
+package io.bartmilo.student.enrolment.app.domain.hold.repository;
+
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldEntity;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldExpiry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Every way a hold ends is a guarded delete, and only the caller whose delete removed the row may
+ * act on it. Confirm, release and expiry can therefore race, also across application instances,
+ * without a copy being returned to the stock twice.
+ */
+@Repository
+public interface BookHoldRepository extends JpaRepository<BookHoldEntity, Long> {
+
+  Optional<BookHoldEntity> findByIdAndBookId(Long id, Long bookId);
+
+  /** The expiries of all holds, for scheduling them when the application starts. */
+  @Query(
+      "SELECT new io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldExpiry("
+          + "h.id, h.expiresAt) FROM BookHold h")
+  List<BookHoldExpiry> findAllExpiries();
+
+  /** The IDs of the holds expired at the given time, for the sweep backing up the wheel. */
+  @Query("SELECT h.id FROM BookHold h WHERE h.expiresAt <= :now AND h.id > :afterId ORDER BY h.id")
+  List<Long> findExpiredIdsAfter(
+      @Param("now") LocalDateTime now, @Param("afterId") Long afterId, Pageable pageable);
+
+  /** Deletes a hold that has not expired yet, for confirming it. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM BookHold h WHERE h.id = :id AND h.expiresAt > :now")
+  int deleteUnexpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+  /** Deletes a hold whatever its expiry, for releasing it early. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM BookHold h WHERE h.id = :id")
+  int deleteHold(@Param("id") Long id);
+
+  /** Deletes a hold that has expired, for returning its copy to the stock. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM BookHold h WHERE h.id = :id AND h.expiresAt <= :now")
+  int deleteExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,47 @@
+package io.bartmilo.student.enrolment.app.domain.hold.service;
+
+import io.bartmilo.student.enrolment.app.domain.hold.exception.BookHoldNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import java.time.LocalDateTime;
+
+/**
+ * Short-lived holds on a copy of a book, for flows where a student picks a book and confirms the
+ * rental later, e.g. at a kiosk. The copy is taken from the stock when the hold is placed, so
+ * nobody else can rent it in between, and returned to the stock if the hold expires or is released.
+ */
+public interface BookHoldService {
+
+  /**
+   * Takes a copy of a book from its stock and holds it for a student.
+   *
+   * @param bookId the unique identifier of the book to hold
+   * @param studentId the unique identifier of the student to hold the book for
+   * @param minutes how long to hold the copy; the configured default when {@code null}
+   * @return the hold, with its expiry
+   * @throws IllegalArgumentException if the book is out of stock or the duration is out of range
+   * @throws IllegalStateException if the student's ID card is inactive
+   */
+  BookHoldDto placeHold(Long bookId, Long studentId, Integer minutes);
+
+  /**
+   * Turns a hold into a rental of the held copy, see {@link
+   * io.bartmilo.student.enrolment.app.domain.rental.service.RentalService#rentHeldBook}.
+   *
+   * @param bookId the unique identifier of the held book
+   * @param holdId the unique identifier of the hold
+   * @param dueDate the due date for returning the rented book
+   * @return the rental
+   * @throws BookHoldNotFoundException if the hold does not exist or has expired
+   */
+  RentalDto confirmHold(Long bookId, Long holdId, LocalDateTime dueDate);
+
+  /**
+   * Ends a hold before it expires and returns its copy to the stock.
+   *
+   * @param bookId the unique identifier of the held book
+   * @param holdId the unique identifier of the hold
+   * @throws BookHoldNotFoundException if the hold does not exist or has already ended
+   */
+  void releaseHold(Long bookId, Long holdId);
+}
@@ -0,0 +1,236 @@
+package io.bartmilo.student.enrolment.app.domain.hold.service;
+
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.hold.exception.BookHoldNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.hold.mapper.BookHoldMapper;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldDto;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldEntity;
+import io.bartmilo.student.enrolment.app.domain.hold.repository.BookHoldRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.model.IdCardStatus;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Holds are stored in the {@code book_hold} table and their expiries are tracked in a {@link
+ * HoldExpiryWheel} driven by one scheduled task, rather than by a task per hold. The stored holds
+ * are put back into the wheel when the application starts, so holds survive a restart.
+ *
+ * <p>The wheel only knows the holds placed on or loaded by its own instance. A periodic sweep of
+ * the table ends any other expired hold, such as those left behind by an instance that stopped
+ * while the others keep running. Each hold is still ended by a guarded delete, so the sweep and
+ * the wheels of all instances may race on it without its copy being returned twice.
+ */
+@Service
+public class BookHoldServiceImpl implements BookHoldService {
+
+  public static final String BOOK_HOLD_NOT_FOUND_WITH_ID = "Book hold not found with ID: ";
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookHoldServiceImpl.class);
+  private static final String ID_CARD_NOT_ACTIVE = "Student's ID card is not active.";
+  private static final int SWEEP_BATCH_SIZE = 500;
+
+  private final BookHoldRepository bookHoldRepository;
+  private final BookHoldMapper bookHoldMapper;
+  private final BookService bookService;
+  private final StudentService studentService;
+  private final RentalService rentalService;
+  private final TransactionTemplate transactionTemplate;
+  private final HoldExpiryWheel holdExpiryWheel;
+  private final int defaultMinutes;
+  private final int maxMinutes;
+
+  public BookHoldServiceImpl(
+      BookHoldRepository bookHoldRepository,
+      BookHoldMapper bookHoldMapper,
+      BookService bookService,
+      StudentService studentService,
+      RentalService rentalService,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.book.hold.tick-ms:1000}") long tickMillis,
+      @Value("${app.book.hold.wheel-size:512}") int wheelSize,
+      @Value("${app.book.hold.default-minutes:10}") int defaultMinutes,
+      @Value("${app.book.hold.max-minutes:60}") int maxMinutes) {
+    this.bookHoldRepository = bookHoldRepository;
+    this.bookHoldMapper = bookHoldMapper;
+    this.bookService = bookService;
+    this.studentService = studentService;
+    this.rentalService = rentalService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.holdExpiryWheel = new HoldExpiryWheel(System.currentTimeMillis(), tickMillis, wheelSize);
+    this.defaultMinutes = defaultMinutes;
+    this.maxMinutes = maxMinutes;
+  }
+
+  private static long toEpochMillis(LocalDateTime localDateTime) {
+    return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  @Override
+  @Transactional
+  public BookHoldDto placeHold(Long bookId, Long studentId, Integer minutes) {
+    LOGGER.info("Placing hold on book with ID: {} for student with ID: {}", bookId, studentId);
+    var holdMinutes = minutes != null ? minutes : defaultMinutes;
+    if (holdMinutes < 1 || holdMinutes > maxMinutes) {
+      throw new IllegalArgumentException(
+          "A hold must last between 1 and " + maxMinutes + " minutes.");
+    }
+    if (studentId == null) {
+      throw new IllegalArgumentException("Student ID is required.");
+    }
+    var studentDto = studentService.findById(studentId);
+    if (studentDto.studentIdCardDto() == null
+        || studentDto.studentIdCardDto().status() != IdCardStatus.ACTIVE) {
+      throw new IllegalStateException(ID_CARD_NOT_ACTIVE);
+    }
+    bookService.decrementBookStock(bookId);
+
+    // Whole milliseconds, so the wheel never fires before the stored expiry has passed
+    var expiresAt = LocalDateTime.now().plusMinutes(holdMinutes).truncatedTo(ChronoUnit.MILLIS);
+    var bookHoldEntity =
+        bookHoldRepository.save(
+            BookHoldEntity.builder()
+                .bookId(bookId)
+                .studentId(studentId)
+                .expiresAt(expiresAt)
+                .build());
+    // Scheduled right away; should the transaction roll back, the expiry finds no hold to end
+    holdExpiryWheel.schedule(bookHoldEntity.getId(), toEpochMillis(expiresAt));
+    LOGGER.info("Hold placed: {}", bookHoldEntity);
+    return bookHoldMapper.convertEntityToDto(bookHoldEntity);
+  }
+
+  @Override
+  @Transactional
+  public RentalDto confirmHold(Long bookId, Long holdId, LocalDateTime dueDate) {
+    LOGGER.info("Confirming hold with ID: {} on book with ID: {}", holdId, bookId);
+    var bookHoldEntity =
+        bookHoldRepository
+            .findByIdAndBookId(holdId, bookId)
+            .orElseThrow(() -> new BookHoldNotFoundException(BOOK_HOLD_NOT_FOUND_WITH_ID + holdId));
+    if (bookHoldRepository.deleteUnexpired(holdId, LocalDateTime.now()) == 0) {
+      throw new BookHoldNotFoundException("Book hold expired with ID: " + holdId);
+    }
+    return rentalService.rentHeldBook(bookId, bookHoldEntity.getStudentId(), dueDate);
+  }
+
+  @Override
+  @Transactional
+  public void releaseHold(Long bookId, Long holdId) {
+    LOGGER.info("Releasing hold with ID: {} on book with ID: {}", holdId, bookId);
+    bookHoldRepository
+        .findByIdAndBookId(holdId, bookId)
+        .orElseThrow(() -> new BookHoldNotFoundException(BOOK_HOLD_NOT_FOUND_WITH_ID + holdId));
+    if (bookHoldRepository.deleteHold(holdId) == 0) {
+      throw new BookHoldNotFoundException(BOOK_HOLD_NOT_FOUND_WITH_ID + holdId);
+    }
+    bookService.incrementBookStock(bookId);
+  }
+
+  /** Puts the stored holds into the wheel; holds which expired meanwhile end with the next tick. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void scheduleStoredHolds() {
+    var bookHoldExpiryList = bookHoldRepository.findAllExpiries();
+    for (var bookHoldExpiry : bookHoldExpiryList) {
+      holdExpiryWheel.schedule(bookHoldExpiry.id(), toEpochMillis(bookHoldExpiry.expiresAt()));
+    }
+    LOGGER.info("Scheduled the expiry of {} stored book holds", bookHoldExpiryList.size());
+  }
+
+  @Scheduled(fixedDelayString = "${app.book.hold.tick-ms:1000}")
+  public void expireHolds() {
+    expireHolds(Instant.now());
+  }
+
+  /** Ends the holds whose expiry is due at the given time and returns their copies to the stock. */
+  void expireHolds(Instant now) {
+    var nowMillis = now.toEpochMilli();
+    var expiredHoldIds = holdExpiryWheel.advance(nowMillis);
+    var localNow = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+    for (var holdId : expiredHoldIds) {
+      try {
+        transactionTemplate.execute(status -> expireHold(holdId, localNow));
+      } catch (RuntimeException ex) {
+        LOGGER.error("Failed to expire book hold with ID: {}, retrying", holdId, ex);
+        holdExpiryWheel.schedule(holdId, nowMillis);
+      }
+    }
+  }
+
+  /** Ends the stored holds that expired, whichever instance placed them. */
+  @Scheduled(
+      fixedDelayString = "${app.book.hold.sweep-interval-ms:60000}",
+      initialDelayString = "${app.book.hold.sweep-interval-ms:60000}")
+  public void sweepExpiredHolds() {
+    sweepExpiredHolds(Instant.now());
+  }
+
+  /** Ends the stored holds whose expiry has passed at the given time, in batches by ID. */
+  void sweepExpiredHolds(Instant now) {
+    var localNow = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+    var swept = 0;
+    var afterId = 0L;
+    List<Long> expiredHoldIds;
+    do {
+      expiredHoldIds =
+          bookHoldRepository.findExpiredIdsAfter(
+              localNow, afterId, PageRequest.of(0, SWEEP_BATCH_SIZE));
+      for (var holdId : expiredHoldIds) {
+        try {
+          if (Boolean.TRUE.equals(
+              transactionTemplate.execute(status -> expireHold(holdId, localNow)))) {
+            swept++;
+          }
+        } catch (RuntimeException ex) {
+          // Left for the next sweep
+          LOGGER.error("Failed to sweep expired book hold with ID: {}", holdId, ex);
+        }
+        afterId = holdId;
+      }
+    } while (expiredHoldIds.size() == SWEEP_BATCH_SIZE);
+    if (swept > 0) {
+      LOGGER.info("Swept {} expired book holds not ended by the expiry wheel", swept);
+    }
+  }
+
+  /** The number of holds waiting in the wheel. */
+  int pendingHolds() {
+    return holdExpiryWheel.size();
+  }
+
+  /**
+   * Ends a hold if it has expired and returns its copy to the stock.
+   *
+   * @return whether this call ended the hold
+   */
+  private boolean expireHold(Long holdId, LocalDateTime now) {
+    // Gone if the hold was confirmed, released or expired elsewhere first
+    var bookHoldEntity = bookHoldRepository.findById(holdId);
+    if (bookHoldEntity.isEmpty()) {
+      return false;
+    }
+    if (bookHoldRepository.deleteExpired(holdId, now) == 0) {
+      // Not expired by the stored expiry, e.g. after the clock was set back
+      holdExpiryWheel.schedule(holdId, toEpochMillis(bookHoldEntity.get().getExpiresAt()));
+      return false;
+    }
+    bookService.incrementBookStock(bookHoldEntity.get().getBookId());
+    LOGGER.info("Hold expired: {}", bookHoldEntity.get());
+    return true;
+  }
+}
@@ -0,0 +1,106 @@
+package io.bartmilo.student.enrolment.app.domain.hold.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel of hold expiries. Time is cut into ticks, and every hold is put into the
+ * bucket of the tick it expires in, modulo the number of buckets; holds further away than one turn
+ * of the wheel count down the turns left. Scheduling is a lock-free enqueue and each tick only
+ * visits one bucket, so the cost per hold is constant however many holds are pending, and a single
+ * periodic task drives all of them.
+ *
+ * <p>Holds never expire early: a hold is only returned by the first {@link #advance} at or after
+ * its deadline, which is at most one tick plus the scheduling delay of the driving task late. Calls
+ * to {@link #advance} are serialized; {@link #schedule} never blocks.
+ */
+class HoldExpiryWheel {
+
+  private final long startMillis;
+  private final long tickMillis;
+  private final List<ArrayDeque<Timeout>> buckets;
+  private final int mask;
+  private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private long tick;
+
+  /**
+   * @param startMillis the time of the first tick
+   * @param tickMillis the duration of one tick
+   * @param wheelSize the number of buckets; rounded up to a power of two
+   */
+  HoldExpiryWheel(long startMillis, long tickMillis, int wheelSize) {
+    if (tickMillis <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+    }
+    var bucketCount = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+    this.startMillis = startMillis;
+    this.tickMillis = tickMillis;
+    this.buckets = new ArrayList<>(bucketCount);
+    for (int i = 0; i < bucketCount; i++) {
+      buckets.add(new ArrayDeque<>());
+    }
+    this.mask = bucketCount - 1;
+  }
+
+  /** Schedules the expiry of a hold; a deadline in the past expires with the next tick. */
+  void schedule(long holdId, long deadlineMillis) {
+    scheduled.add(new Timeout(holdId, deadlineMillis));
+    pending.incrementAndGet();
+  }
+
+  /**
+   * Moves the wheel forward to the given time.
+   *
+   * @return the IDs of the holds whose deadline has passed, in no particular order
+   */
+  synchronized List<Long> advance(long nowMillis) {
+    for (var timeout = scheduled.poll(); timeout != null; timeout = scheduled.poll()) {
+      place(timeout);
+    }
+    var expiredHoldIds = new ArrayList<Long>();
+    var lastTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+    for (; tick <= lastTick; tick++) {
+      var iterator = buckets.get((int) (tick & mask)).iterator();
+      while (iterator.hasNext()) {
+        var timeout = iterator.next();
+        if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+          continue;
+        }
+        iterator.remove();
+        expiredHoldIds.add(timeout.holdId);
+      }
+    }
+    pending.addAndGet(-expiredHoldIds.size());
+    return expiredHoldIds;
+  }
+
+  /** The number of holds scheduled and not expired yet. */
+  int size() {
+    return pending.get();
+  }
+
+  private void place(Timeout timeout) {
+    // The first tick starting at or after the deadline, but never one already passed
+    var deadlineTick =
+        Math.max(-Math.floorDiv(startMillis - timeout.deadlineMillis, tickMillis), tick);
+    timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+    buckets.get((int) (deadlineTick & mask)).add(timeout);
+  }
+
+  private static final class Timeout {
+    private final long holdId;
+    private final long deadlineMillis;
+    private long remainingRounds;
+
+    Timeout(long holdId, long deadlineMillis) {
+      this.holdId = holdId;
+      this.deadlineMillis = deadlineMillis;
+    }
+  }
+}
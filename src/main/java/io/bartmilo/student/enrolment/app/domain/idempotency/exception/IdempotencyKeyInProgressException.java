@@ -0,0 +1,8 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.exception;
+
+/** Thrown when another node is still processing a request with the same idempotency key. */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+  public IdempotencyKeyInProgressException(String message) {
+    super(message);
+  }
+}
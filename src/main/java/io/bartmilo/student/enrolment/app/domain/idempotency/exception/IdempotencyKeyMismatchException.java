@@ -0,0 +1,8 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.exception;
+
+/** Thrown when an idempotency key is reused with a different request body. */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+  public IdempotencyKeyMismatchException(String message) {
+    super(message);
+  }
+}
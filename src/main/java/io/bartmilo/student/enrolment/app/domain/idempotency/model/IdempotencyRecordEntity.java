@@ -0,0 +1,64 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * The response given to the first request carrying an idempotency key. The unique constraint on
+ * scope and key makes a second node trying to claim the same key fail, and the row is written in
+ * the transaction of the request itself, so it only exists if that request committed.
+ */
+@Getter
+@Setter
+@ToString(exclude = "responseBody")
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "IdempotencyRecord")
+@Table(
+    name = "idempotency_key",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "idempotency_key_scope_key_uk",
+            columnNames = {"scope", "idempotency_key"}),
+    indexes = @Index(name = "idempotency_key_expires_at_idx", columnList = "expires_at"))
+public class IdempotencyRecordEntity {
+  @Id
+  @SequenceGenerator(
+      name = "idempotency_key_sequence",
+      sequenceName = "idempotency_key_sequence",
+      allocationSize = 50)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_key_sequence")
+  @Column(name = "id", updatable = false)
+  private Long id;
+
+  @Column(name = "scope", nullable = false, updatable = false, length = 64)
+  private String scope;
+
+  @Column(name = "idempotency_key", nullable = false, updatable = false)
+  private String idempotencyKey;
+
+  @Column(name = "request_hash", nullable = false, updatable = false, length = 64)
+  private String requestHash;
+
+  @Column(name = "status_code")
+  private Integer statusCode;
+
+  @Column(name = "location")
+  private String location;
+
+  @Column(name = "response_body", columnDefinition = "TEXT")
+  private String responseBody;
+
+  @Column(
+      name = "created_at",
+      nullable = false,
+      updatable = false,
+      columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime createdAt;
+
+  @Column(name = "expires_at", nullable = false, columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime expiresAt;
+}
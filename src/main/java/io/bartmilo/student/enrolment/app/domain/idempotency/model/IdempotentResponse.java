@@ -0,0 +1,16 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.model;
+
+import lombok.Builder;
+
+/**
+ * A stored response, replayed to every repeat of the request that produced it.
+ *
+ * @param requestHash SHA-256 of the original request body, to detect a key reused for another
+ *     request
+ * @param statusCode the HTTP status of the original response
+ * @param location the {@code Location} header of the original response, if any
+ * @param body the original response body as JSON
+ */
+@Builder
+public record IdempotentResponse(
+    String requestHash, int statusCode, String location, String body) {}
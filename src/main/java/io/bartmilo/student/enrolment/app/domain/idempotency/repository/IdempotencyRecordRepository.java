@@ -0,0 +1,35 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.repository;
+
+import io.bartmilo.student.enrolment.app.domain.idempotency.model.IdempotencyRecordEntity;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository
+    extends JpaRepository<IdempotencyRecordEntity, Long> {
+
+  Optional<IdempotencyRecordEntity> findByScopeAndIdempotencyKey(
+      String scope, String idempotencyKey);
+
+  @Modifying
+  @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+
+  /**
+   * Deletes the record of one key if its replay window has passed. Runs as a statement of its own,
+   * so a new record for the same key can be inserted after it in the same transaction.
+   */
+  @Modifying
+  @Query(
+      "DELETE FROM IdempotencyRecord r WHERE r.scope = :scope"
+          + " AND r.idempotencyKey = :idempotencyKey AND r.expiresAt <= :now")
+  int deleteExpired(
+      @Param("scope") String scope,
+      @Param("idempotencyKey") String idempotencyKey,
+      @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,35 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.service;
+
+import java.util.function.Supplier;
+import org.springframework.http.ResponseEntity;
+
+public interface IdempotencyService {
+
+  String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+  /**
+   * Runs a request at most once per idempotency key. The first request with a key runs the action
+   * and its successful response is stored; repeats of it get the stored response back, marked with
+   * the {@value #IDEMPOTENT_REPLAYED_HEADER} header, without running the action again. Repeats
+   * arriving while the first one is still running on this node wait for its outcome. Failed
+   * requests are not stored, so retrying them runs the action again.
+   *
+   * @param scope the endpoint the key belongs to, e.g. {@code POST /rentals}
+   * @param idempotencyKey the key sent by the client; the action simply runs when {@code null}
+   * @param request the request body, compared with the one of the first request
+   * @param responseType the type of the response body
+   * @param action produces the response of the first request
+   * @return the response of the first request with this key
+   * @throws io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyMismatchException
+   *     if the key was used before with a different request
+   * @throws io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyInProgressException
+   *     if the first request with the key is still running on another node
+   */
+  <T> ResponseEntity<T> execute(
+      String scope,
+      String idempotencyKey,
+      Object request,
+      Class<T> responseType,
+      Supplier<ResponseEntity<T>> action);
+}
@@ -0,0 +1,239 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyInProgressException;
+import io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyMismatchException;
+import io.bartmilo.student.enrolment.app.domain.idempotency.model.IdempotencyRecordEntity;
+import io.bartmilo.student.enrolment.app.domain.idempotency.model.IdempotentResponse;
+import io.bartmilo.student.enrolment.app.domain.idempotency.repository.IdempotencyRecordRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the responses of requests with an idempotency key in a bounded, expiring in-memory cache,
+ * backed by the {@code idempotency_key} table so that repeats landing on another node are caught
+ * as well. Concurrent repeats on one node are collapsed onto the running request.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+  private static final int MAX_KEY_LENGTH = 255;
+  private static final long IN_FLIGHT_TIMEOUT_SECONDS = 30;
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration ttl;
+  private final Cache<String, IdempotentResponse> responseCache;
+  private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> inFlightRequests =
+      new ConcurrentHashMap<>();
+
+  public IdempotencyServiceImpl(
+      IdempotencyRecordRepository idempotencyRecordRepository,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+      @Value("${app.idempotency.cache.max-size:10000}") long cacheMaxSize) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.ttl = ttl;
+    this.responseCache =
+        Caffeine.newBuilder().maximumSize(cacheMaxSize).expireAfterWrite(ttl).build();
+  }
+
+  @Override
+  public <T> ResponseEntity<T> execute(
+      String scope,
+      String idempotencyKey,
+      Object request,
+      Class<T> responseType,
+      Supplier<ResponseEntity<T>> action) {
+    if (idempotencyKey == null) {
+      return action.get();
+    }
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException(
+          IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+    }
+    var cacheKey = scope + ' ' + idempotencyKey;
+    var requestHash = fingerprint(request);
+
+    var cachedResponse = responseCache.getIfPresent(cacheKey);
+    if (cachedResponse != null) {
+      LOGGER.info("Replaying cached response for idempotency key: {}", idempotencyKey);
+      return replay(cachedResponse, requestHash, responseType);
+    }
+    var future = new CompletableFuture<IdempotentResponse>();
+    var runningRequest = inFlightRequests.putIfAbsent(cacheKey, future);
+    if (runningRequest != null) {
+      LOGGER.info("Waiting for in-flight request with idempotency key: {}", idempotencyKey);
+      return replay(await(runningRequest, idempotencyKey), requestHash, responseType);
+    }
+
+    try {
+      var freshResponse = new AtomicReference<ResponseEntity<T>>();
+      var idempotentResponse =
+          transactionTemplate.execute(
+              status ->
+                  executeOnce(scope, idempotencyKey, requestHash, action, freshResponse));
+      responseCache.put(cacheKey, idempotentResponse);
+      future.complete(idempotentResponse);
+      return freshResponse.get() != null
+          ? freshResponse.get()
+          : replay(idempotentResponse, requestHash, responseType);
+    } catch (RuntimeException ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlightRequests.remove(cacheKey, future);
+    }
+  }
+
+  /** Removes the records whose replay window has passed. */
+  @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+  @Transactional
+  public void purgeExpired() {
+    var purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    LOGGER.info("Purged {} expired idempotency records", purged);
+  }
+
+  private <T> IdempotentResponse executeOnce(
+      String scope,
+      String idempotencyKey,
+      String requestHash,
+      Supplier<ResponseEntity<T>> action,
+      AtomicReference<ResponseEntity<T>> freshResponse) {
+    var now = LocalDateTime.now();
+    var existingRecord =
+        idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, idempotencyKey);
+    if (existingRecord.isPresent()) {
+      if (existingRecord.get().getExpiresAt().isAfter(now)) {
+        LOGGER.info("Replaying stored response for idempotency key: {}", idempotencyKey);
+        return convertEntityToResponse(existingRecord.get());
+      }
+      // Deleted right away: a flush would insert the new record before deleting this one
+      idempotencyRecordRepository.deleteExpired(scope, idempotencyKey, now);
+    }
+
+    // Claimed before the action runs: a second node inserting the same key fails on the unique
+    // constraint instead of running the action as well
+    IdempotencyRecordEntity idempotencyRecordEntity;
+    try {
+      idempotencyRecordEntity =
+          idempotencyRecordRepository.saveAndFlush(
+              IdempotencyRecordEntity.builder()
+                  .scope(scope)
+                  .idempotencyKey(idempotencyKey)
+                  .requestHash(requestHash)
+                  .createdAt(now)
+                  .expiresAt(now.plus(ttl))
+                  .build());
+    } catch (DataIntegrityViolationException ex) {
+      throw new IdempotencyKeyInProgressException(
+          "A request with this idempotency key is already in progress: " + idempotencyKey);
+    }
+
+    var responseEntity = action.get();
+    idempotencyRecordEntity.setStatusCode(responseEntity.getStatusCode().value());
+    var location = responseEntity.getHeaders().getLocation();
+    idempotencyRecordEntity.setLocation(location != null ? location.toString() : null);
+    idempotencyRecordEntity.setResponseBody(writeJson(responseEntity.getBody()));
+    idempotencyRecordRepository.save(idempotencyRecordEntity);
+    freshResponse.set(responseEntity);
+    return convertEntityToResponse(idempotencyRecordEntity);
+  }
+
+  private <T> ResponseEntity<T> replay(
+      IdempotentResponse idempotentResponse, String requestHash, Class<T> responseType) {
+    if (!idempotentResponse.requestHash().equals(requestHash)) {
+      throw new IdempotencyKeyMismatchException(
+          "The idempotency key was already used for a different request.");
+    }
+    var responseBuilder =
+        ResponseEntity.status(idempotentResponse.statusCode())
+            .header(IDEMPOTENT_REPLAYED_HEADER, "true");
+    if (idempotentResponse.location() != null) {
+      responseBuilder.header(HttpHeaders.LOCATION, idempotentResponse.location());
+    }
+    try {
+      return responseBuilder.body(objectMapper.readValue(idempotentResponse.body(), responseType));
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Cannot read stored idempotent response", ex);
+    }
+  }
+
+  private static IdempotentResponse await(
+      CompletableFuture<IdempotentResponse> runningRequest, String idempotencyKey) {
+    try {
+      return runningRequest.get(IN_FLIGHT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException ex) {
+      // the waiting repeat fails the same way as the request it waited for
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(ex.getCause());
+    } catch (TimeoutException ex) {
+      throw new IdempotencyKeyInProgressException(
+          "A request with this idempotency key is already in progress: " + idempotencyKey);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IdempotencyKeyInProgressException(
+          "Interrupted while waiting for idempotency key: " + idempotencyKey);
+    }
+  }
+
+  private String fingerprint(Object request) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of()
+          .formatHex(digest.digest(writeJson(request).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  private String writeJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException("Cannot serialize " + value, ex);
+    }
+  }
+
+  private static IdempotentResponse convertEntityToResponse(
+      IdempotencyRecordEntity idempotencyRecordEntity) {
+    return IdempotentResponse.builder()
+        .requestHash(idempotencyRecordEntity.getRequestHash())
+        .statusCode(idempotencyRecordEntity.getStatusCode())
+        .location(idempotencyRecordEntity.getLocation())
+        .body(idempotencyRecordEntity.getResponseBody())
+        .build();
+  }
+}
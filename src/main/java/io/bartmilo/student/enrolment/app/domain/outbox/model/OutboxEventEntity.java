@@ -0,0 +1,49 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * An event waiting to be relayed to downstream consumers. Rows are inserted in the same
+ * transaction as the change they describe, so an event exists if and only if that change was
+ * committed, and are deleted by the relay once the sink has accepted them.
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "OutboxEvent")
+@Table(name = "outbox_event")
+public class OutboxEventEntity {
+  @Id
+  @SequenceGenerator(
+      name = "outbox_event_sequence",
+      sequenceName = "outbox_event_sequence",
+      allocationSize = 50)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_sequence")
+  @Column(name = "id", updatable = false)
+  private Long id;
+
+  @Column(name = "aggregate_type", nullable = false, updatable = false)
+  private String aggregateType;
+
+  @Column(name = "aggregate_id", nullable = false, updatable = false)
+  private Long aggregateId;
+
+  @Column(name = "event_type", nullable = false, updatable = false)
+  private String eventType;
+
+  @Column(name = "payload", nullable = false, updatable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(
+      name = "created_at",
+      nullable = false,
+      updatable = false,
+      columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.model;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+/**
+ * An outbox event as handed to an {@code OutboxSink}.
+ *
+ * @param id the outbox row ID, increasing in insertion order; sinks may use it to drop duplicates
+ * @param aggregateType the kind of entity the event is about, e.g. {@code Rental}
+ * @param aggregateId the ID of that entity
+ * @param eventType what happened, e.g. {@code RENTED}
+ * @param payload the event body as JSON
+ * @param createdAt when the event was written
+ */
+@Builder
+public record OutboxMessage(
+    Long id,
+    String aggregateType,
+    Long aggregateId,
+    String eventType,
+    String payload,
+    LocalDateTime createdAt) {}
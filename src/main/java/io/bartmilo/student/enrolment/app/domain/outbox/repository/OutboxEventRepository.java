@@ -0,0 +1,25 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.repository;
+
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxEventEntity;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  /**
+   * Locks and returns the oldest events not locked by another transaction. Rows claimed by a
+   * concurrent relay are skipped rather than waited for, so relays on several nodes drain disjoint
+   * batches.
+   */
+  @Query(
+      value = "SELECT * FROM outbox_event ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<OutboxEventEntity> lockNextBatch(@Param("limit") int limit);
+
+  Optional<OutboxEventEntity> findFirstByOrderByIdAsc();
+}
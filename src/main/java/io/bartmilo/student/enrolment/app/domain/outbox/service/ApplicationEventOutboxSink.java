@@ -0,0 +1,30 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link OutboxSink} which publishes every message as an application event, so in-process
+ * consumers can receive them with an {@code @EventListener} for {@link OutboxMessage}. Listeners
+ * run synchronously inside the relay transaction; one that throws gets the message again later.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.outbox.sink",
+    havingValue = "application-event",
+    matchIfMissing = true)
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+  private final ApplicationEventPublisher applicationEventPublisher;
+
+  public ApplicationEventOutboxSink(ApplicationEventPublisher applicationEventPublisher) {
+    this.applicationEventPublisher = applicationEventPublisher;
+  }
+
+  @Override
+  public void deliver(OutboxMessage outboxMessage) {
+    applicationEventPublisher.publishEvent(outboxMessage);
+  }
+}
@@ -0,0 +1,123 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxEventEntity;
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxMessage;
+import io.bartmilo.student.enrolment.app.domain.outbox.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains the outbox into the {@link OutboxSink}. Each batch is claimed with {@code FOR UPDATE SKIP
+ * LOCKED}, delivered and deleted in one transaction, so any number of nodes can run the relay at
+ * once without delivering an event twice in the normal case. Events of the same aggregate may be
+ * delivered out of order when several nodes drain concurrently.
+ *
+ * <p>Publishes the {@code outbox.lag} gauge, the age of the oldest undelivered event as of the
+ * last run, the {@code outbox.relay.delivered} counter and the {@code outbox.relay.drain} timer.
+ */
+@Component
+public class OutboxRelay {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxSink outboxSink;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final AtomicLong lagMillis = new AtomicLong();
+  private final Counter deliveredCounter;
+  private final Timer drainTimer;
+
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      OutboxSink outboxSink,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.outbox.relay.batch-size:100}") int batchSize) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxSink = outboxSink;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    TimeGauge.builder("outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+        .description("Age of the oldest undelivered outbox event")
+        .register(meterRegistry);
+    this.deliveredCounter =
+        Counter.builder("outbox.relay.delivered")
+            .description("Outbox events delivered to the sink")
+            .register(meterRegistry);
+    this.drainTimer =
+        Timer.builder("outbox.relay.drain")
+            .description("Duration of outbox relay runs")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Delivers batches until the outbox is empty, a batch fails or only rows locked by other relays
+   * are left.
+   *
+   * @return the number of events delivered
+   */
+  @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:1000}")
+  public int drain() {
+    var sample = Timer.start();
+    var delivered = 0;
+    try {
+      int relayed;
+      do {
+        relayed = transactionTemplate.execute(status -> relayBatch());
+        delivered += relayed;
+      } while (relayed == batchSize);
+    } catch (RuntimeException ex) {
+      LOGGER.error("Outbox relay stopped after delivering {} events, retrying later", delivered, ex);
+    } finally {
+      sample.stop(drainTimer);
+      deliveredCounter.increment(delivered);
+      updateLag();
+    }
+    if (delivered > 0) {
+      LOGGER.info("Outbox relay delivered {} events", delivered);
+    }
+    return delivered;
+  }
+
+  private int relayBatch() {
+    var outboxEventEntityList = outboxEventRepository.lockNextBatch(batchSize);
+    for (var outboxEventEntity : outboxEventEntityList) {
+      outboxSink.deliver(convertEntityToMessage(outboxEventEntity));
+    }
+    outboxEventRepository.deleteAllInBatch(outboxEventEntityList);
+    return outboxEventEntityList.size();
+  }
+
+  private void updateLag() {
+    var lag =
+        outboxEventRepository
+            .findFirstByOrderByIdAsc()
+            .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis())
+            .orElse(0L);
+    lagMillis.set(Math.max(lag, 0));
+  }
+
+  private static OutboxMessage convertEntityToMessage(OutboxEventEntity outboxEventEntity) {
+    return OutboxMessage.builder()
+        .id(outboxEventEntity.getId())
+        .aggregateType(outboxEventEntity.getAggregateType())
+        .aggregateId(outboxEventEntity.getAggregateId())
+        .eventType(outboxEventEntity.getEventType())
+        .payload(outboxEventEntity.getPayload())
+        .createdAt(outboxEventEntity.getCreatedAt())
+        .build();
+  }
+}
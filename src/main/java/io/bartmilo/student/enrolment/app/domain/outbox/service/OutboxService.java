@@ -0,0 +1,35 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+public interface OutboxService {
+
+  /**
+   * Writes an event to the outbox. Must be called inside the transaction making the change the
+   * event describes, so the event is committed or rolled back together with it.
+   *
+   * @param aggregateType the kind of entity the event is about
+   * @param eventType what happened
+   * @param aggregateId the ID of the entity
+   * @param payload the event body, serialized to JSON
+   * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is
+   *     active
+   */
+  void enqueue(String aggregateType, String eventType, Long aggregateId, Object payload);
+
+  /**
+   * Writes one event per payload to the outbox in a single batch. The same transaction rules as
+   * for {@link #enqueue} apply.
+   *
+   * @param aggregateType the kind of entity the events are about
+   * @param eventType what happened
+   * @param payloads the event bodies, serialized to JSON
+   * @param aggregateIdExtractor extracts the entity ID from a payload
+   */
+  <T> void enqueueAll(
+      String aggregateType,
+      String eventType,
+      Collection<T> payloads,
+      Function<T, Long> aggregateIdExtractor);
+}
@@ -0,0 +1,78 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxEventEntity;
+import io.bartmilo.student.enrolment.app.domain.outbox.repository.OutboxEventRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxServiceImpl.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+
+  public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueue(String aggregateType, String eventType, Long aggregateId, Object payload) {
+    var outboxEventEntity =
+        buildOutboxEvent(aggregateType, eventType, aggregateId, payload, LocalDateTime.now());
+    outboxEventRepository.save(outboxEventEntity);
+    LOGGER.debug("Outbox event enqueued: {}", outboxEventEntity);
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public <T> void enqueueAll(
+      String aggregateType,
+      String eventType,
+      Collection<T> payloads,
+      Function<T, Long> aggregateIdExtractor) {
+    var createdAt = LocalDateTime.now();
+    var outboxEventEntityList =
+        payloads.stream()
+            .map(
+                payload ->
+                    buildOutboxEvent(
+                        aggregateType,
+                        eventType,
+                        aggregateIdExtractor.apply(payload),
+                        payload,
+                        createdAt))
+            .toList();
+    outboxEventRepository.saveAll(outboxEventEntityList);
+    LOGGER.debug("{} outbox events of type {} enqueued", outboxEventEntityList.size(), eventType);
+  }
+
+  private OutboxEventEntity buildOutboxEvent(
+      String aggregateType,
+      String eventType,
+      Long aggregateId,
+      Object payload,
+      LocalDateTime createdAt) {
+    try {
+      return OutboxEventEntity.builder()
+          .aggregateType(aggregateType)
+          .aggregateId(aggregateId)
+          .eventType(eventType)
+          .payload(objectMapper.writeValueAsString(payload))
+          .createdAt(createdAt)
+          .build();
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException("Cannot serialize outbox payload: " + payload, ex);
+    }
+  }
+}
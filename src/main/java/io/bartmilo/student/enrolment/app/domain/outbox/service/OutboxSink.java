@@ -0,0 +1,16 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxMessage;
+
+/**
+ * Destination of the events drained from the outbox by {@link OutboxRelay}. Delivery is at least
+ * once: a batch is only removed from the outbox after the sink accepted all of it, so a failure
+ * part way through redelivers the messages accepted before it.
+ */
+public interface OutboxSink {
+
+  /**
+   * Delivers one message. Throwing stops the current batch, which is retried by the next run.
+   */
+  void deliver(OutboxMessage outboxMessage);
+}
@@ -1,9 +1,15 @@
 package io.bartmilo.student.enrolment.app.domain.rental;
 
+import io.bartmilo.student.enrolment.app.domain.idempotency.service.IdempotencyService;
 import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapper;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchItemResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchRequest;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnRequest;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnResponse;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalRequest;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
 import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -19,26 +25,55 @@ public class RentalController {
 
   private final RentalService rentalService;
   private final RentalMapper rentalMapper;
+  private final IdempotencyService idempotencyService;
 
-  public RentalController(RentalService rentalService, RentalMapper rentalMapper) {
+  public RentalController(
+      RentalService rentalService,
+      RentalMapper rentalMapper,
+      IdempotencyService idempotencyService) {
     this.rentalService = rentalService;
     this.rentalMapper = rentalMapper;
+    this.idempotencyService = idempotencyService;
   }
 
   @PostMapping
-  public ResponseEntity<RentalResponse> rentBook(@RequestBody RentalRequest rentalRequest) {
+  public ResponseEntity<RentalResponse> rentBook(
+      @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+          String idempotencyKey,
+      @RequestBody RentalRequest rentalRequest) {
     LOGGER.info("Request to rent book: {}", rentalRequest);
-    var rentalDto =
-        rentalService.rentBook(
-            rentalRequest.bookId(), rentalRequest.studentId(), rentalRequest.dueDate());
-    var location =
-        ServletUriComponentsBuilder.fromCurrentRequest()
-            .path("/{id}")
-            .buildAndExpand(rentalDto.getId())
-            .toUri();
-    LOGGER.info("Rental created successfully: {}", rentalDto);
-    var rentalResponse = rentalMapper.convertDtoToResponse(rentalDto);
-    return ResponseEntity.created(location).body(rentalResponse);
+    return idempotencyService.execute(
+        "POST /rentals",
+        idempotencyKey,
+        rentalRequest,
+        RentalResponse.class,
+        () -> {
+          var rentalDto =
+              rentalService.rentBook(
+                  rentalRequest.bookId(), rentalRequest.studentId(), rentalRequest.dueDate());
+          var location =
+              ServletUriComponentsBuilder.fromCurrentRequest()
+                  .path("/{id}")
+                  .buildAndExpand(rentalDto.getId())
+                  .toUri();
+          LOGGER.info("Rental created successfully: {}", rentalDto);
+          var rentalResponse = rentalMapper.convertDtoToResponse(rentalDto);
+          return ResponseEntity.created(location).body(rentalResponse);
+        });
+  }
+
+  @PostMapping("/batch")
+  public ResponseEntity<List<RentalBatchItemResponse>> rentBooks(
+      @RequestBody RentalBatchRequest rentalBatchRequest) {
+    var rentalRequestList =
+        rentalBatchRequest.rentals() != null ? rentalBatchRequest.rentals() : List.<RentalRequest>of();
+    LOGGER.info("Request to rent {} books in one batch", rentalRequestList.size());
+    var rentalDtoList = rentalRequestList.stream().map(rentalMapper::convertRequestToDto).toList();
+    var rentalBatchItemDtoList = rentalService.rentBooks(rentalDtoList);
+    LOGGER.info("Batch rental processed: {} entries", rentalBatchItemDtoList.size());
+    var rentalBatchItemResponseList =
+        rentalBatchItemDtoList.stream().map(rentalMapper::convertBatchItemDtoToResponse).toList();
+    return ResponseEntity.ok(rentalBatchItemResponseList);
   }
 
   @PutMapping("/{id}")
@@ -49,4 +84,18 @@ public class RentalController {
     var rentalResponse = rentalMapper.convertDtoToResponse(rentalDto);
     return ResponseEntity.status(HttpStatus.OK).body(rentalResponse);
   }
+
+  @PutMapping("/returns")
+  public ResponseEntity<RentalBulkReturnResponse> returnBooks(
+      @RequestBody RentalBulkReturnRequest rentalBulkReturnRequest) {
+    var rentalIds =
+        rentalBulkReturnRequest.rentalIds() != null
+            ? rentalBulkReturnRequest.rentalIds()
+            : List.<Long>of();
+    LOGGER.info("Initiating bulk return process for {} rentals", rentalIds.size());
+    var rentalBulkReturnDto = rentalService.returnBooks(rentalIds);
+    LOGGER.info("Bulk return processed: {}", rentalBulkReturnDto);
+    var rentalBulkReturnResponse = rentalMapper.convertBulkReturnDtoToResponse(rentalBulkReturnDto);
+    return ResponseEntity.ok(rentalBulkReturnResponse);
+  }
 }
@@ -1,5 +1,9 @@
 package io.bartmilo.student.enrolment.app.domain.rental.mapper;
 
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchItemDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchItemResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnResponse;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEntity;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalRequest;
@@ -26,4 +30,9 @@ public interface RentalMapper {
   RentalDto convertRequestToDto(RentalRequest request);
 
   RentalResponse convertDtoToResponse(RentalDto dto);
+
+  @Mapping(target = "success", expression = "java(dto.rental() != null)")
+  RentalBatchItemResponse convertBatchItemDtoToResponse(RentalBatchItemDto dto);
+
+  RentalBulkReturnResponse convertBulkReturnDtoToResponse(RentalBulkReturnDto dto);
 }
@@ -0,0 +1,9 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rental found overdue by the overdue sweep. Carries identifiers only, so the sweep never loads
+ * the rental, book or student entities.
+ */
+public record OverdueRental(Long rentalId, Long bookId, Long studentId, LocalDateTime dueDate) {}
@@ -0,0 +1,13 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.util.List;
+
+/**
+ * Application event published by the rental service for the rentals or returns of one call. It is
+ * published inside the rental transaction, so listeners interested only in committed activity
+ * should use {@code @TransactionalEventListener}.
+ *
+ * @param eventType {@link RentalEvent#RENTED} or {@link RentalEvent#RETURNED}
+ * @param rentalEvents the affected rentals
+ */
+public record RentalActivityEvent(String eventType, List<RentalEvent> rentalEvents) {}
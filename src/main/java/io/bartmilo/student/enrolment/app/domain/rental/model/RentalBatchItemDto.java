@@ -0,0 +1,11 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import lombok.*;
+
+/**
+ * Outcome of a single entry of a batch rental. Exactly one of {@code rental} and {@code error} is
+ * set.
+ */
+@Builder
+public record RentalBatchItemDto(
+    int index, Long bookId, Long studentId, RentalDto rental, String error) {}
@@ -0,0 +1,12 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import lombok.*;
+
+@Builder
+public record RentalBatchItemResponse(
+    int index,
+    Long bookId,
+    Long studentId,
+    boolean success,
+    RentalResponse rental,
+    String error) {}
@@ -0,0 +1,7 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.util.List;
+import lombok.*;
+
+@Builder
+public record RentalBulkReturnRequest(List<Long> rentalIds) {}
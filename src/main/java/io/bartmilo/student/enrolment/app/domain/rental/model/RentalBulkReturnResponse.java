@@ -0,0 +1,8 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.util.List;
+import lombok.*;
+
+@Builder
+public record RentalBulkReturnResponse(
+    List<Long> returned, List<Long> alreadyReturned, List<Long> notFound) {}
@@ -14,10 +14,19 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "rental")
+@Table(
+    name = "rental",
+    indexes = {
+      @Index(
+          name = "rental_student_id_rented_at_id_idx",
+          columnList = "student_id, rented_at, id")
+    })
 public class RentalEntity {
   @Id
-  @SequenceGenerator(name = "rental_sequence", sequenceName = "rental_sequence", allocationSize = 1)
+  @SequenceGenerator(
+      name = "rental_sequence",
+      sequenceName = "rental_sequence",
+      allocationSize = 50) // lets batched rental inserts go out without a sequence call per row
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rental_sequence")
   @Column(name = "id", updatable = false)
   private Long id;
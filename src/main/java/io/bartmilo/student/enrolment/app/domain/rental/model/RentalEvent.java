@@ -0,0 +1,21 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+/**
+ * Payload of the rental events written to the outbox.
+ *
+ * @param rentalId the ID of the rental
+ * @param bookId the ID of the rented book
+ * @param studentId the ID of the renting student
+ * @param dueDate when the book is due back
+ * @param occurredAt when the book was rented or returned
+ */
+@Builder
+public record RentalEvent(
+    Long rentalId, Long bookId, Long studentId, LocalDateTime dueDate, LocalDateTime occurredAt) {
+  public static final String AGGREGATE_TYPE = "Rental";
+  public static final String RENTED = "RENTED";
+  public static final String RETURNED = "RETURNED";
+}
@@ -0,0 +1,16 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+import java.time.LocalDateTime;
+
+/** Projection of a rental holding what is needed to return it. */
+public interface RentalReturnView {
+  Long getId();
+
+  Long getBookId();
+
+  Long getStudentId();
+
+  LocalDateTime getDueDate();
+
+  LocalDateTime getReturnedAt();
+}
@@ -0,0 +1,8 @@
+package io.bartmilo.student.enrolment.app.domain.rental.model;
+
+public enum RentalStatusFilter {
+  ALL,
+  ACTIVE,
+  RETURNED,
+  OVERDUE
+}
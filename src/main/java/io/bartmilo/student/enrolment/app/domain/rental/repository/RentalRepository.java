@@ -1,8 +1,94 @@
 package io.bartmilo.student.enrolment.app.domain.rental.repository;
 
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEntity;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalReturnView;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface RentalRepository extends JpaRepository<RentalEntity, Long> {}
+public interface RentalRepository extends JpaRepository<RentalEntity, Long> {
+
+  /** Rentals projected straight into RentalResponse, without hydrating the rental entities. */
+  String RESPONSE_SELECT =
+      "SELECT new io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse("
+          + "r.id, r.rentedAt, r.dueDate, r.returnedAt, r.studentEntity.id, r.bookEntity.id)"
+          + " FROM RentalEntity r";
+
+  /*
+   * Rental history of a student, newest first, projected straight into RentalResponse. Pages seek
+   * past the (rented_at, id) of the last row served, which the rental_student_id_rented_at_id_idx
+   * index answers without skipping over earlier pages.
+   */
+  String STUDENT_RENTALS_SELECT =
+      "SELECT new io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse("
+          + "r.id, r.rentedAt, r.dueDate, r.returnedAt, r.studentEntity.id, r.bookEntity.id)"
+          + " FROM RentalEntity r WHERE r.studentEntity.id = :studentId"
+          + " AND (r.rentedAt < :rentedAt OR (r.rentedAt = :rentedAt AND r.id < :id))";
+  String STUDENT_RENTALS_ORDER = " ORDER BY r.rentedAt DESC, r.id DESC";
+
+  @Query(STUDENT_RENTALS_SELECT + STUDENT_RENTALS_ORDER)
+  List<RentalResponse> findStudentRentalsBefore(
+      @Param("studentId") Long studentId,
+      @Param("rentedAt") LocalDateTime rentedAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(STUDENT_RENTALS_SELECT + " AND r.returnedAt IS NULL" + STUDENT_RENTALS_ORDER)
+  List<RentalResponse> findActiveStudentRentalsBefore(
+      @Param("studentId") Long studentId,
+      @Param("rentedAt") LocalDateTime rentedAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(STUDENT_RENTALS_SELECT + " AND r.returnedAt IS NOT NULL" + STUDENT_RENTALS_ORDER)
+  List<RentalResponse> findReturnedStudentRentalsBefore(
+      @Param("studentId") Long studentId,
+      @Param("rentedAt") LocalDateTime rentedAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(
+      STUDENT_RENTALS_SELECT
+          + " AND r.returnedAt IS NULL AND r.dueDate < :now"
+          + STUDENT_RENTALS_ORDER)
+  List<RentalResponse> findOverdueStudentRentalsBefore(
+      @Param("studentId") Long studentId,
+      @Param("rentedAt") LocalDateTime rentedAt,
+      @Param("id") Long id,
+      @Param("now") LocalDateTime now,
+      Pageable pageable);
+
+  /**
+   * Locks the given rentals and returns only the columns needed to process their return, without
+   * loading the rentals, books or students as entities. Rows are locked in ID order; callers
+   * locking more rentals than fit one call must pass them in ascending ID order as well, so
+   * concurrent bulk returns cannot deadlock each other.
+   */
+  @Query(
+      value =
+          "SELECT id AS \"id\", book_id AS \"bookId\", student_id AS \"studentId\","
+              + " due_date AS \"dueDate\", returned_at AS \"returnedAt\" FROM rental"
+              + " WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+      nativeQuery = true)
+  List<RentalReturnView> findForReturnByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Marks all given rentals that are still open as returned in one statement.
+   *
+   * @return the number of rentals marked as returned
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE RentalEntity r SET r.returnedAt = :returnedAt"
+          + " WHERE r.id IN :ids AND r.returnedAt IS NULL")
+  int markReturned(
+      @Param("ids") Collection<Long> ids, @Param("returnedAt") LocalDateTime returnedAt);
+}
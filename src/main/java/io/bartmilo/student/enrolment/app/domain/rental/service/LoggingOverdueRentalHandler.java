@@ -0,0 +1,23 @@
+package io.bartmilo.student.enrolment.app.domain.rental.service;
+
+import io.bartmilo.student.enrolment.app.domain.rental.model.OverdueRental;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/** Default {@link OverdueRentalHandler} which only logs the overdue rental. */
+@Component
+public class LoggingOverdueRentalHandler implements OverdueRentalHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoggingOverdueRentalHandler.class);
+
+  @Override
+  public void onOverdue(OverdueRental overdueRental) {
+    LOGGER.info(
+        "Rental with ID: {} of book with ID: {} by student with ID: {} was due at: {}",
+        overdueRental.rentalId(),
+        overdueRental.bookId(),
+        overdueRental.studentId(),
+        overdueRental.dueDate());
+  }
+}
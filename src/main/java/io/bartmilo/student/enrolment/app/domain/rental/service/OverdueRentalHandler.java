@@ -0,0 +1,14 @@
+package io.bartmilo.student.enrolment.app.domain.rental.service;
+
+import io.bartmilo.student.enrolment.app.domain.rental.model.OverdueRental;
+
+/**
+ * Receives the rentals found overdue by {@link OverdueRentalSweeper}. Every handler bean in the
+ * context is called once per overdue rental and sweep, on the sweeper thread and outside of any
+ * transaction. A rental stays overdue until it is returned, so it is reported again by every sweep
+ * until then.
+ */
+public interface OverdueRentalHandler {
+
+  void onOverdue(OverdueRental overdueRental);
+}
@@ -0,0 +1,133 @@
+package io.bartmilo.student.enrolment.app.domain.rental.service;
+
+import io.bartmilo.student.enrolment.app.domain.rental.model.OverdueRental;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.ScrollMode;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically finds the rentals which are past their due date and not returned yet, and hands each
+ * of them to every {@link OverdueRentalHandler}.
+ *
+ * <p>The rental table is far too large to load, so the sweep streams a projection of the overdue
+ * rows through a read-only {@link org.hibernate.StatelessSession}: rows are fetched from the
+ * database {@code chunk-size} at a time and dispatched in chunks of the same size, so neither the
+ * persistence context nor the heap ever holds more than one chunk. On PostgreSQL the query is
+ * served by the partial index {@code rental_overdue_due_date_idx} from {@code
+ * schema-postgresql.sql}, which only contains rentals that are still out.
+ *
+ * <p>Each run records its duration in the {@code rental.overdue.sweep} timer and the number of
+ * overdue rentals found in the {@code rental.overdue.sweep.rows} summary.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.rental.overdue-sweep.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class OverdueRentalSweeper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OverdueRentalSweeper.class);
+  private static final String OVERDUE_RENTALS_QUERY =
+      "SELECT new io.bartmilo.student.enrolment.app.domain.rental.model.OverdueRental("
+          + "r.id, r.bookEntity.id, r.studentEntity.id, r.dueDate)"
+          + " FROM RentalEntity r WHERE r.returnedAt IS NULL AND r.dueDate < :now"
+          + " ORDER BY r.dueDate";
+
+  private final SessionFactory sessionFactory;
+  private final List<OverdueRentalHandler> overdueRentalHandlers;
+  private final int chunkSize;
+  private final Timer sweepTimer;
+  private final DistributionSummary sweepRows;
+
+  public OverdueRentalSweeper(
+      EntityManagerFactory entityManagerFactory,
+      List<OverdueRentalHandler> overdueRentalHandlers,
+      MeterRegistry meterRegistry,
+      @Value("${app.rental.overdue-sweep.chunk-size:500}") int chunkSize) {
+    this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    this.overdueRentalHandlers = overdueRentalHandlers;
+    this.chunkSize = chunkSize;
+    this.sweepTimer =
+        Timer.builder("rental.overdue.sweep")
+            .description("Duration of overdue rental sweeps")
+            .register(meterRegistry);
+    this.sweepRows =
+        DistributionSummary.builder("rental.overdue.sweep.rows")
+            .description("Overdue rentals found per sweep")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Runs one sweep over the rentals overdue at the time of the call.
+   *
+   * @return the number of overdue rentals found
+   */
+  @Scheduled(
+      fixedDelayString = "${app.rental.overdue-sweep.interval-ms:300000}",
+      initialDelayString = "${app.rental.overdue-sweep.interval-ms:300000}")
+  public long sweep() {
+    var now = LocalDateTime.now();
+    LOGGER.info("Sweeping rentals overdue at: {}", now);
+    var sample = Timer.start();
+    long rows = 0;
+    try (var session = sessionFactory.openStatelessSession()) {
+      // must be set before the transaction starts, PostgreSQL rejects it afterwards
+      session.doWork(connection -> connection.setReadOnly(true));
+      var transaction = session.beginTransaction();
+      try (var overdueRentals =
+          session
+              .createQuery(OVERDUE_RENTALS_QUERY, OverdueRental.class)
+              .setParameter("now", now)
+              .setReadOnly(true)
+              .setFetchSize(chunkSize)
+              .scroll(ScrollMode.FORWARD_ONLY)) {
+        var chunk = new ArrayList<OverdueRental>(chunkSize);
+        while (overdueRentals.next()) {
+          chunk.add(overdueRentals.get());
+          if (chunk.size() == chunkSize) {
+            rows += dispatch(chunk);
+          }
+        }
+        rows += dispatch(chunk);
+      }
+      transaction.commit();
+    } finally {
+      var nanos = sample.stop(sweepTimer);
+      sweepRows.record(rows);
+      LOGGER.info("Found {} overdue rentals in {} ms", rows, nanos / 1_000_000);
+    }
+    return rows;
+  }
+
+  private int dispatch(List<OverdueRental> chunk) {
+    for (var overdueRental : chunk) {
+      for (var overdueRentalHandler : overdueRentalHandlers) {
+        try {
+          overdueRentalHandler.onOverdue(overdueRental);
+        } catch (RuntimeException ex) {
+          // one failing handler must not hold back the reports of the other rentals
+          LOGGER.error(
+              "Handler {} failed for overdue rental with ID: {}",
+              overdueRentalHandler.getClass().getSimpleName(),
+              overdueRental.rentalId(),
+              ex);
+        }
+      }
+    }
+    var dispatched = chunk.size();
+    chunk.clear();
+    return dispatched;
+  }
+}
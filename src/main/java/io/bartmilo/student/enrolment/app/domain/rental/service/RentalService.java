@@ -1,8 +1,15 @@
 package io.bartmilo.student.enrolment.app.domain.rental.service;
 
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchItemDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnDto;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalStatusFilter;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface RentalService {
 
@@ -22,6 +29,33 @@ public interface RentalService {
    */
   RentalDto rentBook(Long bookId, Long studentId, LocalDateTime dueDate);
 
+  /**
+   * Rents a copy of a book that was already taken from its stock by a hold, see {@link
+   * io.bartmilo.student.enrolment.app.domain.hold.service.BookHoldService#confirmHold}. Apart from
+   * the stock, the same checks as {@link #rentBook} apply.
+   *
+   * @param bookId the unique identifier of the held book
+   * @param studentId the unique identifier of the student renting the book
+   * @param dueDate the due date for returning the rented book
+   * @return a {@link RentalDto} object containing details of the rental transaction
+   * @throws EntityNotFoundException if no student with the given ID exists
+   * @throws IllegalStateException if the student's ID card is inactive
+   */
+  RentalDto rentHeldBook(Long bookId, Long studentId, LocalDateTime dueDate);
+
+  /**
+   * Rents several books in one transaction, e.g. a stack of books handed over at the front desk.
+   * The ID card of each distinct student is checked once, the stock of all books is taken in one
+   * batch and all rental records are inserted in one batch. An entry that cannot be rented does not
+   * abort the others.
+   *
+   * @param rentalDtoList the rentals to create; only {@code bookId}, {@code studentId} and {@code
+   *     dueDate} are used
+   * @return one {@link RentalBatchItemDto} per requested rental, in request order, holding either
+   *     the created rental or the reason it was rejected
+   */
+  List<RentalBatchItemDto> rentBooks(List<RentalDto> rentalDtoList);
+
   /**
    * Returns a book that was previously rented. This method handles the logic to mark a rented book
    * as returned, updating the inventory and the rental records.
@@ -34,4 +68,30 @@ public interface RentalService {
    * @throws IllegalStateException if the book has already been marked as returned
    */
   RentalDto returnBook(Long rentalId);
+
+  /**
+   * Returns many rented books at once, e.g. when processing end-of-term returns. All open rentals
+   * are marked as returned with one set-based update, and the stock of each distinct book is
+   * restored with one update, whatever the number of copies returned.
+   *
+   * @param rentalIds the unique identifiers of the rental records to be marked as returned
+   * @return a {@link RentalBulkReturnDto} listing which rentals were returned by this call, which
+   *     had already been returned and which do not exist
+   */
+  RentalBulkReturnDto returnBooks(Collection<Long> rentalIds);
+
+  /**
+   * Returns one page of the rental history of a student, newest first. Pages are addressed by an
+   * opaque cursor rather than an offset, so deep pages are as fast as the first one, and rows are
+   * projected straight from the rental table without loading the student or book.
+   *
+   * @param studentId the unique identifier of the student
+   * @param statusFilter which rentals to include
+   * @param after the cursor returned with the previous page, or {@code null} for the first page
+   * @param size the maximum number of rentals to return
+   * @return a {@link CursorSlice} of rentals and the cursor of the next page, if any
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  CursorSlice<RentalResponse> findStudentRentals(
+      Long studentId, RentalStatusFilter statusFilter, String after, int size);
 }
@@ -1,24 +1,59 @@
 package io.bartmilo.student.enrolment.app.domain.rental.service;
 
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookServiceImpl;
 import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.outbox.service.OutboxService;
 import io.bartmilo.student.enrolment.app.domain.rental.exception.RentalNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapper;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalActivityEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchItemDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnDto;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEntity;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalReturnView;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalStatusFilter;
 import io.bartmilo.student.enrolment.app.domain.rental.repository.RentalRepository;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.IdCardStatus;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RentalServiceImpl implements RentalService {
   private static final Logger LOGGER = LoggerFactory.getLogger(RentalServiceImpl.class);
+  private static final String ID_CARD_NOT_ACTIVE = "Student's ID card is not active.";
+  private static final int BULK_RETURN_CHUNK_SIZE = 1000;
+  // Seek position of the first history page; later than any rental, but within the range of
+  // timestamp columns on every supported database
+  private static final LocalDateTime FIRST_PAGE_RENTED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
 
   private final StudentService studentService;
   private final BookService bookService;
@@ -26,6 +61,9 @@ public class RentalServiceImpl implements RentalService {
   private final StudentMapper studentMapper;
   private final BookMapper bookMapper;
   private final RentalMapper rentalMapper;
+  private final OutboxService outboxService;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final EntityManager entityManager;
 
   public RentalServiceImpl(
       StudentService studentService,
@@ -33,13 +71,19 @@ public class RentalServiceImpl implements RentalService {
       RentalRepository rentalRepository,
       StudentMapper studentMapper,
       RentalMapper rentalMapper,
-      BookMapper bookMapper) {
+      BookMapper bookMapper,
+      OutboxService outboxService,
+      ApplicationEventPublisher applicationEventPublisher,
+      EntityManager entityManager) {
     this.studentService = studentService;
     this.bookService = bookService;
     this.rentalRepository = rentalRepository;
     this.studentMapper = studentMapper;
     this.bookMapper = bookMapper;
     this.rentalMapper = rentalMapper;
+    this.outboxService = outboxService;
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.entityManager = entityManager;
   }
 
   @Override
@@ -51,22 +95,111 @@ public class RentalServiceImpl implements RentalService {
         studentId,
         dueDate);
     var bookDto = bookService.decrementBookStock(bookId);
-    var studentDto = studentService.findById(studentId);
+    return saveRental(bookId, bookMapper.convertDtoToEntity(bookDto), studentId, dueDate);
+  }
 
-    if (studentDto.studentIdCardDto().status() != IdCardStatus.ACTIVE) {
-      throw new IllegalStateException("Student's ID card is not active.");
+  @Override
+  @Transactional
+  public RentalDto rentHeldBook(Long bookId, Long studentId, LocalDateTime dueDate) {
+    LOGGER.info(
+        "Attempting to rent held book with ID: {} for student with ID: {} due by {}",
+        bookId,
+        studentId,
+        dueDate);
+    // The copy was taken from the stock when the hold was placed
+    var bookEntity = entityManager.getReference(BookEntity.class, bookId);
+    return saveRental(bookId, bookEntity, studentId, dueDate);
+  }
+
+  @Override
+  @Transactional
+  public List<RentalBatchItemDto> rentBooks(List<RentalDto> rentalDtoList) {
+    LOGGER.info("Attempting to rent {} books in one batch", rentalDtoList.size());
+    var errors = new String[rentalDtoList.size()];
+
+    // Each distinct student is loaded and checked once, however many books they rent
+    var studentDtoMap =
+        studentService
+            .findAllById(
+                rentalDtoList.stream()
+                    .map(RentalDto::getStudentId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(StudentDto::id, Function.identity()));
+    var pendingIndexes = new ArrayList<Integer>();
+    for (int i = 0; i < rentalDtoList.size(); i++) {
+      errors[i] = checkBatchItem(rentalDtoList.get(i), studentDtoMap);
+      if (errors[i] == null) {
+        pendingIndexes.add(i);
+      }
     }
 
-    var rentalEntity =
-        RentalEntity.builder()
-            .rentedAt(LocalDateTime.now())
-            .dueDate(dueDate)
-            .bookEntity(bookMapper.convertDtoToEntity(bookDto))
-            .studentEntity(studentMapper.convertDtoToEntity(studentDto))
-            .build();
-    rentalRepository.save(rentalEntity);
-    LOGGER.info("Rental saved: {}", rentalEntity);
-    return rentalMapper.convertEntityToDto(rentalEntity);
+    var decremented =
+        bookService.decrementBookStocks(
+            pendingIndexes.stream().map(i -> rentalDtoList.get(i).getBookId()).toList());
+    var bookExistence = new HashMap<Long, Boolean>();
+    var rentedAt = LocalDateTime.now();
+    var rentalEntityList = new ArrayList<RentalEntity>();
+    var rentalIndexes = new ArrayList<Integer>();
+    for (int i = 0; i < decremented.length; i++) {
+      var index = pendingIndexes.get(i);
+      var rentalDto = rentalDtoList.get(index);
+      if (!decremented[i]) {
+        errors[index] =
+            bookExistence.computeIfAbsent(rentalDto.getBookId(), bookService::isExists)
+                ? "Book is not available for rent."
+                : BookServiceImpl.BOOK_NOT_FOUND_WITH_ID + rentalDto.getBookId();
+        continue;
+      }
+      var rentalEntity = rentalMapper.convertDtoToEntity(rentalDto);
+      rentalEntity.setId(null);
+      // References rather than ID-only stubs, which carry no version and read as detached
+      rentalEntity.setBookEntity(
+          entityManager.getReference(BookEntity.class, rentalDto.getBookId()));
+      rentalEntity.setStudentEntity(
+          entityManager.getReference(StudentEntity.class, rentalDto.getStudentId()));
+      rentalEntity.setRentedAt(rentedAt);
+      rentalEntity.setReturnedAt(null);
+      rentalEntityList.add(rentalEntity);
+      rentalIndexes.add(index);
+    }
+    rentalRepository.saveAll(rentalEntityList);
+    recordActivity(
+        RentalEvent.RENTED,
+        IntStream.range(0, rentalEntityList.size())
+            .mapToObj(
+                i -> {
+                  var rentalDto = rentalDtoList.get(rentalIndexes.get(i));
+                  return RentalEvent.builder()
+                      .rentalId(rentalEntityList.get(i).getId())
+                      .bookId(rentalDto.getBookId())
+                      .studentId(rentalDto.getStudentId())
+                      .dueDate(rentalDto.getDueDate())
+                      .occurredAt(rentedAt)
+                      .build();
+                })
+            .toList());
+    rentalRepository.flush();
+    LOGGER.info("Batch rental saved {} of {} rentals", rentalEntityList.size(), errors.length);
+
+    var rentals = new RentalDto[errors.length];
+    for (int i = 0; i < rentalEntityList.size(); i++) {
+      rentals[rentalIndexes.get(i)] = rentalMapper.convertEntityToDto(rentalEntityList.get(i));
+    }
+    var results = new ArrayList<RentalBatchItemDto>(errors.length);
+    for (int i = 0; i < errors.length; i++) {
+      var rentalDto = rentalDtoList.get(i);
+      results.add(
+          RentalBatchItemDto.builder()
+              .index(i)
+              .bookId(rentalDto.getBookId())
+              .studentId(rentalDto.getStudentId())
+              .rental(rentals[i])
+              .error(errors[i])
+              .build());
+    }
+    return results;
   }
 
   @Override
@@ -83,10 +216,196 @@ public class RentalServiceImpl implements RentalService {
     }
 
     rentalEntity.setReturnedAt(LocalDateTime.now());
+    rentalRepository.save(rentalEntity);
+    recordActivity(
+        RentalEvent.RETURNED,
+        List.of(convertEntityToEvent(rentalEntity, rentalEntity.getReturnedAt())));
+    // Restored last: the guarded update clears the persistence context, and merging the rental
+    // afterwards would cascade the stale book state over the incremented stock
     var returnedBookId = rentalEntity.getBookEntity().getId();
     bookService.incrementBookStock(returnedBookId);
-    rentalRepository.save(rentalEntity);
     LOGGER.info("Book returned successfully: {}", rentalEntity);
     return rentalMapper.convertEntityToDto(rentalEntity);
   }
+
+  @Override
+  @Transactional
+  public RentalBulkReturnDto returnBooks(Collection<Long> rentalIds) {
+    var requestedIds =
+        rentalIds.stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    LOGGER.info("Attempting to return {} rentals in bulk", requestedIds.size());
+    var returnedAt = LocalDateTime.now();
+    var returned = new ArrayList<Long>();
+    var alreadyReturned = new ArrayList<Long>();
+    var notFound = new ArrayList<Long>();
+    // Sorted so the book rows are always locked in the same order
+    var returnedCopiesByBook = new TreeMap<Long, Integer>();
+    var rentalEventList = new ArrayList<RentalEvent>();
+
+    // Locked in ID order across all chunks, not only within one, so concurrent bulk returns of
+    // the same rentals cannot deadlock each other whatever order they were requested in
+    var lockOrder = new ArrayList<>(new TreeSet<>(requestedIds));
+    var rentalReturnViewMap = new HashMap<Long, RentalReturnView>();
+    for (int from = 0; from < lockOrder.size(); from += BULK_RETURN_CHUNK_SIZE) {
+      var to = Math.min(from + BULK_RETURN_CHUNK_SIZE, lockOrder.size());
+      rentalRepository
+          .findForReturnByIdIn(lockOrder.subList(from, to))
+          .forEach(view -> rentalReturnViewMap.put(view.getId(), view));
+    }
+    // Reported in request order
+    for (var rentalId : requestedIds) {
+      var rentalReturnView = rentalReturnViewMap.get(rentalId);
+      if (rentalReturnView == null) {
+        notFound.add(rentalId);
+      } else if (rentalReturnView.getReturnedAt() != null) {
+        alreadyReturned.add(rentalId);
+      } else {
+        returned.add(rentalId);
+        returnedCopiesByBook.merge(rentalReturnView.getBookId(), 1, Integer::sum);
+        rentalEventList.add(
+            RentalEvent.builder()
+                .rentalId(rentalId)
+                .bookId(rentalReturnView.getBookId())
+                .studentId(rentalReturnView.getStudentId())
+                .dueDate(rentalReturnView.getDueDate())
+                .occurredAt(returnedAt)
+                .build());
+      }
+    }
+    // The rows are locked by the queries above, so every open rental is updated here
+    for (int from = 0; from < returned.size(); from += BULK_RETURN_CHUNK_SIZE) {
+      var to = Math.min(from + BULK_RETURN_CHUNK_SIZE, returned.size());
+      rentalRepository.markReturned(returned.subList(from, to), returnedAt);
+    }
+
+    returnedCopiesByBook.forEach(bookService::incrementBookStock);
+    recordActivity(RentalEvent.RETURNED, rentalEventList);
+    LOGGER.info(
+        "Bulk return processed: {} returned, {} already returned, {} not found",
+        returned.size(),
+        alreadyReturned.size(),
+        notFound.size());
+    return RentalBulkReturnDto.builder()
+        .returned(returned)
+        .alreadyReturned(alreadyReturned)
+        .notFound(notFound)
+        .build();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorSlice<RentalResponse> findStudentRentals(
+      Long studentId, RentalStatusFilter statusFilter, String after, int size) {
+    LOGGER.info(
+        "Fetching {} rentals of student with ID: {} after cursor: {}",
+        statusFilter,
+        studentId,
+        after);
+    var rentedAt = FIRST_PAGE_RENTED_AT;
+    var id = Long.MAX_VALUE;
+    if (after != null && !after.isBlank()) {
+      var cursor = KeysetCursor.decode(after);
+      try {
+        rentedAt = LocalDateTime.parse(cursor.key());
+      } catch (DateTimeParseException ex) {
+        throw new IllegalArgumentException("Invalid pagination cursor: " + after, ex);
+      }
+      id = cursor.id();
+    }
+    var limit = PageRequest.of(0, size + 1);
+    var rentalResponseList =
+        switch (statusFilter) {
+          case ALL -> rentalRepository.findStudentRentalsBefore(studentId, rentedAt, id, limit);
+          case ACTIVE ->
+              rentalRepository.findActiveStudentRentalsBefore(studentId, rentedAt, id, limit);
+          case RETURNED ->
+              rentalRepository.findReturnedStudentRentalsBefore(studentId, rentedAt, id, limit);
+          case OVERDUE ->
+              rentalRepository.findOverdueStudentRentalsBefore(
+                  studentId, rentedAt, id, LocalDateTime.now(), limit);
+        };
+    return CursorSlice.of(
+        rentalResponseList,
+        size,
+        rentalResponse ->
+            new KeysetCursor(rentalResponse.rentedAt().toString(), rentalResponse.id()));
+  }
+
+  /**
+   * Creates the rental of a copy the caller has already taken from the stock, shared by {@link
+   * #rentBook} and {@link #rentHeldBook}. Checks that the student exists and has an active ID
+   * card, inserts the rental and records its {@link RentalEvent#RENTED} event.
+   */
+  private RentalDto saveRental(
+      Long bookId, BookEntity bookEntity, Long studentId, LocalDateTime dueDate) {
+    var studentDto = studentService.findById(studentId);
+
+    if (studentDto.studentIdCardDto().status() != IdCardStatus.ACTIVE) {
+      throw new IllegalStateException(ID_CARD_NOT_ACTIVE);
+    }
+
+    var rentalEntity =
+        RentalEntity.builder()
+            .rentedAt(LocalDateTime.now())
+            .dueDate(dueDate)
+            .bookEntity(bookEntity)
+            .studentEntity(studentMapper.convertDtoToEntity(studentDto))
+            .build();
+    rentalRepository.save(rentalEntity);
+    recordActivity(
+        RentalEvent.RENTED,
+        List.of(
+            RentalEvent.builder()
+                .rentalId(rentalEntity.getId())
+                .bookId(bookId)
+                .studentId(studentId)
+                .dueDate(dueDate)
+                .occurredAt(rentalEntity.getRentedAt())
+                .build()));
+    LOGGER.info("Rental saved: {}", rentalEntity);
+    return rentalMapper.convertEntityToDto(rentalEntity);
+  }
+
+  /**
+   * Writes the events to the outbox, to be relayed after commit, and publishes them to in-process
+   * listeners. Must be called inside the transaction making the change.
+   */
+  private void recordActivity(String eventType, List<RentalEvent> rentalEvents) {
+    if (rentalEvents.isEmpty()) {
+      return;
+    }
+    outboxService.enqueueAll(
+        RentalEvent.AGGREGATE_TYPE, eventType, rentalEvents, RentalEvent::rentalId);
+    applicationEventPublisher.publishEvent(new RentalActivityEvent(eventType, rentalEvents));
+  }
+
+  private static RentalEvent convertEntityToEvent(
+      RentalEntity rentalEntity, LocalDateTime occurredAt) {
+    return RentalEvent.builder()
+        .rentalId(rentalEntity.getId())
+        .bookId(rentalEntity.getBookEntity().getId())
+        .studentId(rentalEntity.getStudentEntity().getId())
+        .dueDate(rentalEntity.getDueDate())
+        .occurredAt(occurredAt)
+        .build();
+  }
+
+  private static String checkBatchItem(RentalDto rentalDto, Map<Long, StudentDto> studentDtoMap) {
+    if (rentalDto.getBookId() == null
+        || rentalDto.getStudentId() == null
+        || rentalDto.getDueDate() == null) {
+      return "Book ID, student ID and due date are required.";
+    }
+    var studentDto = studentDtoMap.get(rentalDto.getStudentId());
+    if (studentDto == null) {
+      return "Student not found with ID: " + rentalDto.getStudentId();
+    }
+    if (studentDto.studentIdCardDto() == null
+        || studentDto.studentIdCardDto().status() != IdCardStatus.ACTIVE) {
+      return ID_CARD_NOT_ACTIVE;
+    }
+    return null;
+  }
 }
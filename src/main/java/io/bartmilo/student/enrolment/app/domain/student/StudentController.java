@@ -1,16 +1,26 @@
 package io.bartmilo.student.enrolment.app.domain.student;
 
+import io.bartmilo.student.enrolment.app.domain.idempotency.service.IdempotencyService;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalStatusFilter;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
 import io.bartmilo.student.enrolment.app.domain.student.exception.StudentNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.*;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentNameSearchEngine;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.util.Locale;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
@@ -18,68 +28,166 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 public class StudentController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StudentController.class);
+  private static final int MAX_RENTALS_PAGE_SIZE = 100;
+  private static final int MAX_KEYSET_PAGE_SIZE = 500;
   private final StudentService studentService;
   private final StudentMapper studentMapper;
+  private final RentalService rentalService;
+  private final IdempotencyService idempotencyService;
+  private final StudentNameSearchEngine studentNameSearchEngine;
 
-  public StudentController(StudentService studentService, StudentMapper studentMapper) {
+  public StudentController(
+      StudentService studentService,
+      StudentMapper studentMapper,
+      RentalService rentalService,
+      IdempotencyService idempotencyService,
+      StudentNameSearchEngine studentNameSearchEngine) {
     this.studentService = studentService;
     this.studentMapper = studentMapper;
+    this.rentalService = rentalService;
+    this.idempotencyService = idempotencyService;
+    this.studentNameSearchEngine = studentNameSearchEngine;
   }
 
   @PostMapping
-  public ResponseEntity<StudentResponse> createStudent(@RequestBody StudentRequest studentRequest) {
+  public ResponseEntity<StudentResponse> createStudent(
+      @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+          String idempotencyKey,
+      @RequestBody StudentRequest studentRequest) {
     LOGGER.info("Request to create student: {}", studentRequest);
-    var studentDto = studentMapper.convertRequestToDto(studentRequest);
-    var savedStudentDto = studentService.save(studentDto);
-    var location =
-        ServletUriComponentsBuilder.fromCurrentRequest()
-            .path("/{id}")
-            .buildAndExpand(savedStudentDto.id())
-            .toUri();
-    LOGGER.info("Student created successfully: {}", savedStudentDto);
-    var studentResponse = studentMapper.convertDtoToResponse(savedStudentDto);
-    return ResponseEntity.created(location).body(studentResponse);
+    return idempotencyService.execute(
+        "POST /students",
+        idempotencyKey,
+        studentRequest,
+        StudentResponse.class,
+        () -> {
+          var studentDto = studentMapper.convertRequestToDto(studentRequest);
+          var savedStudentDto = studentService.save(studentDto);
+          var location =
+              ServletUriComponentsBuilder.fromCurrentRequest()
+                  .path("/{id}")
+                  .buildAndExpand(savedStudentDto.id())
+                  .toUri();
+          LOGGER.info("Student created successfully: {}", savedStudentDto);
+          var studentResponse = studentMapper.convertDtoToResponse(savedStudentDto);
+          return ResponseEntity.created(location).body(studentResponse);
+        });
   }
 
+  /**
+   * Returns the student with its version as a strong ETag. A request whose {@code If-None-Match}
+   * still matches is answered with 304 from the version alone, without loading the student.
+   */
   @GetMapping("/{id}")
-  public ResponseEntity<StudentResponse> getStudentById(@PathVariable Long id) {
+  public ResponseEntity<StudentResponse> getStudentById(
+      @PathVariable Long id, WebRequest webRequest) {
     LOGGER.info("Request to get student by ID: {}", id);
+    var version = findConditionalVersion(id, webRequest);
+    if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+      LOGGER.info("Student not modified with ID: {}", id);
+      return null;
+    }
     var studentDto = studentService.findById(id);
     var studentResponse = studentMapper.convertDtoToResponse(studentDto);
     LOGGER.info("Student retrieved successfully: {}", studentDto);
-    return ResponseEntity.ok(studentResponse);
+    return ResponseEntity.ok().eTag(String.valueOf(studentDto.version())).body(studentResponse);
+  }
+
+  /**
+   * Returns the student with the given email, compared case-insensitively, with its version as a
+   * strong ETag. Served from a cache, for integrations resolving a student on every request.
+   */
+  @GetMapping("/by-email")
+  public ResponseEntity<StudentResponse> getStudentByEmail(@RequestParam String email) {
+    LOGGER.info("Request to get student by email: {}", email);
+    var studentDto = studentService.findByEmail(email);
+    var studentResponse = studentMapper.convertDtoToResponse(studentDto);
+    LOGGER.info("Student retrieved successfully: {}", studentDto);
+    return ResponseEntity.ok().eTag(String.valueOf(studentDto.version())).body(studentResponse);
+  }
+
+  /**
+   * Returns the students whose last name starts with {@code lastName}, ignoring case, ordered by
+   * last name and then by ID. Pass the returned {@code nextCursor} as {@code after} for the next
+   * page.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<CursorSlice<StudentResponse>> searchStudents(
+      @RequestParam String lastName,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "20") int size) {
+    LOGGER.info("Request to search students by last name prefix: {}", lastName);
+    if (lastName.isBlank()) {
+      throw new IllegalArgumentException("Last name prefix must not be blank.");
+    }
+    var pageSize = Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    var studentResponseSlice = studentNameSearchEngine.search(lastName, after, pageSize);
+    LOGGER.info("Students found: {}", studentResponseSlice.content().size());
+    return ResponseEntity.ok(studentResponseSlice);
   }
 
   @GetMapping
   public ResponseEntity<Page<StudentResponse>> getAllStudents(
       @PageableDefault(size = 10) Pageable pageable) {
     LOGGER.info("Request to get all students");
-    var studentDtoPage = studentService.findAll(pageable);
-    var studentResponsePage = studentDtoPage.map(studentMapper::convertDtoToResponse);
+    var studentResponsePage = studentService.findAllResponses(pageable);
     LOGGER.info("Students retrieved with pagination");
     return ResponseEntity.ok(studentResponsePage);
   }
 
+  /**
+   * Keyset pagination mode of {@link #getAllStudents}, selected by the {@code after} parameter.
+   * Pass an empty {@code after} for the first page and the returned {@code nextCursor} for the next.
+   */
+  @GetMapping(params = "after")
+  public ResponseEntity<CursorSlice<StudentResponse>> getStudentsAfter(
+      @RequestParam String after,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(defaultValue = "50") int size) {
+    LOGGER.info("Request to get students by {} after cursor: {}", sort, after);
+    var sortKey = StudentSortKey.fromParam(sort);
+    var pageSize = Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    var studentResponseSlice = studentService.findAllResponses(sortKey, after, pageSize);
+    LOGGER.info("Students retrieved: {}", studentResponseSlice.content().size());
+    return ResponseEntity.ok(studentResponseSlice);
+  }
+
+  @GetMapping("/{id}/rentals")
+  public ResponseEntity<CursorSlice<RentalResponse>> getStudentRentals(
+      @PathVariable Long id,
+      @RequestParam(defaultValue = "ALL") String status,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "20") int size) {
+    LOGGER.info("Request to get {} rentals of student with ID: {}", status, id);
+    if (!studentService.exists(id)) {
+      LOGGER.error("Attempted to get rentals of a non-existent student with ID: {}", id);
+      throw new StudentNotFoundException("Student not found with ID: " + id);
+    }
+    var statusFilter = RentalStatusFilter.valueOf(status.toUpperCase(Locale.ROOT));
+    var pageSize = Math.max(1, Math.min(size, MAX_RENTALS_PAGE_SIZE));
+    var rentalResponseSlice = rentalService.findStudentRentals(id, statusFilter, after, pageSize);
+    LOGGER.info(
+        "Retrieved {} rentals of student with ID: {}", rentalResponseSlice.content().size(), id);
+    return ResponseEntity.ok(rentalResponseSlice);
+  }
+
+  /**
+   * Updates the student identified by the path, like {@code PUT /books/{id}} does. With an {@code
+   * If-Match} header the update is refused with 412 unless the student still has the version of
+   * the ETag.
+   */
   @PutMapping("/{id}")
   public ResponseEntity<StudentResponse> updateStudent(
-      @PathVariable Long id, @RequestBody StudentDto studentDto) {
+      @PathVariable Long id, @RequestBody StudentDto studentDto, WebRequest webRequest) {
     LOGGER.info("Request to update student with ID: {}", id);
-    checkIfTheStudentExists(id);
-    var updatedStudentDto = studentService.save(studentDto);
-    var studentResponse = studentMapper.convertDtoToResponse(updatedStudentDto);
-    LOGGER.info("Student updated successfully: {}", updatedStudentDto);
-    return ResponseEntity.ok(studentResponse);
+    return update(id, studentDto, webRequest);
   }
 
   @PatchMapping("/{id}")
   public ResponseEntity<StudentResponse> partialUpdateStudent(
-      @PathVariable Long id, @RequestBody StudentDto studentDto) {
+      @PathVariable Long id, @RequestBody StudentDto studentDto, WebRequest webRequest) {
     LOGGER.info("Request to partially update student with ID: {}", id);
-    checkIfTheStudentExists(id);
-    var updatedStudentDto = studentService.partialUpdate(id, studentDto);
-    var studentResponse = studentMapper.convertDtoToResponse(updatedStudentDto);
-    LOGGER.info("Student partially updated successfully: {}", updatedStudentDto);
-    return ResponseEntity.ok(studentResponse);
+    return update(id, studentDto, webRequest);
   }
 
   @DeleteMapping("/{id}")
@@ -91,6 +199,40 @@ public class StudentController {
     return ResponseEntity.noContent().build();
   }
 
+  private ResponseEntity<StudentResponse> update(
+      Long id, StudentDto studentDto, WebRequest webRequest) {
+    var version = findConditionalVersion(id, webRequest);
+    if (version.isPresent() && webRequest.checkNotModified(String.valueOf(version.get()))) {
+      LOGGER.error("Precondition failed for update of student with ID: {}", id);
+      return null;
+    }
+    checkIfTheStudentExists(id);
+    if (webRequest.getHeader(HttpHeaders.IF_MATCH) != null && version.isPresent()) {
+      studentDto = studentDto.toBuilder().version(version.get()).build();
+    }
+    var updatedStudentDto = studentService.partialUpdate(id, studentDto);
+    var studentResponse = studentMapper.convertDtoToResponse(updatedStudentDto);
+    LOGGER.info("Student updated successfully: {}", updatedStudentDto);
+    return ResponseEntity.ok()
+        .eTag(String.valueOf(updatedStudentDto.version()))
+        .body(studentResponse);
+  }
+
+  /**
+   * Reads the version of the student only when the request is conditional, so unconditional
+   * requests do not pay for the extra query.
+   *
+   * @return the version of the student; empty if the request is unconditional or the student is
+   *     missing
+   */
+  private Optional<Long> findConditionalVersion(Long id, WebRequest webRequest) {
+    if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null
+        && webRequest.getHeader(HttpHeaders.IF_MATCH) == null) {
+      return Optional.empty();
+    }
+    return studentService.findVersion(id);
+  }
+
   private void checkIfTheStudentExists(Long id) {
     if (!studentService.exists(id)) {
       LOGGER.error("Attempted to update a non-existent student with ID: {}", id);
@@ -1,5 +1,6 @@
 package io.bartmilo.student.enrolment.app.domain.student.exception;
 
+import io.bartmilo.student.enrolment.app.domain.hold.BookHoldController;
 import io.bartmilo.student.enrolment.app.domain.student.StudentController;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.ZonedDateTime;
@@ -10,7 +11,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @Slf4j
-@ControllerAdvice(assignableTypes = {StudentController.class})
+@ControllerAdvice(assignableTypes = {StudentController.class, BookHoldController.class})
 public class StudentApiExceptionHandler {
 
   @ExceptionHandler(StudentNotFoundException.class)
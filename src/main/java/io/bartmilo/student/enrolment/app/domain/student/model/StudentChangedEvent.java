@@ -0,0 +1,21 @@
+package io.bartmilo.student.enrolment.app.domain.student.model;
+
+/**
+ * Published by the student service whenever a student is created, updated or deleted, so that
+ * derived read models such as the last name search index can follow the student table.
+ *
+ * @param studentId the ID of the changed student
+ * @param previousLastName the last name before the change; {@code null} when the student was
+ *     created
+ * @param lastName the last name after the change; {@code null} when the student was deleted
+ */
+public record StudentChangedEvent(Long studentId, String previousLastName, String lastName) {
+
+  public static StudentChangedEvent saved(String previousLastName, StudentDto studentDto) {
+    return new StudentChangedEvent(studentDto.id(), previousLastName, studentDto.lastName());
+  }
+
+  public static StudentChangedEvent deleted(Long studentId, String lastName) {
+    return new StudentChangedEvent(studentId, lastName, null);
+  }
+}
@@ -5,7 +5,7 @@ import java.util.List;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 
-@Builder
+@Builder(toBuilder = true)
 public record StudentDto(
     Long id,
     String firstName,
@@ -13,4 +13,5 @@ public record StudentDto(
     String email,
     Integer age,
     StudentIdCardDto studentIdCardDto,
-    List<BookDto> bookDtoList) {}
+    List<BookDto> bookDtoList,
+    Long version) {}
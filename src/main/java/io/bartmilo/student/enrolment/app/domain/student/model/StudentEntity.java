@@ -14,15 +14,26 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity(name = "Student")
+@NamedEntityGraph(
+    name = StudentEntity.WITH_ID_CARD,
+    attributeNodes = @NamedAttributeNode("studentIdCardEntity"))
 @Table(
     name = "student",
-    uniqueConstraints = {@UniqueConstraint(name = "student_email_unique", columnNames = "email")})
+    uniqueConstraints = {@UniqueConstraint(name = "student_email_unique", columnNames = "email")},
+    indexes = {@Index(name = "student_last_name_id_idx", columnList = "last_name, id")})
 public class StudentEntity {
+
+  /**
+   * Fetch plan joining the ID card into the statement loading the students. The card side owns the
+   * relation, so the card cannot be proxied and is otherwise loaded by one statement per student.
+   */
+  public static final String WITH_ID_CARD = "Student.withIdCard";
+
   @Id
   @SequenceGenerator(
       name = "student_sequence",
       sequenceName = "student_sequence",
-      allocationSize = 1)
+      allocationSize = 50) // enrolments insert without a sequence call per student
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_sequence")
   @Column(name = "id", updatable = false)
   private Long id;
@@ -39,12 +50,18 @@ public class StudentEntity {
   @Column(name = "age", nullable = false)
   private Integer age;
 
+  /* Bumped on every update; the strong ETag of the student */
+  @Version
+  @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+  private Long version;
+
   /* RELATIONS */
 
+  /* Persisted with the student, so an enrolment is a single flush */
   @OneToOne(
       mappedBy = "studentEntity",
       orphanRemoval = true,
-      cascade = CascadeType.MERGE)
+      cascade = {CascadeType.PERSIST, CascadeType.MERGE})
   private StudentIdCardEntity studentIdCardEntity;
 
   @OneToMany(mappedBy = "studentEntity", orphanRemoval = false)
@@ -22,7 +22,7 @@ public class StudentIdCardEntity {
   @SequenceGenerator(
       name = "student_card_id_sequence",
       sequenceName = "student_card_id_sequence",
-      allocationSize = 1)
+      allocationSize = 50)
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_card_id_sequence")
   @Column(name = "id", updatable = false)
   private Long id;
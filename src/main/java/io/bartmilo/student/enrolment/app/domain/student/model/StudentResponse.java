@@ -12,4 +12,29 @@ public record StudentResponse(
     String email,
     Integer age,
     StudentIdCardResponse studentIdCardResponse,
-    List<BookResponse> bookResponseList) {}
+    List<BookResponse> bookResponseList) {
+
+  /**
+   * Builds a response from one flat row of the student table joined with its ID card, as selected
+   * by the list queries of the student repository. The card is {@code null} when the student has
+   * none yet.
+   */
+  public StudentResponse(
+      Long id,
+      String firstName,
+      String lastName,
+      String email,
+      Integer age,
+      Long cardId,
+      String cardNumber,
+      IdCardStatus cardStatus) {
+    this(
+        id,
+        firstName,
+        lastName,
+        email,
+        age,
+        cardId == null ? null : new StudentIdCardResponse(cardId, cardNumber, cardStatus, id),
+        null);
+  }
+}
@@ -0,0 +1,30 @@
+package io.bartmilo.student.enrolment.app.domain.student.model;
+
+import java.util.Arrays;
+
+/**
+ * The orders {@code GET /students?after=} can seek through, each ascending with the ID as tiebreak.
+ */
+public enum StudentSortKey {
+  ID("id"),
+  LAST_NAME("lastName");
+
+  private final String param;
+
+  StudentSortKey(String param) {
+    this.param = param;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the value does not name a sort key
+   */
+  public static StudentSortKey fromParam(String param) {
+    return Arrays.stream(values())
+        .filter(sortKey -> sortKey.param.equalsIgnoreCase(param))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    "Unknown sort key: " + param + ", expected id or lastName"));
+  }
+}
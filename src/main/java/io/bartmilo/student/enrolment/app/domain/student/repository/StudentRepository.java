@@ -1,8 +1,13 @@
 package io.bartmilo.student.enrolment.app.domain.student.repository;
 
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,7 +15,52 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface StudentRepository extends JpaRepository<StudentEntity, Long> {
+
+  /**
+   * Students with their ID card projected straight into StudentResponse, for the list endpoints.
+   * The card is joined into the same statement instead of being loaded once per student, and no
+   * entity is hydrated or attached to the persistence context.
+   */
+  String RESPONSE_SELECT =
+      "SELECT new io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse("
+          + "s.id, s.firstName, s.lastName, s.email, s.age, c.id, c.cardNumber, c.status)"
+          + " FROM Student s LEFT JOIN s.studentIdCardEntity c";
+
+  @Query(value = RESPONSE_SELECT, countQuery = "SELECT COUNT(s) FROM Student s")
+  Page<StudentResponse> findResponsePage(Pageable pageable);
+
+  /** The given students, for pages whose IDs come from the last name search index. */
+  @Query(RESPONSE_SELECT + " WHERE s.id IN :ids")
+  List<StudentResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+  /** A page of students with their ID cards, in one statement plus the count. */
+  @Override
+  @EntityGraph(StudentEntity.WITH_ID_CARD)
+  Page<StudentEntity> findAll(Pageable pageable);
+
+  /** A student with its ID card, for the detail view, in one statement. */
+  @Override
+  @EntityGraph(StudentEntity.WITH_ID_CARD)
+  Optional<StudentEntity> findById(Long id);
+
+  /**
+   * Students with their ID cards, for checking whether they may rent books, in one statement
+   * however many students are asked for. Their rentals are not loaded.
+   */
+  @Override
+  @EntityGraph(StudentEntity.WITH_ID_CARD)
+  List<StudentEntity> findAllById(Iterable<Long> ids);
+
+  /** The version of a student, for answering conditional requests without loading the student. */
+  @Query("SELECT s.version FROM Student s WHERE s.id = :id")
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  /**
+   * The student with the given email and its ID card, in one statement seeking through the
+   * student_email_unique index. Emails are stored in lower case, so the email must be too.
+   */
   @Query("SELECT s FROM Student s WHERE s.email = ?1")
+  @EntityGraph(StudentEntity.WITH_ID_CARD)
   Optional<StudentEntity> findStudentByEmail(String email);
 
   @Query("SELECT s FROM Student s WHERE s.firstName = ?1 AND s.age = ?2")
@@ -28,4 +78,22 @@ public interface StudentRepository extends JpaRepository<StudentEntity, Long> {
 
   @Query("SELECT s FROM Student s WHERE s.lastName LIKE ?1")
   List<StudentEntity> findByLastNameStartingWith(String prefix);
+
+  /**
+   * Students after the given ID in ID order, for keyset pagination. Only the page size of the
+   * {@code limit} is used and no count query is run.
+   */
+  @Query(RESPONSE_SELECT + " WHERE s.id > :id ORDER BY s.id")
+  List<StudentResponse> findPageAfterId(@Param("id") Long id, Pageable limit);
+
+  /**
+   * Students after the given (last name, ID) in last name order, for keyset pagination. Seeks
+   * through the student_last_name_id_idx index.
+   */
+  @Query(
+      RESPONSE_SELECT
+          + " WHERE s.lastName > :lastName OR (s.lastName = :lastName AND s.id > :id)"
+          + " ORDER BY s.lastName, s.id")
+  List<StudentResponse> findPageAfterLastName(
+      @Param("lastName") String lastName, @Param("id") Long id, Pageable limit);
 }
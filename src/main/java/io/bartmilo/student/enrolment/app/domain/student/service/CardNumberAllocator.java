@@ -0,0 +1,127 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allocates student ID card numbers. Numbers are handed out from blocks of {@value #BLOCK_SIZE}
+ * leased from the {@code student_card_number_block_sequence}: block {@code n} holds the numbers
+ * from {@code n * BLOCK_SIZE} up to, but excluding, {@code (n + 1) * BLOCK_SIZE}. Every node leases
+ * its own blocks from the same sequence, so numbers are unique across nodes without any
+ * coordination, and only one allocation in a block costs a database round trip.
+ *
+ * <p>Within a node, numbers are taken from the current block with an atomic increment. The first
+ * thread that finds the block used up leases the next one, while the others wait for it and then
+ * take their numbers from the new block, so each block costs one round trip however many threads
+ * run out at once. Numbers are unique but not gapless, as blocks taken by a node that stops are
+ * never reused.
+ *
+ * <p>A card number is {@code CARD}, the allocated number as ten digits and a Luhn check digit,
+ * fifteen characters in all, which catches any single mistyped digit and most swapped pairs.
+ */
+@Component
+public class CardNumberAllocator {
+
+  static final String SEQUENCE_NAME = "student_card_number_block_sequence";
+
+  /* Shared by all nodes; changing it on a database in use would make blocks overlap */
+  static final long BLOCK_SIZE = 1_000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CardNumberAllocator.class);
+  private static final String PREFIX = "CARD";
+  private static final int DIGITS = 10;
+  private static final long MAX_NUMBER = 9_999_999_999L;
+
+  private final ReentrantLock leaseLock = new ReentrantLock();
+  private final JdbcTemplate jdbcTemplate;
+  private final String nextBlockSql;
+  private volatile Block currentBlock = Block.USED_UP;
+
+  public CardNumberAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+    this.jdbcTemplate = jdbcTemplate;
+    var dialect =
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    this.nextBlockSql = dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE_NAME);
+    // Not mapped by any entity, so not recreated with the schema: numbers survive restarts
+    jdbcTemplate.execute(
+        "CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME + " START WITH 1 INCREMENT BY 1");
+  }
+
+  /**
+   * Allocates a card number that has not been handed out before, by this or any other node.
+   *
+   * @throws IllegalStateException if all ten-digit numbers have been allocated
+   */
+  public String nextCardNumber() {
+    return format(nextNumber());
+  }
+
+  long nextNumber() {
+    while (true) {
+      var block = currentBlock;
+      var number = block.next.getAndIncrement();
+      if (number < block.end) {
+        return number;
+      }
+      leaseLock.lock();
+      try {
+        // Threads that waited here find the block already replaced
+        if (currentBlock == block) {
+          currentBlock = leaseBlock();
+        }
+      } finally {
+        leaseLock.unlock();
+      }
+    }
+  }
+
+  static String format(long number) {
+    var digits = String.format("%0" + DIGITS + "d", number);
+    return PREFIX + digits + checkDigit(digits);
+  }
+
+  /** The Luhn check digit of the given digits. */
+  static int checkDigit(String digits) {
+    var sum = 0;
+    // Every second digit is doubled, starting with the rightmost one
+    for (int i = digits.length() - 1, position = 0; i >= 0; i--, position++) {
+      var digit = digits.charAt(i) - '0';
+      if (position % 2 == 0) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+    }
+    return (10 - sum % 10) % 10;
+  }
+
+  private Block leaseBlock() {
+    var blockNumber = jdbcTemplate.queryForObject(nextBlockSql, Long.class);
+    var start = blockNumber * BLOCK_SIZE;
+    if (start + BLOCK_SIZE - 1 > MAX_NUMBER) {
+      throw new IllegalStateException("All " + DIGITS + "-digit card numbers are allocated.");
+    }
+    LOGGER.info("Leased card numbers {} to {}", start, start + BLOCK_SIZE - 1);
+    return new Block(start, start + BLOCK_SIZE);
+  }
+
+  private static final class Block {
+    private static final Block USED_UP = new Block(0, 0);
+
+    private final AtomicLong next;
+    private final long end;
+
+    Block(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+  }
+}
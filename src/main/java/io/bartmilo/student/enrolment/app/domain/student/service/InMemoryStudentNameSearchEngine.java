@@ -0,0 +1,207 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentChangedEvent;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link StudentNameSearchEngine} for databases without a prefix index, backed by a sorted index
+ * kept in memory.
+ *
+ * <p>The index maps every distinct lower case last name to the sorted IDs of the students bearing
+ * it. Names are kept in a sorted map, so the names starting with a prefix form one contiguous range
+ * and a page is read by walking that range from the cursor on: a lookup costs a tree descent plus
+ * the page itself, however many students there are. IDs are stored without boxing, so the index
+ * takes little more than the distinct names and eight bytes per student. The students of a page
+ * are then loaded by ID in one statement.
+ *
+ * <p>The index is loaded from the student table when the application is ready and then follows the
+ * {@link StudentChangedEvent}s of committed transactions. Students written by other instances or
+ * directly to the database are only picked up by the next restart.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.student.search.engine",
+    havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryStudentNameSearchEngine implements StudentNameSearchEngine {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(InMemoryStudentNameSearchEngine.class);
+  private static final String LOAD_SQL = "SELECT id, last_name FROM student";
+  private static final int LOAD_FETCH_SIZE = 1_000;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, StudentIds> studentIdsByLastName = new TreeMap<>();
+  private final StudentRepository studentRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public InMemoryStudentNameSearchEngine(
+      StudentRepository studentRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager) {
+    this.studentRepository = studentRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  /** Replaces the whole index with the current content of the student table. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      studentIdsByLastName.clear();
+      RowCallbackHandler indexRow = rs -> add(rs.getLong("id"), rs.getString("last_name"));
+      // Inside a transaction, so the PostgreSQL driver honours the fetch size and streams the rows
+      transactionTemplate.executeWithoutResult(
+          status ->
+              jdbcTemplate.query(
+                  con -> {
+                    var preparedStatement = con.prepareStatement(LOAD_SQL);
+                    preparedStatement.setFetchSize(LOAD_FETCH_SIZE);
+                    return preparedStatement;
+                  },
+                  indexRow));
+      LOGGER.info(
+          "Loaded {} distinct last names into the search index", studentIdsByLastName.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStudentChanged(StudentChangedEvent studentChangedEvent) {
+    lock.writeLock().lock();
+    try {
+      if (studentChangedEvent.previousLastName() != null) {
+        remove(studentChangedEvent.studentId(), studentChangedEvent.previousLastName());
+      }
+      if (studentChangedEvent.lastName() != null) {
+        add(studentChangedEvent.studentId(), studentChangedEvent.lastName());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public CursorSlice<StudentResponse> search(String lastNamePrefix, String after, int size) {
+    var prefix = StudentNameSearchEngine.toSearchKey(lastNamePrefix);
+    var cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+    // The first page starts before the smallest ID of the prefix itself
+    var start =
+        cursor == null || cursor.key().compareTo(prefix) < 0
+            ? new KeysetCursor(prefix, Long.MIN_VALUE)
+            : cursor;
+    var pageKeys = new HashMap<Long, String>();
+    // One more than the page, which only tells whether a next page exists
+    var pageIds = new ArrayList<Long>(size + 1);
+    lock.readLock().lock();
+    try {
+      for (var entry : studentIdsByLastName.tailMap(start.key(), true).entrySet()) {
+        if (!entry.getKey().startsWith(prefix) || pageIds.size() > size) {
+          break;
+        }
+        var afterId = entry.getKey().equals(start.key()) ? start.id() : Long.MIN_VALUE;
+        var from = pageIds.size();
+        entry.getValue().collectAfter(afterId, size + 1 - from, pageIds);
+        for (int i = from; i < pageIds.size(); i++) {
+          pageKeys.put(pageIds.get(i), entry.getKey());
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (pageIds.isEmpty()) {
+      return new CursorSlice<>(List.of(), size, false, null);
+    }
+    var studentResponsesById = new HashMap<Long, StudentResponse>();
+    for (var studentResponse : studentRepository.findResponsesByIdIn(pageIds)) {
+      studentResponsesById.put(studentResponse.id(), studentResponse);
+    }
+    // In index order; students deleted since the index was read are skipped
+    var studentResponseList =
+        pageIds.stream().map(studentResponsesById::get).filter(Objects::nonNull).toList();
+    return CursorSlice.of(
+        studentResponseList,
+        size,
+        studentResponse ->
+            new KeysetCursor(pageKeys.get(studentResponse.id()), studentResponse.id()));
+  }
+
+  private void add(long studentId, String lastName) {
+    studentIdsByLastName
+        .computeIfAbsent(StudentNameSearchEngine.toSearchKey(lastName), key -> new StudentIds())
+        .add(studentId);
+  }
+
+  private void remove(long studentId, String lastName) {
+    var key = StudentNameSearchEngine.toSearchKey(lastName);
+    var studentIds = studentIdsByLastName.get(key);
+    if (studentIds != null && studentIds.remove(studentId) && studentIds.size == 0) {
+      studentIdsByLastName.remove(key);
+    }
+  }
+
+  /** The sorted IDs of the students with one last name, stored without boxing. */
+  private static final class StudentIds {
+    private long[] ids = new long[1];
+    private int size;
+
+    void add(long studentId) {
+      var index = Arrays.binarySearch(ids, 0, size, studentId);
+      if (index >= 0) {
+        return;
+      }
+      var insertionPoint = -index - 1;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      System.arraycopy(ids, insertionPoint, ids, insertionPoint + 1, size - insertionPoint);
+      ids[insertionPoint] = studentId;
+      size++;
+    }
+
+    boolean remove(long studentId) {
+      var index = Arrays.binarySearch(ids, 0, size, studentId);
+      if (index < 0) {
+        return false;
+      }
+      System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+      size--;
+      return true;
+    }
+
+    /** Adds up to {@code limit} IDs greater than {@code afterId} to the list, in order. */
+    void collectAfter(long afterId, int limit, List<Long> target) {
+      var index = Arrays.binarySearch(ids, 0, size, afterId);
+      var from = index >= 0 ? index + 1 : -index - 1;
+      for (int i = from; i < size && limit > 0; i++, limit--) {
+        target.add(ids[i]);
+      }
+    }
+  }
+}
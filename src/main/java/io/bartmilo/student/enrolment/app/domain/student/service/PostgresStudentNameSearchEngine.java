@@ -0,0 +1,88 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import io.bartmilo.student.enrolment.app.domain.student.model.IdCardStatus;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link StudentNameSearchEngine} backed by the {@code student_last_name_prefix_idx} index on the
+ * lower case last name and ID, created by {@code schema-postgresql.sql}. The index uses the byte
+ * order of the C collation, like {@code text_pattern_ops}, so the names starting with a prefix are
+ * one contiguous range of it, and, unlike {@code text_pattern_ops}, it also serves the {@code ORDER
+ * BY} of the keyset page. A page is a single index range scan that stops after the page size, which
+ * keeps it fast on millions of students.
+ *
+ * <p>The prefix range is given as explicit bounds rather than a {@code LIKE} pattern, so it is used
+ * by generic plans of the prepared statement as well and needs no escaping of wildcards.
+ */
+@Component
+@ConditionalOnProperty(name = "app.student.search.engine", havingValue = "postgres")
+public class PostgresStudentNameSearchEngine implements StudentNameSearchEngine {
+
+  private static final String SEARCH_KEY = "lower(s.last_name) COLLATE \"C\"";
+  private static final String SEARCH_SQL =
+      "SELECT s.id, s.first_name, s.last_name, s.email, s.age,"
+          + " c.id AS card_id, c.card_number, c.status, "
+          + SEARCH_KEY
+          + " AS search_key"
+          + " FROM student s LEFT JOIN student_id_card c ON c.student_id = s.id"
+          + " WHERE "
+          + SEARCH_KEY
+          + " < ? AND ("
+          + SEARCH_KEY
+          + ", s.id) > (?, ?)"
+          + " ORDER BY "
+          + SEARCH_KEY
+          + ", s.id LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public PostgresStudentNameSearchEngine(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public CursorSlice<StudentResponse> search(String lastNamePrefix, String after, int size) {
+    var prefix = StudentNameSearchEngine.toSearchKey(lastNamePrefix);
+    var cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+    // The first page starts before the smallest ID of the prefix itself
+    var start =
+        cursor == null || cursor.key().compareTo(prefix) < 0
+            ? new KeysetCursor(prefix, Long.MIN_VALUE)
+            : cursor;
+    // Sorts after every name starting with the prefix, as no character sorts after it
+    var end = prefix + Character.toString(Character.MAX_CODE_POINT);
+    var matchList =
+        jdbcTemplate.query(
+            SEARCH_SQL,
+            (rs, rowNum) -> {
+              var cardStatus = rs.getString("status");
+              var studentResponse =
+                  new StudentResponse(
+                      rs.getLong("id"),
+                      rs.getString("first_name"),
+                      rs.getString("last_name"),
+                      rs.getString("email"),
+                      rs.getInt("age"),
+                      rs.getObject("card_id", Long.class),
+                      rs.getString("card_number"),
+                      cardStatus == null ? null : IdCardStatus.valueOf(cardStatus));
+              return new Match(studentResponse, rs.getString("search_key"));
+            },
+            end,
+            start.key(),
+            start.id(),
+            size + 1);
+    return CursorSlice.of(
+            matchList,
+            size,
+            match -> new KeysetCursor(match.searchKey(), match.studentResponse().id()))
+        .map(Match::studentResponse);
+  }
+
+  private record Match(StudentResponse studentResponse, String searchKey) {}
+}
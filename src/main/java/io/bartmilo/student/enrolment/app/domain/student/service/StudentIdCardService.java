@@ -1,7 +1,9 @@
 package io.bartmilo.student.enrolment.app.domain.student.service;
 
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentIdCardDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentIdCardEntity;
 
 public interface StudentIdCardService {
 
@@ -15,4 +17,14 @@ public interface StudentIdCardService {
    *     includes all relevant details such as card number, issue date, and status
    */
   StudentIdCardDto generateStudentIdCard(StudentDto studentDto);
+
+  /**
+   * Issues an active ID card to a student that is being enrolled. The card is linked to both sides
+   * of the relation but not saved; persisting the student cascades to it, so the student and its
+   * card are inserted by the same flush.
+   *
+   * @param studentEntity the new, not yet persisted student
+   * @return the {@link StudentIdCardEntity} issued to the student
+   */
+  StudentIdCardEntity issueStudentIdCard(StudentEntity studentEntity);
 }
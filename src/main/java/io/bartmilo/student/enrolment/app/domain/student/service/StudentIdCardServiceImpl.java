@@ -1,11 +1,10 @@
 package io.bartmilo.student.enrolment.app.domain.student.service;
 
+import io.bartmilo.student.enrolment.app.domain.student.exception.StudentNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentIdCardMapper;
-import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.*;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentIdCardRepository;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
-import java.util.Random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -17,40 +16,43 @@ public class StudentIdCardServiceImpl implements StudentIdCardService {
 
   private final StudentIdCardRepository studentIdCardRepository;
   private final StudentRepository studentRepository;
-  private final Random random;
+  private final CardNumberAllocator cardNumberAllocator;
   private final StudentIdCardMapper studentIdCardMapper;
-  private final StudentMapper studentMapper;
 
   public StudentIdCardServiceImpl(
       StudentIdCardRepository studentIdCardRepository,
       StudentRepository studentRepository,
-      Random random,
-      StudentIdCardMapper studentIdCardMapper,
-      StudentMapper studentMapper) {
+      CardNumberAllocator cardNumberAllocator,
+      StudentIdCardMapper studentIdCardMapper) {
     this.studentIdCardRepository = studentIdCardRepository;
     this.studentRepository = studentRepository;
-    this.random = random;
+    this.cardNumberAllocator = cardNumberAllocator;
     this.studentIdCardMapper = studentIdCardMapper;
-    this.studentMapper = studentMapper;
   }
 
   @Override
   @Transactional
   public StudentIdCardDto generateStudentIdCard(StudentDto studentDto) {
-    var studentEntity = studentMapper.convertDtoToEntity(studentDto);
-    studentRepository.saveAndFlush(studentEntity); // Ensures ID is generated
+    var studentEntity =
+        studentRepository
+            .findById(studentDto.id())
+            .orElseThrow(
+                () ->
+                    new StudentNotFoundException("Student not found with ID: " + studentDto.id()));
+    var studentIdCardEntity = studentIdCardRepository.save(issueStudentIdCard(studentEntity));
+    LOGGER.info("STUDENT_ID_CARD_ENTITY: {}", studentIdCardEntity);
+    return studentIdCardMapper.convertEntityToDto(studentIdCardEntity);
+  }
+
+  @Override
+  public StudentIdCardEntity issueStudentIdCard(StudentEntity studentEntity) {
     var studentIdCardEntity =
         StudentIdCardEntity.builder()
-            .cardNumber(generateCardNumber())
+            .cardNumber(cardNumberAllocator.nextCardNumber())
             .status(IdCardStatus.ACTIVE)
             .studentEntity(studentEntity)
             .build();
-    studentIdCardEntity = studentIdCardRepository.save(studentIdCardEntity);
-    LOGGER.info("STUDENT_ID_CARD_ENTITY: {}", studentIdCardEntity);
-    return studentIdCardMapper.convertEntityToDto(studentIdCardEntity);
-  }
-
-  private String generateCardNumber() {
-    return "CARD" + (random.nextInt() * 1000000);
+    studentEntity.setStudentIdCardEntity(studentIdCardEntity);
+    return studentIdCardEntity;
   }
 }
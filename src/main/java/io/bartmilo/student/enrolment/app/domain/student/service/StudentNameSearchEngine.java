@@ -0,0 +1,27 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.util.Locale;
+
+/**
+ * Last name prefix search over the students, for typeahead. The implementation is selected with
+ * {@code app.student.search.engine}.
+ */
+public interface StudentNameSearchEngine {
+
+  /**
+   * Returns the students whose last name starts with the prefix, ignoring case, ordered by their
+   * lower case last name and then by ID.
+   *
+   * @param lastNamePrefix the start of the last name; must not be blank
+   * @param after the {@code nextCursor} of the previous page; {@code null} or empty for the first
+   * @param size the maximum number of students to return
+   */
+  CursorSlice<StudentResponse> search(String lastNamePrefix, String after, int size);
+
+  /** The form last names and prefixes are compared in. */
+  static String toSearchKey(String lastName) {
+    return lastName.trim().toLowerCase(Locale.ROOT);
+  }
+}
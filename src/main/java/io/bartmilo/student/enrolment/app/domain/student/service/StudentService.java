@@ -1,7 +1,12 @@
 package io.bartmilo.student.enrolment.app.domain.student.service;
 
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
-import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentSortKey;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -22,6 +27,27 @@ public interface StudentService {
    */
   Page<StudentDto> findAll(Pageable pageable);
 
+  /**
+   * Returns one page of students for the list endpoint, read straight into responses without
+   * loading the student entities.
+   *
+   * @param pageable The pagination information.
+   * @return A page of students with their ID cards.
+   */
+  Page<StudentResponse> findAllResponses(Pageable pageable);
+
+  /**
+   * Returns one page of students in keyset pagination mode, read straight into responses. Each
+   * page seeks straight past the last student of the previous one, so it costs the same however
+   * deep it is, and no count is run.
+   *
+   * @param sortKey The order to page through.
+   * @param after The cursor of the previous page; {@code null} or blank for the first page.
+   * @param size The page size.
+   * @return The page of students, with the cursor of the next page.
+   */
+  CursorSlice<StudentResponse> findAllResponses(StudentSortKey sortKey, String after, int size);
+
   /**
    * Returns the student with the specified id.
    *
@@ -30,6 +56,30 @@ public interface StudentService {
    */
   StudentDto findById(Long id);
 
+  /**
+   * Returns the student with the specified email, compared case-insensitively.
+   *
+   * @param email Email of the student to retrieve.
+   * @return The requested student if found.
+   */
+  StudentDto findByEmail(String email);
+
+  /**
+   * Returns the students with the specified ids. IDs without a matching student are skipped.
+   *
+   * @param ids IDs of the students to retrieve.
+   * @return The students found, in no particular order.
+   */
+  List<StudentDto> findAllById(Collection<Long> ids);
+
+  /**
+   * Returns the version of the student with the specified ID, without loading the student.
+   *
+   * @param id ID of the student.
+   * @return The version of the student, or empty if it does not exist.
+   */
+  Optional<Long> findVersion(Long id);
+
   /**
    * Returns boolean of student in the database with the specified ID. Checks whether the student
    * exists in the database.
@@ -40,11 +90,14 @@ public interface StudentService {
   boolean exists(Long id);
 
   /**
-   * Updates the specified student, identified by given ID.
+   * Updates the specified student, identified by given ID. When the student carries a version, the
+   * update only goes through if the stored student still has that version.
    *
    * @param id The ID of the student to update.
    * @param studentDto The student to update.
    * @return The updated student.
+   * @throws org.springframework.dao.OptimisticLockingFailureException if the student has a
+   *     different version or is updated concurrently
    */
   StudentDto partialUpdate(Long id, StudentDto studentDto);
 
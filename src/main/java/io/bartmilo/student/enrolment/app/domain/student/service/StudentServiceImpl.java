@@ -1,14 +1,25 @@
 package io.bartmilo.student.enrolment.app.domain.student.service;
 
+import io.bartmilo.student.enrolment.app.cache.ReadThroughCache;
+import io.bartmilo.student.enrolment.app.config.CacheConfig;
 import io.bartmilo.student.enrolment.app.domain.student.exception.StudentNotFoundException;
-import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentIdCardMapper;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.*;
-import io.bartmilo.student.enrolment.app.domain.student.repository.StudentIdCardRepository;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import io.bartmilo.student.enrolment.app.pagination.KeysetCursor;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,38 +30,44 @@ public class StudentServiceImpl implements StudentService {
   private final StudentRepository studentRepository;
   private final StudentIdCardService studentIdCardService;
   private final StudentMapper studentMapper;
-  private final StudentIdCardMapper studentIdCardMapper;
-  private final StudentIdCardRepository studentIdCardRepository;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final ReadThroughCache<StudentDto> studentCache;
+  private final ReadThroughCache<StudentDto> studentEmailCache;
 
   public StudentServiceImpl(
       StudentRepository studentRepository,
       StudentIdCardService studentIdCardService,
       StudentMapper studentMapper,
-      StudentIdCardMapper studentIdCardMapper,
-      StudentIdCardRepository studentIdCardRepository) {
+      ApplicationEventPublisher applicationEventPublisher,
+      CacheManager cacheManager) {
     this.studentRepository = studentRepository;
     this.studentIdCardService = studentIdCardService;
     this.studentMapper = studentMapper;
-    this.studentIdCardMapper = studentIdCardMapper;
-    this.studentIdCardRepository = studentIdCardRepository;
+    this.applicationEventPublisher = applicationEventPublisher;
+    // StudentDto and StudentIdCardDto are records, so cached students can be handed out as is
+    this.studentCache =
+        new ReadThroughCache<>(cacheManager, CacheConfig.STUDENT_CACHE, UnaryOperator.identity());
+    this.studentEmailCache =
+        new ReadThroughCache<>(
+            cacheManager, CacheConfig.STUDENT_EMAIL_CACHE, UnaryOperator.identity());
   }
 
+  /**
+   * Enrols the student and issues its ID card as one unit: the card is persisted by cascade with
+   * the student and both IDs come from pooled sequences, so nothing is written before the commit
+   * flush, which inserts the student and then its card.
+   */
   @Override
   @Transactional
   public StudentDto save(StudentDto studentDto) {
     var studentEntity = studentMapper.convertDtoToEntity(studentDto);
+    studentEntity.setEmail(normalizeEmail(studentEntity.getEmail()));
+    studentIdCardService.issueStudentIdCard(studentEntity);
     studentEntity = studentRepository.save(studentEntity);
-
+    studentCache.evict(studentEntity.getId());
     var savedStudentDto = studentMapper.convertEntityToDto(studentEntity);
-    var studentIdCardDto = studentIdCardService.generateStudentIdCard(savedStudentDto);
-    var studentIdCardEntity = studentIdCardMapper.convertDtoToEntity(studentIdCardDto);
-    studentIdCardEntity.setStudentEntity(studentEntity);
-    studentIdCardRepository.save(studentIdCardEntity);
-
-    // Update the student entity with the student card information
-    studentEntity.setStudentIdCardEntity(studentIdCardEntity);
-    studentRepository.save(studentEntity);
-    return studentMapper.convertEntityToDto(studentEntity);
+    applicationEventPublisher.publishEvent(StudentChangedEvent.saved(null, savedStudentDto));
+    return savedStudentDto;
   }
 
   @Override
@@ -63,12 +80,93 @@ public class StudentServiceImpl implements StudentService {
 
   @Override
   @Transactional(readOnly = true)
+  public Page<StudentResponse> findAllResponses(Pageable pageable) {
+    LOGGER.info("Fetching student responses with pagination");
+    return studentRepository.findResponsePage(pageable);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorSlice<StudentResponse> findAllResponses(
+      StudentSortKey sortKey, String after, int size) {
+    LOGGER.info("Fetching students by {} after cursor: {}", sortKey, after);
+    // The first page starts before the smallest key and ID
+    var cursor =
+        after == null || after.isBlank()
+            ? new KeysetCursor("", Long.MIN_VALUE)
+            : KeysetCursor.decode(after);
+    var limit = PageRequest.of(0, size + 1);
+    var studentResponseList =
+        switch (sortKey) {
+          case ID -> studentRepository.findPageAfterId(cursor.id(), limit);
+          case LAST_NAME ->
+              studentRepository.findPageAfterLastName(cursor.key(), cursor.id(), limit);
+        };
+    return CursorSlice.of(
+        studentResponseList,
+        size,
+        studentResponse ->
+            new KeysetCursor(
+                sortKey == StudentSortKey.LAST_NAME ? studentResponse.lastName() : "",
+                studentResponse.id()));
+  }
+
+  /**
+   * Deliberately not transactional: a cache hit must not pay for a connection checkout, and on a
+   * miss the repository runs the lookup in its own read-only transaction. The ID card is loaded
+   * eagerly with the student, so it can be mapped after that transaction.
+   */
+  @Override
   public StudentDto findById(Long id) {
     LOGGER.info("Finding student with ID: {}", id);
-    return studentRepository
-        .findById(id)
+    return studentCache.get(
+        id,
+        () ->
+            studentRepository
+                .findById(id)
+                .map(studentMapper::convertEntityToDto)
+                .orElseThrow(
+                    () -> new StudentNotFoundException("Student not found with ID: " + id)));
+  }
+
+  /**
+   * Deliberately not transactional, like {@link #findById}. Emails are stored in lower case, so
+   * the lookup is an exact match on the student_email_unique index. Cached students are evicted
+   * when they are updated or deleted; lookups of unknown emails are not cached.
+   */
+  @Override
+  public StudentDto findByEmail(String email) {
+    if (email == null || email.isBlank()) {
+      throw new IllegalArgumentException("Email must not be blank.");
+    }
+    var normalizedEmail = normalizeEmail(email);
+    LOGGER.info("Finding student with email: {}", normalizedEmail);
+    return studentEmailCache.get(
+        normalizedEmail,
+        () ->
+            studentRepository
+                .findStudentByEmail(normalizedEmail)
+                .map(studentMapper::convertEntityToDto)
+                .orElseThrow(
+                    () ->
+                        new StudentNotFoundException(
+                            "Student not found with email: " + normalizedEmail)));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<StudentDto> findAllById(Collection<Long> ids) {
+    LOGGER.info("Finding {} students by ID", ids.size());
+    return studentRepository.findAllById(ids).stream()
         .map(studentMapper::convertEntityToDto)
-        .orElseThrow(() -> new StudentNotFoundException("Student not found with ID: " + id));
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<Long> findVersion(Long id) {
+    LOGGER.debug("Finding version of student with ID: {}", id);
+    return studentRepository.findVersionById(id);
   }
 
   @Override
@@ -92,27 +190,63 @@ public class StudentServiceImpl implements StudentService {
   @Transactional
   public void delete(Long id) {
     LOGGER.info("Deleting student with ID: {}", id);
+    // Loaded for its email; deleteById then finds it in the persistence context
+    var studentEntity = studentRepository.findById(id);
     studentRepository.deleteById(id);
+    studentCache.evict(id);
+    studentEntity.ifPresent(
+        deletedStudent -> {
+          studentEmailCache.evict(deletedStudent.getEmail());
+          applicationEventPublisher.publishEvent(
+              StudentChangedEvent.deleted(id, deletedStudent.getLastName()));
+        });
   }
 
   private StudentDto updateExistingStudent(StudentDto studentDto, StudentEntity existingStudent) {
     LOGGER.info("Found student to update: {}", existingStudent);
+    var expectedVersion = studentDto.version();
+    if (expectedVersion != null && !expectedVersion.equals(existingStudent.getVersion())) {
+      LOGGER.error(
+          "Student with ID: {} has version {}, expected {}",
+          existingStudent.getId(),
+          existingStudent.getVersion(),
+          expectedVersion);
+      throw new OptimisticLockingFailureException(
+          "Student with ID: "
+              + existingStudent.getId()
+              + " was modified, expected version "
+              + expectedVersion);
+    }
 
     if (studentDto.firstName() != null) {
       existingStudent.setFirstName(studentDto.firstName());
     }
+    var previousLastName = existingStudent.getLastName();
     if (studentDto.lastName() != null) {
       existingStudent.setLastName(studentDto.lastName());
     }
+    var previousEmail = existingStudent.getEmail();
     if (studentDto.email() != null) {
-      existingStudent.setEmail(studentDto.email());
+      existingStudent.setEmail(normalizeEmail(studentDto.email()));
     }
     if (studentDto.age() != null) {
       existingStudent.setAge(studentDto.age());
     }
 
-    var updatedStudent = studentRepository.save(existingStudent);
+    // Flushed so that the returned student carries the bumped version
+    var updatedStudent = studentRepository.saveAndFlush(existingStudent);
+    studentCache.evict(updatedStudent.getId());
+    studentEmailCache.evict(previousEmail);
+    studentEmailCache.evict(updatedStudent.getEmail());
     LOGGER.info("Updated student: {}", updatedStudent);
-    return studentMapper.convertEntityToDto(updatedStudent);
+    var updatedStudentDto = studentMapper.convertEntityToDto(updatedStudent);
+    applicationEventPublisher.publishEvent(
+        StudentChangedEvent.saved(previousLastName, updatedStudentDto));
+    return updatedStudentDto;
+  }
+
+  /** Emails are compared case-insensitively, so they are stored and looked up in lower case. */
+  private static String normalizeEmail(String email) {
+    return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
   }
 }
@@ -1,12 +1,17 @@
 package io.bartmilo.student.enrolment.app.handler.advice;
 
 import io.bartmilo.student.enrolment.app.domain.book.BookController;
+import io.bartmilo.student.enrolment.app.domain.export.ExportController;
+import io.bartmilo.student.enrolment.app.domain.hold.BookHoldController;
+import io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyInProgressException;
+import io.bartmilo.student.enrolment.app.domain.idempotency.exception.IdempotencyKeyMismatchException;
 import io.bartmilo.student.enrolment.app.domain.rental.RentalController;
 import io.bartmilo.student.enrolment.app.domain.student.StudentController;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.ZonedDateTime;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,7 +19,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @Slf4j
 @ControllerAdvice(
-    assignableTypes = {StudentController.class, BookController.class, RentalController.class})
+    assignableTypes = {
+      StudentController.class,
+      BookController.class,
+      BookHoldController.class,
+      RentalController.class,
+      ExportController.class
+    })
 public class GlobalApiExceptionHandler {
 
   @ExceptionHandler(EntityNotFoundException.class)
@@ -28,13 +39,45 @@ public class GlobalApiExceptionHandler {
 
   @ExceptionHandler(IllegalArgumentException.class)
   public ResponseEntity<CommonExceptionResponse> handleIllegalArgumentException(
-      HttpServletRequest request, EntityNotFoundException ex) {
+      HttpServletRequest request, IllegalArgumentException ex) {
     LOGGER.error("Handling IllegalArgumentException for request: {}", request.getRequestURI());
     LOGGER.error("IllegalArgumentException: {}", ex.getMessage());
     var commonExceptionResponse = getCommonExceptionResponse(HttpStatus.BAD_REQUEST, request, ex);
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(commonExceptionResponse);
   }
 
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<CommonExceptionResponse> handleOptimisticLockingFailureException(
+      HttpServletRequest request, OptimisticLockingFailureException ex) {
+    LOGGER.error(
+        "Handling OptimisticLockingFailureException for request: {}", request.getRequestURI());
+    LOGGER.error("Resource modified concurrently: {}", ex.getMessage());
+    var commonExceptionResponse =
+        getCommonExceptionResponse(HttpStatus.PRECONDITION_FAILED, request, ex);
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(commonExceptionResponse);
+  }
+
+  @ExceptionHandler(IdempotencyKeyInProgressException.class)
+  public ResponseEntity<CommonExceptionResponse> handleIdempotencyKeyInProgressException(
+      HttpServletRequest request, IdempotencyKeyInProgressException ex) {
+    LOGGER.error(
+        "Handling IdempotencyKeyInProgressException for request: {}", request.getRequestURI());
+    LOGGER.error("Idempotency key in progress: {}", ex.getMessage());
+    var commonExceptionResponse = getCommonExceptionResponse(HttpStatus.CONFLICT, request, ex);
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(commonExceptionResponse);
+  }
+
+  @ExceptionHandler(IdempotencyKeyMismatchException.class)
+  public ResponseEntity<CommonExceptionResponse> handleIdempotencyKeyMismatchException(
+      HttpServletRequest request, IdempotencyKeyMismatchException ex) {
+    LOGGER.error(
+        "Handling IdempotencyKeyMismatchException for request: {}", request.getRequestURI());
+    LOGGER.error("Idempotency key mismatch: {}", ex.getMessage());
+    var commonExceptionResponse =
+        getCommonExceptionResponse(HttpStatus.UNPROCESSABLE_ENTITY, request, ex);
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(commonExceptionResponse);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<Object> handleUnspecifiedException(
       HttpServletRequest request, Exception ex) {
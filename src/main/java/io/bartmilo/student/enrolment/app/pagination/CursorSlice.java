@@ -0,0 +1,35 @@
+package io.bartmilo.student.enrolment.app.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset paginated listing. Unlike a {@code Page} it carries no total count, so
+ * serving it never needs a {@code COUNT(*)} query.
+ *
+ * @param content the rows of this page
+ * @param size the requested page size
+ * @param hasNext whether more rows follow
+ * @param nextCursor the cursor to pass to get the next page, {@code null} on the last page
+ */
+public record CursorSlice<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+
+  /**
+   * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only tells
+   * whether a next page exists.
+   */
+  public static <T> CursorSlice<T> of(
+      List<T> rows, int size, Function<T, KeysetCursor> cursorExtractor) {
+    var hasNext = rows.size() > size;
+    var content = hasNext ? List.copyOf(rows.subList(0, size)) : rows;
+    var nextCursor =
+        hasNext ? cursorExtractor.apply(content.get(content.size() - 1)).encode() : null;
+    return new CursorSlice<>(content, size, hasNext, nextCursor);
+  }
+
+  /** Converts the rows of this page, keeping its cursor. */
+  public <R> CursorSlice<R> map(Function<? super T, ? extends R> converter) {
+    return new CursorSlice<>(
+        content.stream().<R>map(converter).toList(), size, hasNext, nextCursor);
+  }
+}
@@ -0,0 +1,33 @@
+package io.bartmilo.student.enrolment.app.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset (seek) paginated listing: the sort key and ID of the last row served. The
+ * next page continues strictly after that row, so it costs the same however deep it is. Clients
+ * only see the encoded, opaque form.
+ */
+public record KeysetCursor(String key, Long id) {
+
+  private static final char SEPARATOR = '|';
+
+  public static KeysetCursor decode(String cursor) {
+    try {
+      var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      var separatorIndex = decoded.lastIndexOf(SEPARATOR);
+      return new KeysetCursor(
+          decoded.substring(0, separatorIndex),
+          Long.parseLong(decoded.substring(separatorIndex + 1)));
+    } catch (RuntimeException ex) {
+      throw new IllegalArgumentException("Invalid pagination cursor: " + cursor, ex);
+    }
+  }
+
+  public String encode() {
+    var raw = key + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,20 @@
+-- Only rentals that are still out, which is all the overdue sweep ever reads
+CREATE INDEX IF NOT EXISTS rental_overdue_due_date_idx ON rental (due_date) WHERE returned_at IS NULL;
+
+-- Catalog search, see PostgresBookSearchEngine
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(book_author, '')), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS book_search_vector_idx ON book USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS book_title_trgm_idx ON book USING GIN (title gin_trgm_ops);
+
+-- Student last name prefix search, see PostgresStudentNameSearchEngine. The C collation orders
+-- bytewise like text_pattern_ops, so a prefix is one range of the index, and also serves the
+-- ORDER BY of the keyset pages, which neither text_pattern_ops nor a trigram index can
+CREATE INDEX IF NOT EXISTS student_last_name_prefix_idx ON student ((lower(last_name) COLLATE "C"), id);
+
+-- Filtered pages of available books, see BookRepository.findIdsByAuthorAndTitleAfter. The author
+-- index also serves the seek and ORDER BY on the ID; the title prefix is a range of the second
+CREATE INDEX IF NOT EXISTS book_author_lower_idx ON book (lower(book_author), id);
+CREATE INDEX IF NOT EXISTS book_title_lower_prefix_idx ON book (lower(title) text_pattern_ops);
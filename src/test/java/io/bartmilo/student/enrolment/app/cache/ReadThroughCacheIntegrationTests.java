@@ -0,0 +1,143 @@
+package io.bartmilo.student.enrolment.app.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.config.CacheConfig;
+import io.bartmilo.student.enrolment.app.domain.book.exception.BookNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReadThroughCacheIntegrationTests {
+
+  @Autowired private BookService bookService;
+  @Autowired private BookRepository bookRepository;
+  @Autowired private StudentService studentService;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void whenBookIsFoundTwice_ThenSecondLookupIsAHit() {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+
+    bookService.findById(savedBookDto.getId());
+    // Written around the service, so only a cached book still shows the old stock
+    var bookEntity = bookRepository.findById(savedBookDto.getId()).orElseThrow();
+    bookEntity.setStock(15);
+    bookRepository.save(bookEntity);
+    var cachedBookDto = bookService.findById(savedBookDto.getId());
+
+    assertThat(cachedBookDto.getStock()).isEqualTo(savedBookDto.getStock());
+    assertThat(cacheGets(CacheConfig.BOOK_CACHE, "miss")).isEqualTo(1);
+    assertThat(cacheGets(CacheConfig.BOOK_CACHE, "hit")).isEqualTo(1);
+  }
+
+  @Test
+  void whenBookChangesThroughService_ThenCachedBookIsEvicted() {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+    bookService.findById(bookId);
+
+    bookService.decrementBookStock(bookId);
+    assertThat(bookService.findById(bookId).getStock()).isEqualTo(9);
+
+    bookService.incrementBookStock(bookId, 3);
+    assertThat(bookService.findById(bookId).getStock()).isEqualTo(12);
+
+    bookService.partialUpdate(bookId, BookDto.builder().title("Animal Farm").build());
+    assertThat(bookService.findById(bookId).getTitle()).isEqualTo("Animal Farm");
+
+    bookService.delete(bookId);
+    assertThrows(BookNotFoundException.class, () -> bookService.findById(bookId));
+  }
+
+  @Test
+  void whenCachedBookIsModifiedByCaller_ThenCacheIsUnaffected() {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+
+    bookService.findById(bookId).setTitle("Changed by the caller");
+
+    assertThat(bookService.findById(bookId).getTitle()).isEqualTo("1984");
+  }
+
+  @Test
+  void whenStudentIsUpdated_ThenCachedStudentIsEvicted() {
+    var studentId = studentService.save(TestDataUtil.createSingleTestStudentDto()).id();
+    studentService.findById(studentId);
+
+    studentService.partialUpdate(studentId, StudentDto.builder().lastName("Badger").build());
+
+    assertThat(studentService.findById(studentId).lastName()).isEqualTo("Badger");
+    assertThat(cacheGets(CacheConfig.STUDENT_CACHE, "miss")).isEqualTo(2);
+  }
+
+  @Test
+  void whenMissesOnOneKeyRunConcurrently_ThenValueIsLoadedOnce() throws Exception {
+    var cache =
+        new ReadThroughCache<String>(
+            cacheManager, CacheConfig.BOOK_CACHE, UnaryOperator.identity());
+    var threads = 8;
+    var loads = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(threads);
+    try {
+      var futures = new ArrayList<Future<String>>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return cache.get(
+                      -1L,
+                      () -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return "loaded";
+                      });
+                }));
+      }
+      start.countDown();
+      for (var future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("loaded");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(loads).hasValue(1);
+  }
+
+  private double cacheGets(String cacheName, String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tags("cache", cacheName, "result", result)
+        .functionCounter()
+        .count();
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,17 +1,25 @@
 package io.bartmilo.student.enrolment.app.domain.book;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookPopularityTracker;
 import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -27,6 +35,9 @@ class BookControllerIntegrationTests {
   @Autowired private ObjectMapper objectMapper;
   @Autowired private BookMapper bookMapper;
   @Autowired private BookService bookService;
+  @Autowired private StudentService studentService;
+  @Autowired private RentalService rentalService;
+  @Autowired private BookPopularityTracker bookPopularityTracker;
 
   @Test
   void testThatCreateBook_ReturnsHttpStatus201Created() throws Exception {
@@ -257,4 +268,240 @@ class BookControllerIntegrationTests {
         .perform(delete("/books/{id}", 999).contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isNotFound());
   }
+
+  @Test
+  void testGetPopularBooks_ReturnsMostRentedBooksOfWindow() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+    rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    bookPopularityTracker.flush();
+
+    mockMvc
+        .perform(get("/books/popular").param("window", "7d"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].bookId").value(savedBookDto.getId()))
+        .andExpect(jsonPath("$[0].title").value(savedBookDto.getTitle()))
+        .andExpect(jsonPath("$[0].rentals").value(2))
+        .andExpect(jsonPath("$[0].activeRentals").value(2));
+  }
+
+  @Test
+  void testGetPopularBooksOfUnknownWindow_ReturnsHttpStatus400BadRequest() throws Exception {
+    mockMvc.perform(get("/books/popular").param("window", "1y")).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testSearchBooks_ReturnsMatchingBooks() throws Exception {
+    var bookDtoList =
+        TestDataUtil.createListOfTestBookDto().stream().map(bookService::save).toList();
+
+    mockMvc
+        .perform(get("/books/search").param("q", "mocking"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].bookId").value(bookDtoList.get(2).getId()))
+        .andExpect(jsonPath("$[0].title").value(bookDtoList.get(2).getTitle()))
+        .andExpect(jsonPath("$[0].bookAuthor").value(bookDtoList.get(2).getBookAuthor()));
+  }
+
+  @Test
+  void testSearchBooksWithBlankQuery_ReturnsHttpStatus400BadRequest() throws Exception {
+    mockMvc.perform(get("/books/search").param("q", " ")).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testImportBooks_ReturnsImportSummary() throws Exception {
+    bookService.save(TestDataUtil.createSingleTestBookDto());
+    var csv = "title,bookAuthor,isbn,stock\nDune,Frank Herbert,111,2\n1984,Orwell,222,1\n";
+
+    mockMvc
+        .perform(post("/books/import").contentType("text/csv").content(csv))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.inserted").value(1))
+        .andExpect(jsonPath("$.skipped").value(1))
+        .andExpect(jsonPath("$.rejected").value(0))
+        .andExpect(jsonPath("$.skippedRows[0].line").value(3))
+        .andExpect(jsonPath("$.skippedRows[0].reason").value("Duplicate title"));
+  }
+
+  @Test
+  void testImportBooks_ListsImportedBooksInStockAsAvailable() throws Exception {
+    var csv = "title,bookAuthor,isbn,stock\nDune,Frank Herbert,111,2\n1984,Orwell,222,0\n";
+
+    mockMvc
+        .perform(post("/books/import").contentType("text/csv").content(csv))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/books").param("available", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].title").value("Dune"));
+  }
+
+  @Test
+  void testImportBooksWithoutRequiredColumn_ReturnsHttpStatus400BadRequest() throws Exception {
+    mockMvc
+        .perform(post("/books/import").contentType("text/csv").content("title,isbn\nDune,111\n"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testGetBookWithMatchingETag_ReturnsHttpStatus304UntilStockChanges() throws Exception {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var eTag =
+        mockMvc
+            .perform(get("/books/{id}", savedBookDto.getId()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(get("/books/{id}", savedBookDto.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+
+    bookService.decrementBookStock(savedBookDto.getId());
+
+    mockMvc
+        .perform(get("/books/{id}", savedBookDto.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+        .andExpect(jsonPath("$.stock").value(savedBookDto.getStock() - 1));
+  }
+
+  @Test
+  void testUpdateBookWithIfMatch_RejectsStaleETag() throws Exception {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var eTag =
+        mockMvc
+            .perform(get("/books/{id}", savedBookDto.getId()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(
+            put("/books/{id}", savedBookDto.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Animal Farm\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.title").value("Animal Farm"));
+    mockMvc
+        .perform(
+            put("/books/{id}", savedBookDto.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Homage to Catalonia\"}"))
+        .andExpect(status().isPreconditionFailed());
+
+    assertThat(bookService.findById(savedBookDto.getId()).getTitle()).isEqualTo("Animal Farm");
+  }
+
+  @Test
+  void testGetAvailableBooks_SkipsBooksOutOfStock() throws Exception {
+    var bookDtoList =
+        TestDataUtil.createListOfTestBookDto().stream().map(bookService::save).toList();
+    bookService.partialUpdate(bookDtoList.get(0).getId(), BookDto.builder().stock(0).build());
+
+    mockMvc
+        .perform(get("/books").param("available", "true").param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(bookDtoList.get(1).getId()))
+        .andExpect(jsonPath("$.hasNext").value(true));
+    mockMvc
+        .perform(get("/books").param("available", "true").param("author", "harper lee"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].title").value(bookDtoList.get(2).getTitle()))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void testGetBookByIsbn_ReturnsBook() throws Exception {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+
+    mockMvc
+        .perform(get("/books/isbn/{isbn}", savedBookDto.getIsbn()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(savedBookDto.getId()))
+        .andExpect(jsonPath("$.title").value(savedBookDto.getTitle()));
+    mockMvc.perform(get("/books/isbn/{isbn}", "0000000000")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testGetBookByIsbn_AfterIsbnChangeOrDelete_IsNotServedFromStaleCache() throws Exception {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var oldIsbn = savedBookDto.getIsbn();
+    mockMvc.perform(get("/books/isbn/{isbn}", oldIsbn)).andExpect(status().isOk());
+
+    bookService.partialUpdate(
+        savedBookDto.getId(), BookDto.builder().isbn("978-0000000001").build());
+
+    mockMvc.perform(get("/books/isbn/{isbn}", oldIsbn)).andExpect(status().isNotFound());
+    mockMvc
+        .perform(get("/books/isbn/{isbn}", "978-0000000001"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(savedBookDto.getId()));
+
+    bookService.delete(savedBookDto.getId());
+
+    mockMvc
+        .perform(get("/books/isbn/{isbn}", "978-0000000001"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testGetBooksInKeysetMode_PagesThroughBooksById() throws Exception {
+    var bookDtoList =
+        TestDataUtil.createListOfTestBookDto().stream().map(bookService::save).toList();
+
+    var firstPage =
+        mockMvc
+            .perform(get("/books").param("after", "").param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].id").value(bookDtoList.get(0).getId()))
+            .andExpect(jsonPath("$.content[1].id").value(bookDtoList.get(1).getId()))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andReturn();
+    var nextCursor =
+        objectMapper
+            .readTree(firstPage.getResponse().getContentAsString())
+            .get("nextCursor")
+            .asText();
+
+    mockMvc
+        .perform(get("/books").param("after", nextCursor).param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(bookDtoList.get(2).getId()))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void testGetBooksInKeysetModeByTitle_ReturnsBooksInTitleOrder() throws Exception {
+    TestDataUtil.createListOfTestBookDto().forEach(bookService::save);
+
+    mockMvc
+        .perform(get("/books").param("after", "").param("sort", "title"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].title").value("1984"))
+        .andExpect(jsonPath("$.content[1].title").value("Pride and Prejudice"))
+        .andExpect(jsonPath("$.content[2].title").value("To Kill a Mockingbird"))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void testGetBooksInKeysetModeWithInvalidCursor_ReturnsHttpStatus400BadRequest()
+      throws Exception {
+    mockMvc
+        .perform(get("/books").param("after", "not a cursor"))
+        .andExpect(status().isBadRequest());
+  }
 }
@@ -0,0 +1,134 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookResponse;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookAvailabilityIndexIntegrationTests {
+
+  @Autowired private BookAvailabilityIndex bookAvailabilityIndex;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private BookRepository bookRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void whenLastCopyIsRentedAndReturned_ThenIndexFollows() {
+    var bookDto = saveBook("1984", "George Orwell", 1);
+    assertThat(bookAvailabilityIndex.isAvailable(bookDto.getId())).isTrue();
+
+    bookService.decrementBookStock(bookDto.getId());
+    assertThat(bookAvailabilityIndex.isAvailable(bookDto.getId())).isFalse();
+
+    bookService.incrementBookStock(bookDto.getId());
+    assertThat(bookAvailabilityIndex.isAvailable(bookDto.getId())).isTrue();
+
+    bookService.delete(bookDto.getId());
+    assertThat(bookAvailabilityIndex.isAvailable(bookDto.getId())).isFalse();
+    assertThat(bookAvailabilityIndex.count()).isZero();
+  }
+
+  @Test
+  void whenBatchTakesLastCopy_ThenOnlyThatBookLeavesIndex() {
+    var lastCopy = saveBook("1984", "George Orwell", 1);
+    var manyCopies = saveBook("Animal Farm", "George Orwell", 5);
+
+    bookService.decrementBookStocks(List.of(lastCopy.getId(), manyCopies.getId()));
+
+    assertThat(bookAvailabilityIndex.isAvailable(lastCopy.getId())).isFalse();
+    assertThat(bookAvailabilityIndex.isAvailable(manyCopies.getId())).isTrue();
+  }
+
+  @Test
+  void whenTransactionRollsBack_ThenIndexIsUnchanged() {
+    var bookDto = saveBook("1984", "George Orwell", 1);
+
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              bookService.decrementBookStock(bookDto.getId());
+              status.setRollbackOnly();
+            });
+
+    assertThat(bookAvailabilityIndex.isAvailable(bookDto.getId())).isTrue();
+  }
+
+  @Test
+  void whenListingAvailableBooks_ThenOutOfStockBooksAreSkippedAndFiltersApply() {
+    var nineteenEightyFour = saveBook("1984", "George Orwell", 2);
+    saveBook("Homage to Catalonia", "George Orwell", 0);
+    var animalFarm = saveBook("Animal Farm", "George Orwell", 3);
+    var pride = saveBook("Pride and Prejudice", "Jane Austen", 4);
+
+    var firstPage = bookService.findAvailableResponses(null, 2, null, null);
+    assertThat(bookIds(firstPage.content()))
+        .containsExactly(nineteenEightyFour.getId(), animalFarm.getId());
+    assertThat(firstPage.hasNext()).isTrue();
+    var lastPage = bookService.findAvailableResponses(firstPage.nextCursor(), 2, null, null);
+    assertThat(bookIds(lastPage.content())).containsExactly(pride.getId());
+    assertThat(lastPage.hasNext()).isFalse();
+
+    var byAuthor = bookService.findAvailableResponses(null, 10, "george orwell", null);
+    assertThat(bookIds(byAuthor.content()))
+        .containsExactly(nineteenEightyFour.getId(), animalFarm.getId());
+    var byAuthorAndTitle = bookService.findAvailableResponses(null, 10, "George Orwell", "ANIMAL");
+    assertThat(bookIds(byAuthorAndTitle.content())).containsExactly(animalFarm.getId());
+    assertThat(bookService.findAvailableResponses(null, 10, "Harper Lee", null).content()).isEmpty();
+  }
+
+  @Test
+  void whenFilteredListIsPaged_ThenTitleIsMatchedLiterallyAndPagesSeekFromTheCursor() {
+    var percent = saveBook("100% Wolf", "Jayne Lyons", 1);
+    saveBook("1000 Years", "Jayne Lyons", 1);
+    var underscore = saveBook("1_2 Buckle", "Jayne Lyons", 1);
+    saveBook("100% Wolf Returns", "Jayne Lyons", 0);
+    var sequel = saveBook("100% Wolf Forever", "Jayne Lyons", 2);
+
+    assertThat(bookIds(bookService.findAvailableResponses(null, 10, null, "1_").content()))
+        .containsExactly(underscore.getId());
+    var firstPage = bookService.findAvailableResponses(null, 1, "jayne lyons", "100%");
+    assertThat(bookIds(firstPage.content())).containsExactly(percent.getId());
+    assertThat(firstPage.hasNext()).isTrue();
+    var lastPage =
+        bookService.findAvailableResponses(firstPage.nextCursor(), 1, "jayne lyons", "100%");
+    assertThat(bookIds(lastPage.content())).containsExactly(sequel.getId());
+    assertThat(lastPage.hasNext()).isFalse();
+  }
+
+  @Test
+  void whenRebuilt_ThenBooksWrittenAroundTheServiceAreFound() {
+    var bookEntity = bookRepository.save(TestDataUtil.createSingleTestBookEntity());
+    assertThat(bookAvailabilityIndex.isAvailable(bookEntity.getId())).isFalse();
+
+    bookAvailabilityIndex.rebuild();
+
+    assertThat(bookAvailabilityIndex.isAvailable(bookEntity.getId())).isTrue();
+  }
+
+  private BookDto saveBook(String title, String bookAuthor, int stock) {
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setTitle(title);
+    bookDto.setBookAuthor(bookAuthor);
+    bookDto.setIsbn(title);
+    bookDto.setStock(stock);
+    return bookService.save(bookDto);
+  }
+
+  private static List<Long> bookIds(List<BookResponse> bookResponseList) {
+    return bookResponseList.stream().map(BookResponse::id).toList();
+  }
+}
@@ -0,0 +1,121 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportFormat;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookImportIssue;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(properties = "app.book.import.chunk-size=2")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookImportServiceIntegrationTests {
+
+  @Autowired private BookImportService bookImportService;
+
+  @Autowired private BookRepository bookRepository;
+
+  @Autowired private BookSearchEngine bookSearchEngine;
+
+  @Test
+  void whenCsvIsImported_ThenValidRowsAreInsertedAndOthersReported() {
+    bookRepository.save(TestDataUtil.createSingleTestBookEntity());
+    var csv =
+        """
+        ISBN,Title,book_author,stock,createdAt
+        111,"Dune, Deluxe Edition",Frank Herbert,3,2024-01-02T10:15:30
+        222,"The ""Hobbit""\",J.R.R. Tolkien,,2024-02-03
+        333,"Multi
+        Line",Some Author,1,
+        444,Dune Again,Frank Herbert,-1,
+        555,1984,Someone Else,1,
+        222,Another Hobbit,Tolkien,1,
+
+        666,Too Few Fields
+        777,Emma,Jane Austen,many,
+        888,Emma,Jane Austen,2,
+        """;
+
+    var response = bookImportService.importBooks(body(csv), BookImportFormat.CSV);
+
+    assertThat(response.inserted()).isEqualTo(4);
+    assertThat(response.skipped()).isEqualTo(2);
+    assertThat(response.rejected()).isEqualTo(3);
+    assertThat(response.skippedRows())
+        .containsExactly(
+            new BookImportIssue(7, "Duplicate title"), new BookImportIssue(8, "Duplicate ISBN"));
+    assertThat(response.rejectedRows())
+        .extracting(BookImportIssue::line)
+        .containsExactly(6L, 10L, 11L);
+
+    var dune = bookRepository.findByIsbn("111").orElseThrow();
+    assertThat(dune.getTitle()).isEqualTo("Dune, Deluxe Edition");
+    assertThat(dune.getStock()).isEqualTo(3);
+    assertThat(dune.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 1, 2, 10, 15, 30));
+    var hobbit = bookRepository.findByIsbn("222").orElseThrow();
+    assertThat(hobbit.getTitle()).isEqualTo("The \"Hobbit\"");
+    assertThat(hobbit.getStock()).isZero();
+    assertThat(hobbit.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 2, 3, 0, 0));
+    assertThat(bookRepository.findByIsbn("333").map(BookEntity::getTitle)).contains("Multi\nLine");
+    assertThat(bookRepository.findByIsbn("888")).isPresent();
+    assertThat(bookRepository.count()).isEqualTo(5);
+  }
+
+  @Test
+  void whenNdjsonIsImported_ThenMalformedLinesAreRejected() {
+    var ndjson =
+        """
+        {"title": "Dune", "bookAuthor": "Frank Herbert", "isbn": "111", "stock": 2}
+        {"title": "Broken", "bookAuthor":
+        ["not", "an", "object"]
+        {"title": "Emma", "bookAuthor": "Jane Austen"}
+        {"title": "Emma", "bookAuthor": "Jane Austen", "isbn": "222", "createdAt": "2024-03-04"}
+        """;
+
+    var response = bookImportService.importBooks(body(ndjson), BookImportFormat.NDJSON);
+
+    assertThat(response.inserted()).isEqualTo(2);
+    assertThat(response.skipped()).isZero();
+    assertThat(response.rejectedRows())
+        .extracting(BookImportIssue::line)
+        .containsExactly(2L, 3L, 4L);
+    assertThat(response.rejectedRows().get(2).reason()).isEqualTo("Missing isbn");
+    assertThat(bookRepository.findByIsbn("111").map(BookEntity::getStock)).contains(2);
+  }
+
+  @Test
+  void whenBooksAreImported_ThenTheyAreSearchable() {
+    var csv = "title,bookAuthor,isbn\nDune,Frank Herbert,111\nEmma,Jane Austen,222\n";
+
+    bookImportService.importBooks(body(csv), BookImportFormat.CSV);
+
+    assertThat(bookSearchEngine.search("herbert", 10))
+        .extracting(BookSearchResponse::title)
+        .containsExactly("Dune");
+  }
+
+  @Test
+  void whenCsvHeaderMissesColumn_ThenImportIsRefused() {
+    var csv = "title,isbn\nDune,111\n";
+
+    assertThatThrownBy(() -> bookImportService.importBooks(body(csv), BookImportFormat.CSV))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("bookauthor");
+    assertThat(bookRepository.count()).isZero();
+  }
+
+  private static InputStream body(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,119 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookPopularityResponse;
+import io.bartmilo.student.enrolment.app.domain.book.model.PopularityWindow;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRentalStatsRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalActivityEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(properties = "app.book.popularity.flush-interval-ms=3600000")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookPopularityTrackerIntegrationTests {
+
+  @Autowired private BookPopularityTracker bookPopularityTracker;
+
+  @Autowired private BookRentalStatsRepository bookRentalStatsRepository;
+
+  @Autowired private RentalService rentalService;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private StudentService studentService;
+
+  @Test
+  void whenRentalsAreFlushed_ThenBooksAreRankedByRentals() {
+    var bookIds = rentAndReturn();
+
+    bookPopularityTracker.flush();
+
+    assertRanking(bookPopularityTracker.findTopBooks(PopularityWindow.LAST_7_DAYS, 10), bookIds);
+    assertRanking(bookPopularityTracker.findTopBooks(PopularityWindow.ALL_TIME, 10), bookIds);
+    assertThat(bookPopularityTracker.findTopBooks(PopularityWindow.LAST_30_DAYS, 1)).hasSize(1);
+  }
+
+  @Test
+  void whenFlushedTwice_ThenActivityIsCountedOnce() {
+    var bookIds = rentAndReturn();
+
+    bookPopularityTracker.flush();
+    bookPopularityTracker.flush();
+
+    var popularBook = bookRentalStatsRepository.findById(bookIds.get(0)).orElseThrow();
+    assertThat(popularBook.getTotalRentals()).isEqualTo(3);
+    assertThat(popularBook.getActiveRentals()).isEqualTo(2);
+  }
+
+  @Test
+  void whenRebuilt_ThenAggregatesMatchIncrementalOnes() {
+    var bookIds = rentAndReturn();
+    bookPopularityTracker.flush();
+    bookRentalStatsRepository.deleteAll();
+
+    bookPopularityTracker.rebuild();
+
+    assertRanking(bookPopularityTracker.findTopBooks(PopularityWindow.LAST_7_DAYS, 10), bookIds);
+    assertRanking(bookPopularityTracker.findTopBooks(PopularityWindow.ALL_TIME, 10), bookIds);
+  }
+
+  @Test
+  void whenActivityIsQueuedAroundRebuild_ThenOnlyLaterActivityIsAppliedOnTop() {
+    var bookIds = rentAndReturn();
+    // Stands for a rental committed while the rebuild runs, after it read the rental table
+    bookPopularityTracker.onRentalActivity(
+        new RentalActivityEvent(
+            RentalEvent.RENTED,
+            List.of(
+                RentalEvent.builder()
+                    .rentalId(999L)
+                    .bookId(bookIds.get(1))
+                    .occurredAt(LocalDateTime.now().plusMinutes(1))
+                    .build())));
+
+    bookPopularityTracker.rebuild();
+    bookPopularityTracker.flush();
+
+    var popularBook = bookRentalStatsRepository.findById(bookIds.get(0)).orElseThrow();
+    assertThat(popularBook.getTotalRentals()).isEqualTo(3);
+    assertThat(popularBook.getActiveRentals()).isEqualTo(2);
+    var otherBook = bookRentalStatsRepository.findById(bookIds.get(1)).orElseThrow();
+    assertThat(otherBook.getTotalRentals()).isEqualTo(2);
+    assertThat(otherBook.getActiveRentals()).isEqualTo(2);
+  }
+
+  /** Rents the first book three times and returns one copy, rents the second book once. */
+  private List<Long> rentAndReturn() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDtoList = TestDataUtil.createListOfTestBookDto();
+    var popularBookId = bookService.save(bookDtoList.get(0)).getId();
+    var otherBookId = bookService.save(bookDtoList.get(1)).getId();
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var rentalDtoList =
+        List.of(
+            rentalService.rentBook(popularBookId, savedStudentDto.id(), dueDate),
+            rentalService.rentBook(popularBookId, savedStudentDto.id(), dueDate),
+            rentalService.rentBook(popularBookId, savedStudentDto.id(), dueDate));
+    rentalService.rentBook(otherBookId, savedStudentDto.id(), dueDate);
+    rentalService.returnBooks(List.of(rentalDtoList.get(0).getId()));
+    return List.of(popularBookId, otherBookId);
+  }
+
+  private static void assertRanking(List<BookPopularityResponse> ranking, List<Long> bookIds) {
+    assertThat(ranking)
+        .extracting(BookPopularityResponse::bookId)
+        .containsExactlyElementsOf(bookIds);
+    assertThat(ranking).extracting(BookPopularityResponse::rentals).containsExactly(3L, 1L);
+    assertThat(ranking).extracting(BookPopularityResponse::activeRentals).containsExactly(2L, 1L);
+  }
+}
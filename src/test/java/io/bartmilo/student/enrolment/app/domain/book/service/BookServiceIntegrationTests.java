@@ -9,6 +9,11 @@ import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.book.exception.BookNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
@@ -17,6 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
@@ -25,11 +32,16 @@ class BookServiceIntegrationTests {
 
   private final BookService bookService;
   private final BookMapper bookMapper;
+  private final TransactionTemplate transactionTemplate;
 
   @Autowired
-  public BookServiceIntegrationTests(BookService bookService, BookMapper bookMapper) {
+  public BookServiceIntegrationTests(
+      BookService bookService,
+      BookMapper bookMapper,
+      PlatformTransactionManager transactionManager) {
     this.bookService = bookService;
     this.bookMapper = bookMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   @Test
@@ -123,4 +135,51 @@ class BookServiceIntegrationTests {
     Executable executable = () -> bookService.findById(savedBookDto.getId());
     assertThrows(BookNotFoundException.class, executable);
   }
+
+  @Test
+  void whenBatchesTakeSharedBooksInOppositeOrder_ThenBothComplete() throws Exception {
+    var bookEntityList = TestDataUtil.createListOfTestBookEntity();
+    var lowId = bookService.save(bookMapper.convertEntityToDto(bookEntityList.get(0))).getId();
+    var highId = bookService.save(bookMapper.convertEntityToDto(bookEntityList.get(1))).getId();
+    var lowLocked = new CountDownLatch(1);
+    var resumed = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(2);
+
+    // The first batch takes its books one at a time, so the second starts in between
+    var ascending =
+        executor.submit(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                      var first = bookService.decrementBookStocks(List.of(lowId));
+                      lowLocked.countDown();
+                      await(resumed);
+                      return List.of(first[0], bookService.decrementBookStocks(List.of(highId))[0]);
+                    }));
+    await(lowLocked);
+    var descending =
+        executor.submit(
+            () ->
+                transactionTemplate.execute(
+                    status -> bookService.decrementBookStocks(List.of(highId, lowId, highId))));
+    executor.shutdown();
+    assertThrows(TimeoutException.class, () -> descending.get(500, TimeUnit.MILLISECONDS));
+    resumed.countDown();
+
+    assertThat(ascending.get(1, TimeUnit.MINUTES)).containsExactly(true, true);
+    assertThat(descending.get(1, TimeUnit.MINUTES)).containsExactly(true, true, true);
+    assertThat(bookService.findById(lowId).getStock())
+        .isEqualTo(bookEntityList.get(0).getStock() - 2);
+    assertThat(bookService.findById(highId).getStock())
+        .isEqualTo(bookEntityList.get(1).getStock() - 3);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(1, TimeUnit.MINUTES)).isTrue();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
 }
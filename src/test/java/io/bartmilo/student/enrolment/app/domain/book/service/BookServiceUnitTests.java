@@ -7,10 +7,16 @@ import static org.mockito.Mockito.*;
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.book.exception.BookNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookChangedEvent;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
 import io.bartmilo.student.enrolment.app.domain.book.model.BookEntity;
 import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +24,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
@@ -26,13 +34,25 @@ class BookServiceUnitTests {
 
   @Mock private BookRepository bookRepositoryMock;
   @Mock private BookMapper bookMapperMock;
+  @Mock private ApplicationEventPublisher applicationEventPublisherMock;
+  @Mock private BookAvailabilityIndex bookAvailabilityIndexMock;
   @Captor private ArgumentCaptor<BookEntity> bookEntityArgumentCaptor;
 
+  private BookIsbnCache bookIsbnCache;
   private BookService bookService;
 
   @BeforeEach
   void setUp() {
-    this.bookService = new BookServiceImpl(bookRepositoryMock, bookMapperMock);
+    this.bookIsbnCache = new BookIsbnCache(100, Duration.ofMinutes(1));
+    this.bookService =
+        new BookServiceImpl(
+            bookRepositoryMock,
+            bookMapperMock,
+            Optional.empty(),
+            applicationEventPublisherMock,
+            bookIsbnCache,
+            new NoOpCacheManager(),
+            bookAvailabilityIndexMock);
   }
 
   @Test
@@ -46,6 +66,7 @@ class BookServiceUnitTests {
     var savedBookDto = bookService.save(bookDto);
 
     verify(bookRepositoryMock).save(bookEntity);
+    verify(applicationEventPublisherMock).publishEvent(BookChangedEvent.created(bookDto));
     assertAll(
         () -> assertThat(savedBookDto).isEqualTo(bookDto),
         () -> assertThat(savedBookDto.getTitle()).isEqualTo(bookDto.getTitle()),
@@ -112,6 +133,70 @@ class BookServiceUnitTests {
     assertThat(result).isEqualTo(bookDto);
   }
 
+  @Test
+  void whenFindByIsbnTwice_ThenSecondLookupIsServedFromCache() {
+    var bookEntity = TestDataUtil.createSingleTestBookEntity();
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setId(1L);
+    var isbn = bookDto.getIsbn();
+    when(bookRepositoryMock.findByIsbn(isbn)).thenReturn(Optional.of(bookEntity));
+    when(bookMapperMock.convertEntityToDto(bookEntity)).thenReturn(bookDto);
+
+    var firstResult = bookService.findByIsbn(isbn);
+    var secondResult = bookService.findByIsbn(isbn);
+
+    verify(bookRepositoryMock, times(1)).findByIsbn(isbn);
+    assertThat(firstResult).isEqualTo(bookDto);
+    assertThat(secondResult).isEqualTo(bookDto).isNotSameAs(firstResult);
+  }
+
+  @Test
+  void whenIsbnChangesWhileLookupLoadsTheOldRow_ThenLoadedBookIsNotServedAfterwards()
+      throws Exception {
+    var bookEntity = TestDataUtil.createSingleTestBookEntity();
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setId(1L);
+    var oldIsbn = bookDto.getIsbn();
+    var loading = new CountDownLatch(1);
+    var committed = new CountDownLatch(1);
+    when(bookRepositoryMock.findByIsbn(oldIsbn))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              assertTrue(committed.await(1, TimeUnit.MINUTES));
+              return Optional.of(bookEntity);
+            })
+        .thenReturn(Optional.empty());
+    when(bookMapperMock.convertEntityToDto(bookEntity)).thenReturn(bookDto);
+    var executor = Executors.newFixedThreadPool(2);
+
+    var lookup = executor.submit(() -> bookService.findByIsbn(oldIsbn));
+    assertTrue(loading.await(1, TimeUnit.MINUTES));
+    var updatedBookDto = bookDto.toBuilder().isbn("978-0000000001").build();
+    var invalidation =
+        executor.submit(
+            () -> bookIsbnCache.onBookChanged(BookChangedEvent.updated(updatedBookDto, oldIsbn)));
+    executor.shutdown();
+    // Waits for the running load instead of missing the entry it is about to add
+    assertThrows(TimeoutException.class, () -> invalidation.get(200, TimeUnit.MILLISECONDS));
+    committed.countDown();
+
+    assertThat(lookup.get(1, TimeUnit.MINUTES)).isEqualTo(bookDto);
+    invalidation.get(1, TimeUnit.MINUTES);
+    assertThrows(BookNotFoundException.class, () -> bookService.findByIsbn(oldIsbn));
+    verify(bookRepositoryMock, times(2)).findByIsbn(oldIsbn);
+  }
+
+  @Test
+  void whenFindByUnknownIsbn_ThenThrowBookNotFoundExceptionAndDoNotCacheTheMiss() {
+    when(bookRepositoryMock.findByIsbn("unknown")).thenReturn(Optional.empty());
+
+    assertThrows(BookNotFoundException.class, () -> bookService.findByIsbn("unknown"));
+    assertThrows(BookNotFoundException.class, () -> bookService.findByIsbn("unknown"));
+
+    verify(bookRepositoryMock, times(2)).findByIsbn("unknown");
+  }
+
   @Test
   void whenCheckIfBookExists_ThenReturnTrueOrFalse() {
     var bookId = 1L;
@@ -132,13 +217,13 @@ class BookServiceUnitTests {
     bookDto.setTitle("UPDATED TITLE");
 
     when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.of(existingBookEntity));
-    when(bookRepositoryMock.save(any(BookEntity.class))).thenReturn(existingBookEntity);
+    when(bookRepositoryMock.saveAndFlush(any(BookEntity.class))).thenReturn(existingBookEntity);
     when(bookMapperMock.convertEntityToDto(existingBookEntity)).thenReturn(bookDto);
 
     bookService.partialUpdate(bookId, bookDto);
 
     verify(bookRepositoryMock).findById(bookId);
-    verify(bookRepositoryMock).save(bookEntityArgumentCaptor.capture());
+    verify(bookRepositoryMock).saveAndFlush(bookEntityArgumentCaptor.capture());
     verify(bookMapperMock).convertEntityToDto(existingBookEntity);
     assertThat(bookEntityArgumentCaptor.getValue().getTitle()).isEqualTo("UPDATED TITLE");
   }
@@ -159,17 +244,18 @@ class BookServiceUnitTests {
     var bookId = 1L;
     var decrementAmount = 1;
     var bookEntity = TestDataUtil.createSingleTestBookEntity();
-    bookEntity.setStock(10);  // Initial stock
+    bookEntity.setStock(9); // Stock after the guarded update
     var bookDto = TestDataUtil.createSingleTestBookDto();
-    bookDto.setStock(9);  // Expected stock after decrement
+    bookDto.setStock(9);
 
+    when(bookRepositoryMock.decrementStock(bookId, decrementAmount)).thenReturn(1);
     when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.of(bookEntity));
-    when(bookRepositoryMock.save(bookEntity)).thenReturn(bookEntity);
     when(bookMapperMock.convertEntityToDto(bookEntity)).thenReturn(bookDto);
 
     var result = bookService.decrementBookStock(bookId, decrementAmount);
 
-    verify(bookRepositoryMock).save(bookEntity);
+    verify(bookRepositoryMock).decrementStock(bookId, decrementAmount);
+    verify(bookRepositoryMock, never()).save(any(BookEntity.class));
     assertThat(result.getStock()).isEqualTo(9);
     assertThat(result).isEqualTo(bookDto);
   }
@@ -179,57 +265,73 @@ class BookServiceUnitTests {
     var bookId = 1L;
     var bookEntity = new BookEntity();
     bookEntity.setId(bookId);
-    bookEntity.setStock(10);
+    bookEntity.setStock(9);
+    var bookDto = new BookDto();
+    bookDto.setId(bookId);
+    bookDto.setStock(9);
+    when(bookRepositoryMock.decrementStock(bookId, 1)).thenReturn(1);
     when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.of(bookEntity));
-    when(bookRepositoryMock.save(any(BookEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(bookMapperMock.convertEntityToDto(bookEntity)).thenReturn(bookDto);
 
-    bookService.decrementBookStock(bookId);
+    var result = bookService.decrementBookStock(bookId);
 
-    verify(bookRepositoryMock).save(bookEntityArgumentCaptor.capture());
-    var capturedBook = bookEntityArgumentCaptor.getValue();
-    assertEquals(9, capturedBook.getStock(), "The stock should be decremented by 1");
+    verify(bookRepositoryMock).decrementStock(bookId, 1);
+    assertEquals(9, result.getStock(), "The stock should be decremented by 1");
   }
 
   @Test
-  void whenReturnBookToStock_ThenStockIsIncremented() {
+  void whenDecrementBookStockOfUnavailableBook_ThenThrowIllegalArgumentException() {
     var bookId = 1L;
     var bookEntity = new BookEntity();
     bookEntity.setId(bookId);
-    bookEntity.setStock(10);
+    bookEntity.setStock(0);
+    when(bookRepositoryMock.decrementStock(bookId, 1)).thenReturn(0);
+    when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.of(bookEntity));
+
+    var exception =
+        assertThrows(IllegalArgumentException.class, () -> bookService.decrementBookStock(bookId));
+
+    assertEquals("Book is not available for rent.", exception.getMessage());
+  }
+
+  @Test
+  void whenDecrementBookStockOfMissingBook_ThenThrowBookNotFoundException() {
+    var bookId = 1L;
+    when(bookRepositoryMock.decrementStock(bookId, 1)).thenReturn(0);
+    when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.empty());
+
+    assertThrows(BookNotFoundException.class, () -> bookService.decrementBookStock(bookId));
+  }
 
+  @Test
+  void whenReturnBookToStock_ThenStockIsIncremented() {
+    var bookId = 1L;
     var bookDto = new BookDto();
     bookDto.setId(bookId);
     bookDto.setStock(10);
-
-    when(bookMapperMock.convertDtoToEntity(any(BookDto.class))).thenReturn(bookEntity);
-    when(bookRepositoryMock.save(any(BookEntity.class))).thenReturn(bookEntity);
+    when(bookRepositoryMock.incrementStock(bookId, 1)).thenReturn(1);
 
     bookService.returnBookToStock(bookDto);
 
-    var bookEntityCaptor = ArgumentCaptor.forClass(BookEntity.class);
-    verify(bookRepositoryMock).save(bookEntityCaptor.capture());
-    var savedBook = bookEntityCaptor.getValue();
-    assertThat(savedBook.getStock()).isEqualTo(11);
+    verify(bookRepositoryMock).incrementStock(bookId, 1);
+    verify(bookRepositoryMock, never()).save(any(BookEntity.class));
   }
 
   @Test
   void testIncrementBookStock() {
     var bookId = 1L;
-    var book = new BookEntity();
-    book.setId(bookId);
-    book.setStock(5);
-    when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.of(book));
+    when(bookRepositoryMock.incrementStock(bookId, 1)).thenReturn(1);
 
     bookService.incrementBookStock(bookId);
 
-    verify(bookRepositoryMock).save(book);
-    assertEquals(6, book.getStock(), "The stock should be incremented by 1");
+    verify(bookRepositoryMock).incrementStock(bookId, 1);
+    verify(bookRepositoryMock, never()).findById(bookId);
   }
 
   @Test
   void testIncrementBookStock_BookNotFound() {
     var bookId = 1L;
-    when(bookRepositoryMock.findById(bookId)).thenReturn(Optional.empty());
+    when(bookRepositoryMock.incrementStock(bookId, 1)).thenReturn(0);
 
     var exception = assertThrows(BookNotFoundException.class, () -> {
       bookService.incrementBookStock(bookId);
@@ -0,0 +1,289 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookStockJournalEntity;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookStockJournalRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.exception.StudentNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = "app.book.stock-ledger.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookStockLedgerIntegrationTests {
+
+  @Autowired private BookStockLedger bookStockLedger;
+  @Autowired private BookStockJournalRepository bookStockJournalRepository;
+  @Autowired private BookRepository bookRepository;
+  @Autowired private BookService bookService;
+  @Autowired private StudentService studentService;
+  @Autowired private RentalService rentalService;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void whenBookIsRented_ThenLedgerIsUpdatedAndRowCatchesUpOnFlush() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+
+    var rentalDto = rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    rentalService.returnBook(rentalDto.getId());
+
+    assertThat(bookStockLedger.available(savedBookDto.getId())).isEqualTo(9);
+    bookStockLedger.flush();
+    assertThat(bookStockJournalRepository.count()).isZero();
+    assertThat(bookRepository.findById(savedBookDto.getId()).orElseThrow().getStock()).isEqualTo(9);
+  }
+
+  @Test
+  void whenRentalRollsBack_ThenReservedCopyIsGivenBack() {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+
+    assertThrows(
+        StudentNotFoundException.class,
+        () -> rentalService.rentBook(savedBookDto.getId(), 999L, dueDate));
+
+    assertThat(bookStockLedger.available(savedBookDto.getId())).isEqualTo(10);
+    assertThat(bookStockJournalRepository.count()).isZero();
+  }
+
+  @Test
+  void whenApplicationStartsWithPendingJournal_ThenReconcileAppliesIt() {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    bookStockJournalRepository.save(
+        BookStockJournalEntity.builder()
+            .bookId(savedBookDto.getId())
+            .delta(-3)
+            .createdAt(LocalDateTime.now())
+            .build());
+
+    bookStockLedger.reconcile();
+
+    assertThat(bookRepository.findById(savedBookDto.getId()).orElseThrow().getStock()).isEqualTo(7);
+    assertThat(bookStockJournalRepository.count()).isZero();
+  }
+
+  @Test
+  void whenLastCopyIsRented_ThenNextRentalIsRefusedAndRowReachesZeroOnFlush() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(3);
+    var bookId = bookService.save(bookDto).getId();
+    var dueDate = LocalDateTime.now().plusDays(30);
+
+    for (int i = 0; i < 3; i++) {
+      rentalService.rentBook(bookId, savedStudentDto.id(), dueDate);
+    }
+    var exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> rentalService.rentBook(bookId, savedStudentDto.id(), dueDate));
+
+    assertThat(exception.getMessage()).isEqualTo("Book is not available for rent.");
+    assertThat(bookStockLedger.available(bookId)).isZero();
+    bookStockLedger.flush();
+    assertThat(bookStockJournalRepository.count()).isZero();
+    assertThat(bookRepository.findById(bookId).orElseThrow().getStock()).isZero();
+  }
+
+  @Test
+  void whenHundredsOfParallelRentalsOfOneBook_ThenLedgerNeverOversells() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(50);
+    var savedBookDto = bookService.save(bookDto);
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var attempts = 300;
+
+    var executor = Executors.newFixedThreadPool(32);
+    var rentals = new ArrayList<Callable<RentalDto>>();
+    for (int i = 0; i < attempts; i++) {
+      rentals.add(() -> rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate));
+    }
+    var results = executor.invokeAll(rentals);
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+    var successful = 0;
+    for (Future<RentalDto> result : results) {
+      try {
+        result.get();
+        successful++;
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause()).isInstanceOf(IllegalArgumentException.class);
+      }
+    }
+
+    assertThat(successful).isEqualTo(50);
+    assertThat(bookStockLedger.available(savedBookDto.getId())).isZero();
+    bookStockLedger.flush();
+    assertThat(bookRepository.findById(savedBookDto.getId()).orElseThrow().getStock()).isZero();
+  }
+
+  @Test
+  void whenCounterIsSeededWhileReleaseIsUncommitted_ThenReleasedCopiesAreAddedOnCommit()
+      throws Exception {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+
+    var release = inOpenTransaction(() -> bookStockLedger.release(bookId, 3));
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(10);
+    release.commit();
+
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(13);
+    bookStockLedger.flush();
+    assertThat(bookRepository.findById(bookId).orElseThrow().getStock()).isEqualTo(13);
+  }
+
+  @Test
+  void whenReleaseCommitsWhileCounterIsSeeded_ThenReleasedCopiesAreCountedOnce() throws Exception {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+    var seedReading = new CountDownLatch(1);
+    var seedResumed = new CountDownLatch(1);
+    var journalRepository =
+        mock(BookStockJournalRepository.class, delegatesTo(bookStockJournalRepository));
+    doAnswer(
+            invocation -> {
+              seedReading.countDown();
+              await(seedResumed);
+              return bookStockJournalRepository.findLedgerStockByBookId(bookId);
+            })
+        .when(journalRepository)
+        .findLedgerStockByBookId(bookId);
+    var ledger = new BookStockLedger(journalRepository, bookRepository, transactionManager, 100);
+
+    var executor = Executors.newFixedThreadPool(2);
+    var seed = executor.submit(() -> ledger.available(bookId));
+    await(seedReading);
+    var release =
+        executor.submit(
+            () ->
+                new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> ledger.release(bookId, 3)));
+    executor.shutdown();
+    // The release must not be journaled, let alone committed, while the seed reads the stock
+    assertThrows(TimeoutException.class, () -> release.get(500, TimeUnit.MILLISECONDS));
+    seedResumed.countDown();
+
+    assertThat(seed.get(1, TimeUnit.MINUTES)).isEqualTo(10);
+    release.get(1, TimeUnit.MINUTES);
+    assertThat(ledger.available(bookId)).isEqualTo(13);
+  }
+
+  @Test
+  void whenStockIsSetWhileReservationIsUncommitted_ThenReservedCopiesAreNotHandedOutAgain()
+      throws Exception {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+
+    var reservation =
+        inOpenTransaction(() -> assertThat(bookStockLedger.reserve(bookId, 4)).isTrue());
+    var bookDto = bookService.findById(bookId);
+    bookDto.setStock(5);
+    bookService.partialUpdate(bookId, bookDto);
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(1);
+    reservation.commit();
+
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(1);
+    bookStockLedger.flush();
+    assertThat(bookRepository.findById(bookId).orElseThrow().getStock()).isEqualTo(1);
+  }
+
+  @Test
+  void whenReservationRollsBackAfterReset_ThenCopiesAreGivenBackToTheNewCounter()
+      throws Exception {
+    var bookId = bookService.save(TestDataUtil.createSingleTestBookDto()).getId();
+
+    var reservation =
+        inOpenTransaction(() -> assertThat(bookStockLedger.reserve(bookId, 4)).isTrue());
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(status -> bookStockLedger.reset(bookId));
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(6);
+    reservation.rollback();
+
+    assertThat(bookStockLedger.available(bookId)).isEqualTo(10);
+  }
+
+  /**
+   * Runs the action in a transaction on another thread and leaves the transaction open until
+   * {@link OpenTransaction#commit} or {@link OpenTransaction#rollback} is called.
+   */
+  private OpenTransaction inOpenTransaction(Runnable action) throws Exception {
+    var executed = new CountDownLatch(1);
+    var outcome = new CountDownLatch(1);
+    var rollback = new boolean[1];
+    var executor = Executors.newSingleThreadExecutor();
+    var completion =
+        executor.submit(
+            () ->
+                new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(
+                        status -> {
+                          action.run();
+                          executed.countDown();
+                          await(outcome);
+                          if (rollback[0]) {
+                            status.setRollbackOnly();
+                          }
+                        }));
+    executor.shutdown();
+    while (!executed.await(100, TimeUnit.MILLISECONDS)) {
+      if (completion.isDone()) {
+        completion.get();
+      }
+    }
+    Consumer<Boolean> complete =
+        rollbackRequested -> {
+          rollback[0] = rollbackRequested;
+          outcome.countDown();
+          try {
+            completion.get(1, TimeUnit.MINUTES);
+          } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+          }
+        };
+    return new OpenTransaction(complete);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(1, TimeUnit.MINUTES)).isTrue();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private record OpenTransaction(Consumer<Boolean> complete) {
+    void commit() {
+      complete.accept(false);
+    }
+
+    void rollback() {
+      complete.accept(true);
+    }
+  }
+}
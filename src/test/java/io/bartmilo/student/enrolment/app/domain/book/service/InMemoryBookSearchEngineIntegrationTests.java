@@ -0,0 +1,99 @@
+package io.bartmilo.student.enrolment.app.domain.book.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookSearchResponse;
+import io.bartmilo.student.enrolment.app.domain.book.repository.BookRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class InMemoryBookSearchEngineIntegrationTests {
+
+  @Autowired private BookSearchEngine bookSearchEngine;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private BookRepository bookRepository;
+
+  @Test
+  void whenBooksAreSaved_ThenTheyAreFoundByPrefixesOfTitleAndAuthor() {
+    var bookDtoList = saveTestBooks();
+
+    assertThat(bookIds(bookSearchEngine.search("prid", 10)))
+        .containsExactly(bookDtoList.get(1).getId());
+    assertThat(bookIds(bookSearchEngine.search("Kill MOCKING", 10)))
+        .containsExactly(bookDtoList.get(2).getId());
+    assertThat(bookIds(bookSearchEngine.search("harp", 10)))
+        .containsExactly(bookDtoList.get(2).getId());
+    assertThat(bookSearchEngine.search("pride mockingbird", 10)).isEmpty();
+    assertThat(bookSearchEngine.search("  --  ", 10)).isEmpty();
+  }
+
+  @Test
+  void whenTermMatchesTitleAndAuthor_ThenTitleMatchRanksFirst() {
+    var byAuthor = saveBook("Collected Essays", "Austen Scholar");
+    var byTitle = saveBook("Austen", "Some Biographer");
+
+    var searchResponseList = bookSearchEngine.search("austen", 10);
+
+    assertThat(bookIds(searchResponseList)).containsExactly(byTitle.getId(), byAuthor.getId());
+    assertThat(searchResponseList.get(0).score()).isGreaterThan(searchResponseList.get(1).score());
+    assertThat(bookIds(bookSearchEngine.search("austen", 1))).containsExactly(byTitle.getId());
+  }
+
+  @Test
+  void whenBookIsUpdatedOrDeleted_ThenIndexFollows() {
+    var bookDtoList = saveTestBooks();
+    var bookId = bookDtoList.get(1).getId();
+
+    bookService.partialUpdate(bookId, BookDto.builder().title("Sense and Sensibility").build());
+
+    assertThat(bookSearchEngine.search("pride", 10)).isEmpty();
+    assertThat(bookSearchEngine.search("sensib", 10))
+        .singleElement()
+        .satisfies(
+            searchResponse -> {
+              assertThat(searchResponse.bookId()).isEqualTo(bookId);
+              assertThat(searchResponse.title()).isEqualTo("Sense and Sensibility");
+              assertThat(searchResponse.bookAuthor()).isEqualTo("Jane Austen");
+            });
+
+    bookService.delete(bookId);
+
+    assertThat(bookSearchEngine.search("sense", 10)).isEmpty();
+  }
+
+  @Test
+  void whenRebuilt_ThenBooksWrittenAroundTheServiceAreFound() {
+    var bookEntity = bookRepository.save(TestDataUtil.createSingleTestBookEntity());
+    assertThat(bookSearchEngine.search("orwell", 10)).isEmpty();
+
+    ((InMemoryBookSearchEngine) bookSearchEngine).rebuild();
+
+    assertThat(bookIds(bookSearchEngine.search("orwell 1984", 10)))
+        .containsExactly(bookEntity.getId());
+  }
+
+  private List<BookDto> saveTestBooks() {
+    return TestDataUtil.createListOfTestBookDto().stream().map(bookService::save).toList();
+  }
+
+  private BookDto saveBook(String title, String bookAuthor) {
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setTitle(title);
+    bookDto.setBookAuthor(bookAuthor);
+    bookDto.setIsbn(title);
+    return bookService.save(bookDto);
+  }
+
+  private static List<Long> bookIds(List<BookSearchResponse> searchResponseList) {
+    return searchResponseList.stream().map(BookSearchResponse::bookId).toList();
+  }
+}
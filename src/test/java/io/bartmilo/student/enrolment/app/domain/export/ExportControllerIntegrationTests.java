@@ -0,0 +1,130 @@
+package io.bartmilo.student.enrolment.app.domain.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+class ExportControllerIntegrationTests {
+
+  @Autowired private MockMvc mockMvc;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private BookService bookService;
+  @Autowired private StudentService studentService;
+  @Autowired private RentalService rentalService;
+
+  @Test
+  void testExportBooksAsNdjson_ReturnsOneJsonObjectPerLineInIdOrder() throws Exception {
+    var bookDtoList = saveTestBooks();
+
+    var result = performExport(get("/export/books"));
+
+    assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+    assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION))
+        .isEqualTo("attachment; filename=\"books.ndjson\"");
+    var lines = result.getResponse().getContentAsString().split("\n");
+    assertThat(lines).hasSize(bookDtoList.size());
+    for (int i = 0; i < lines.length; i++) {
+      var book = objectMapper.readTree(lines[i]);
+      assertThat(book.get("id").asLong()).isEqualTo(bookDtoList.get(i).getId());
+      assertThat(book.get("title").asText()).isEqualTo(bookDtoList.get(i).getTitle());
+    }
+  }
+
+  @Test
+  void testExportBooksAsCsv_QuotesFieldsWithSeparators() throws Exception {
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setTitle("Dune, \"Deluxe\" Edition");
+    var savedBookDto = bookService.save(bookDto);
+
+    var result = performExport(get("/export/books").param("format", "csv"));
+
+    assertThat(result.getResponse().getContentType()).isEqualTo("text/csv");
+    assertThat(result.getResponse().getContentAsString())
+        .isEqualTo(
+            "id,bookAuthor,title,isbn,createdAt,stock\n"
+                + savedBookDto.getId()
+                + ",George Orwell,\"Dune, \"\"Deluxe\"\" Edition\",978-0451524935,"
+                + "1949-06-08T00:00,10\n");
+  }
+
+  @Test
+  void testExportStudentsAndRentals_ReturnsAllRows() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var rentalDto =
+        rentalService.rentBook(
+            savedBookDto.getId(), savedStudentDto.id(), LocalDateTime.now().plusDays(30));
+
+    var students =
+        performExport(get("/export/students").param("format", "csv"))
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+    var rentals = performExport(get("/export/rentals")).getResponse().getContentAsString();
+
+    assertThat(students).hasSize(2);
+    assertThat(students[0]).isEqualTo("id,firstName,lastName,email,age,cardNumber,cardStatus");
+    assertThat(students[1]).startsWith(savedStudentDto.id() + ",Carol,Raccoon,");
+    var rental = objectMapper.readTree(rentals.strip());
+    assertThat(rental.get("id").asLong()).isEqualTo(rentalDto.getId());
+    assertThat(rental.get("bookId").asLong()).isEqualTo(savedBookDto.getId());
+    assertThat(rental.get("studentId").asLong()).isEqualTo(savedStudentDto.id());
+  }
+
+  @Test
+  void testExportWithAcceptedGzip_ReturnsCompressedBody() throws Exception {
+    saveTestBooks();
+
+    var result =
+        performExport(get("/export/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+
+    assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    var compressed = result.getResponse().getContentAsByteArray();
+    try (var gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      var body = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+      assertThat(body.split("\n")).hasSize(3);
+    }
+  }
+
+  @Test
+  void testExportOfUnknownResource_ReturnsHttpStatus400BadRequest() throws Exception {
+    mockMvc.perform(get("/export/courses")).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/export/books").param("format", "xml"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private List<BookDto> saveTestBooks() {
+    return TestDataUtil.createListOfTestBookDto().stream().map(bookService::save).toList();
+  }
+
+  private MvcResult performExport(RequestBuilder requestBuilder) throws Exception {
+    var result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+    result.getAsyncResult();
+    return result;
+  }
+}
@@ -0,0 +1,92 @@
+package io.bartmilo.student.enrolment.app.domain.hold;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldConfirmRequest;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldRequest;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldResponse;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+class BookHoldControllerIntegrationTests {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private StudentService studentService;
+
+  @Test
+  void testPlaceAndConfirmHold_ReturnsHoldThenRental() throws Exception {
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookHoldRequest =
+        BookHoldRequest.builder().studentId(savedStudentDto.id()).minutes(5).build();
+
+    var bookHoldResponseJson =
+        mockMvc
+            .perform(
+                post("/books/{bookId}/holds", savedBookDto.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(bookHoldRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.bookId").value(savedBookDto.getId()))
+            .andExpect(jsonPath("$.expiresAt").exists())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    var bookHoldResponse = objectMapper.readValue(bookHoldResponseJson, BookHoldResponse.class);
+    var bookHoldConfirmRequest =
+        BookHoldConfirmRequest.builder().dueDate(LocalDateTime.now().plusDays(30)).build();
+
+    mockMvc
+        .perform(
+            post(
+                    "/books/{bookId}/holds/{holdId}/confirm",
+                    savedBookDto.getId(),
+                    bookHoldResponse.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookHoldConfirmRequest)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.bookId").value(savedBookDto.getId()))
+        .andExpect(jsonPath("$.studentId").value(savedStudentDto.id()));
+    mockMvc
+        .perform(
+            delete(
+                "/books/{bookId}/holds/{holdId}", savedBookDto.getId(), bookHoldResponse.id()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testPlaceHoldOnMissingBook_ReturnsHttpStatus404NotFound() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookHoldRequest = BookHoldRequest.builder().studentId(savedStudentDto.id()).build();
+
+    mockMvc
+        .perform(
+            post("/books/{bookId}/holds", 999L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookHoldRequest)))
+        .andExpect(status().isNotFound());
+  }
+}
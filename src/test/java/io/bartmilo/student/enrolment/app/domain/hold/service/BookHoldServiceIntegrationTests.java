@@ -0,0 +1,154 @@
+package io.bartmilo.student.enrolment.app.domain.hold.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.model.BookDto;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.hold.exception.BookHoldNotFoundException;
+import io.bartmilo.student.enrolment.app.domain.hold.model.BookHoldEntity;
+import io.bartmilo.student.enrolment.app.domain.hold.repository.BookHoldRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.repository.RentalRepository;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+// Minute ticks, so the scheduled expiry and sweep do not run while a test drives them itself
+@SpringBootTest(
+    properties = {"app.book.hold.tick-ms=60000", "app.book.hold.sweep-interval-ms=60000"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookHoldServiceIntegrationTests {
+
+  @Autowired private BookHoldServiceImpl bookHoldService;
+
+  @Autowired private BookHoldRepository bookHoldRepository;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private RentalRepository rentalRepository;
+
+  private BookDto bookDto;
+
+  private Long studentId;
+
+  @BeforeEach
+  void setUp() {
+    bookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    studentId = studentService.save(TestDataUtil.createSingleTestStudentDto()).id();
+  }
+
+  @Test
+  void whenHoldIsConfirmed_ThenHeldCopyIsRentedWithoutTakingStockAgain() {
+    var bookHoldDto = bookHoldService.placeHold(bookDto.getId(), studentId, 5);
+    assertThat(stock()).isEqualTo(bookDto.getStock() - 1);
+
+    var rentalDto =
+        bookHoldService.confirmHold(
+            bookDto.getId(), bookHoldDto.id(), LocalDateTime.now().plusDays(30));
+
+    assertThat(rentalDto.getBookId()).isEqualTo(bookDto.getId());
+    assertThat(rentalDto.getStudentId()).isEqualTo(studentId);
+    assertThat(rentalRepository.findById(rentalDto.getId())).isPresent();
+    assertThat(stock()).isEqualTo(bookDto.getStock() - 1);
+    assertThat(bookHoldRepository.findById(bookHoldDto.id())).isEmpty();
+    assertThatThrownBy(() -> bookHoldService.releaseHold(bookDto.getId(), bookHoldDto.id()))
+        .isInstanceOf(BookHoldNotFoundException.class);
+  }
+
+  @Test
+  void whenHoldExpires_ThenCopyReturnsToStockOnceAndHoldCannotBeConfirmed() {
+    var bookHoldDto = bookHoldService.placeHold(bookDto.getId(), studentId, 1);
+    var placedAt = Instant.now();
+
+    bookHoldService.expireHolds(placedAt.plusSeconds(30));
+    assertThat(stock()).isEqualTo(bookDto.getStock() - 1);
+
+    bookHoldService.expireHolds(placedAt.plus(Duration.ofMinutes(2)));
+    bookHoldService.expireHolds(placedAt.plus(Duration.ofMinutes(3)));
+
+    assertThat(stock()).isEqualTo(bookDto.getStock());
+    assertThat(bookHoldService.pendingHolds()).isZero();
+    assertThatThrownBy(
+            () ->
+                bookHoldService.confirmHold(
+                    bookDto.getId(), bookHoldDto.id(), LocalDateTime.now().plusDays(30)))
+        .isInstanceOf(BookHoldNotFoundException.class);
+  }
+
+  @Test
+  void whenHoldIsReleased_ThenCopyReturnsToStockAndExpiryIsANoOp() {
+    var bookHoldDto = bookHoldService.placeHold(bookDto.getId(), studentId, 1);
+
+    bookHoldService.releaseHold(bookDto.getId(), bookHoldDto.id());
+    bookHoldService.expireHolds(Instant.now().plus(Duration.ofMinutes(2)));
+
+    assertThat(stock()).isEqualTo(bookDto.getStock());
+  }
+
+  @Test
+  void whenStoredHoldsAreScheduledAfterRestart_ThenHoldsExpiredMeanwhileEnd() {
+    bookService.decrementBookStock(bookDto.getId());
+    bookHoldRepository.save(
+        BookHoldEntity.builder()
+            .bookId(bookDto.getId())
+            .studentId(studentId)
+            .expiresAt(LocalDateTime.now().minusMinutes(1))
+            .build());
+
+    bookHoldService.scheduleStoredHolds();
+    bookHoldService.expireHolds(Instant.now().plus(Duration.ofMinutes(1)));
+
+    assertThat(stock()).isEqualTo(bookDto.getStock());
+    assertThat(bookHoldRepository.count()).isZero();
+  }
+
+  @Test
+  void whenHoldOfAnotherInstanceExpired_ThenSweepReturnsItsCopyOnce() {
+    bookService.decrementBookStock(bookDto.getId());
+    bookService.decrementBookStock(bookDto.getId());
+    var expiredHold = saveUnscheduledHold(LocalDateTime.now().minusMinutes(1));
+    var activeHold = saveUnscheduledHold(LocalDateTime.now().plusMinutes(5));
+
+    bookHoldService.sweepExpiredHolds(Instant.now());
+    bookHoldService.sweepExpiredHolds(Instant.now());
+
+    assertThat(stock()).isEqualTo(bookDto.getStock() - 1);
+    assertThat(bookHoldRepository.findById(expiredHold.getId())).isEmpty();
+    assertThat(bookHoldRepository.findById(activeHold.getId())).isPresent();
+  }
+
+  @Test
+  void whenHoldIsLongerThanAllowedOrBookIsOutOfStock_ThenHoldIsRejected() {
+    assertThatThrownBy(() -> bookHoldService.placeHold(bookDto.getId(), studentId, 24 * 60))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    bookService.partialUpdate(bookDto.getId(), BookDto.builder().stock(0).build());
+
+    assertThatThrownBy(() -> bookHoldService.placeHold(bookDto.getId(), studentId, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(bookHoldRepository.count()).isZero();
+  }
+
+  /** Stores a hold without scheduling it, as one placed by an instance that has stopped. */
+  private BookHoldEntity saveUnscheduledHold(LocalDateTime expiresAt) {
+    return bookHoldRepository.save(
+        BookHoldEntity.builder()
+            .bookId(bookDto.getId())
+            .studentId(studentId)
+            .expiresAt(expiresAt)
+            .build());
+  }
+
+  private int stock() {
+    return bookService.findById(bookDto.getId()).getStock();
+  }
+}
@@ -0,0 +1,137 @@
+package io.bartmilo.student.enrolment.app.domain.idempotency.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.domain.idempotency.repository.IdempotencyRecordRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class IdempotencyServiceIntegrationTests {
+
+  @Autowired private IdempotencyService idempotencyService;
+
+  @Autowired private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void whenConcurrentDuplicates_ThenActionRunsOnce() throws Exception {
+    var executions = new AtomicInteger();
+    var executorService = Executors.newFixedThreadPool(8);
+    var tasks = new ArrayList<Callable<ResponseEntity<String>>>();
+    for (int i = 0; i < 8; i++) {
+      tasks.add(
+          () ->
+              idempotencyService.execute(
+                  "POST /test",
+                  "same-key",
+                  "request",
+                  String.class,
+                  () -> {
+                    sleep(200);
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                        .body("result-" + executions.incrementAndGet());
+                  }));
+    }
+
+    var futures = executorService.invokeAll(tasks);
+    executorService.shutdown();
+    assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(executions.get()).isEqualTo(1);
+    for (var future : futures) {
+      assertThat(future.get().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+      assertThat(future.get().getBody()).isEqualTo("result-1");
+    }
+    assertThat(idempotencyRecordRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  void whenActionFails_ThenRetryRunsItAgain() {
+    var executions = new AtomicInteger();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            idempotencyService.execute(
+                "POST /test",
+                "failing-key",
+                "request",
+                String.class,
+                () -> {
+                  executions.incrementAndGet();
+                  throw new IllegalStateException("Failed");
+                }));
+    var response =
+        idempotencyService.execute(
+            "POST /test",
+            "failing-key",
+            "request",
+            String.class,
+            () -> ResponseEntity.ok("result-" + executions.incrementAndGet()));
+
+    assertThat(response.getBody()).isEqualTo("result-2");
+    assertThat(idempotencyRecordRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  void whenKeyExpiredButNotPurged_ThenRetryRunsTheActionAgain() {
+    var executions = new AtomicInteger();
+    idempotencyService.execute(
+        "POST /test",
+        "expired-key",
+        "request",
+        String.class,
+        () -> ResponseEntity.ok("result-" + executions.incrementAndGet()));
+    var idempotencyRecordEntity = idempotencyRecordRepository.findAll().get(0);
+    idempotencyRecordEntity.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+    idempotencyRecordRepository.save(idempotencyRecordEntity);
+
+    // Another node, whose response cache has never seen the key
+    var otherNodeService =
+        new IdempotencyServiceImpl(
+            idempotencyRecordRepository, objectMapper, transactionManager, Duration.ofHours(24), 10);
+    var response =
+        otherNodeService.execute(
+            "POST /test",
+            "expired-key",
+            "request",
+            String.class,
+            () -> ResponseEntity.ok("result-" + executions.incrementAndGet()));
+
+    assertThat(response.getBody()).isEqualTo("result-2");
+    assertThat(response.getHeaders().containsKey(IdempotencyService.IDEMPOTENT_REPLAYED_HEADER))
+        .isFalse();
+    assertThat(idempotencyRecordRepository.findAll())
+        .singleElement()
+        .satisfies(
+            idempotencyRecord ->
+                assertThat(idempotencyRecord.getExpiresAt()).isAfter(LocalDateTime.now()));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
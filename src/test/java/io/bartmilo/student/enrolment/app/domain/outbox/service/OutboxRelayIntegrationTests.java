@@ -0,0 +1,153 @@
+package io.bartmilo.student.enrolment.app.domain.outbox.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.outbox.model.OutboxMessage;
+import io.bartmilo.student.enrolment.app.domain.outbox.repository.OutboxEventRepository;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalEvent;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.annotation.DirtiesContext;
+
+// The scheduled relay is pushed out of the way so the tests drive every run themselves
+@SpringBootTest(
+    properties = {"app.outbox.relay.interval-ms=3600000", "app.outbox.relay.batch-size=5"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OutboxRelayIntegrationTests {
+
+  @Autowired private OutboxRelay outboxRelay;
+
+  @Autowired private OutboxEventRepository outboxEventRepository;
+
+  @Autowired private RecordingOutboxListener recordingOutboxListener;
+
+  @Autowired private RentalService rentalService;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void whenRentAndReturnBook_ThenRelayDeliversEventsInOrder() throws Exception {
+    outboxRelay.drain();
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var rentalDto =
+        rentalService.rentBook(
+            savedBookDto.getId(), savedStudentDto.id(), LocalDateTime.now().plusDays(30));
+    rentalService.returnBook(rentalDto.getId());
+    assertThat(outboxEventRepository.count()).isEqualTo(2);
+
+    var delivered = outboxRelay.drain();
+
+    assertThat(delivered).isEqualTo(2);
+    assertThat(outboxEventRepository.count()).isZero();
+    var outboxMessages = recordingOutboxListener.outboxMessages;
+    assertThat(outboxMessages)
+        .extracting(OutboxMessage::eventType)
+        .containsExactly(RentalEvent.RENTED, RentalEvent.RETURNED);
+    assertThat(outboxMessages)
+        .allSatisfy(
+            outboxMessage -> {
+              assertThat(outboxMessage.aggregateType()).isEqualTo(RentalEvent.AGGREGATE_TYPE);
+              assertThat(outboxMessage.aggregateId()).isEqualTo(rentalDto.getId());
+            });
+    var rentalEvent = objectMapper.readValue(outboxMessages.get(0).payload(), RentalEvent.class);
+    assertThat(rentalEvent.bookId()).isEqualTo(savedBookDto.getId());
+    assertThat(rentalEvent.studentId()).isEqualTo(savedStudentDto.id());
+    assertThat(meterRegistry.get("outbox.relay.delivered").counter().count()).isEqualTo(2);
+    assertThat(meterRegistry.get("outbox.lag").timeGauge().value()).isZero();
+  }
+
+  @Test
+  void whenRentalRollsBack_ThenNoEventIsWritten() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(0);
+    var savedBookDto = bookService.save(bookDto);
+    var bookId = savedBookDto.getId();
+    var studentId = savedStudentDto.id();
+    var dueDate = LocalDateTime.now().plusDays(30);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> rentalService.rentBook(bookId, studentId, dueDate));
+
+    assertThat(outboxEventRepository.count()).isZero();
+  }
+
+  @Test
+  void whenRelaysDrainConcurrently_ThenEveryEventIsDeliveredOnce() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(40);
+    var savedBookDto = bookService.save(bookDto);
+    var rentalIds = new ArrayList<Long>();
+    for (int i = 0; i < 40; i++) {
+      rentalIds.add(
+          rentalService
+              .rentBook(
+                  savedBookDto.getId(), savedStudentDto.id(), LocalDateTime.now().plusDays(30))
+              .getId());
+    }
+
+    var executorService = Executors.newFixedThreadPool(4);
+    var tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 4; i++) {
+      tasks.add(outboxRelay::drain);
+    }
+    var delivered = 0;
+    for (var future : executorService.invokeAll(tasks)) {
+      delivered += future.get();
+    }
+    executorService.shutdown();
+    assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    // a relay stops early when it only finds rows claimed by the others
+    delivered += outboxRelay.drain();
+
+    assertThat(delivered).isEqualTo(40);
+    assertThat(recordingOutboxListener.outboxMessages)
+        .extracting(OutboxMessage::aggregateId)
+        .containsExactlyInAnyOrderElementsOf(rentalIds);
+  }
+
+  @TestConfiguration
+  static class RecordingListenerConfig {
+
+    @Bean
+    RecordingOutboxListener recordingOutboxListener() {
+      return new RecordingOutboxListener();
+    }
+  }
+
+  static class RecordingOutboxListener {
+
+    private final List<OutboxMessage> outboxMessages = new CopyOnWriteArrayList<>();
+
+    @EventListener
+    public void onOutboxMessage(OutboxMessage outboxMessage) {
+      outboxMessages.add(outboxMessage);
+    }
+  }
+}
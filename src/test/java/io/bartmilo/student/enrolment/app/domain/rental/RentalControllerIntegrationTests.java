@@ -1,16 +1,21 @@
 package io.bartmilo.student.enrolment.app.domain.rental;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.idempotency.service.IdempotencyService;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBatchRequest;
+import io.bartmilo.student.enrolment.app.domain.rental.model.RentalBulkReturnRequest;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalRequest;
 import io.bartmilo.student.enrolment.app.domain.rental.model.RentalResponse;
 import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
 import java.time.LocalDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -94,4 +99,135 @@ class RentalControllerIntegrationTests {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.returnedAt").exists());
   }
+
+  @Test
+  void testRentBooksInBatch_ReturnsPerItemResults() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDtoList = TestDataUtil.createListOfTestBookDto();
+    var firstBookDto = bookService.save(bookDtoList.get(0));
+    var lastCopyBookDto = bookDtoList.get(1);
+    lastCopyBookDto.setStock(1);
+    var savedLastCopyBookDto = bookService.save(lastCopyBookDto);
+    var dueDate = LocalDateTime.now().plusDays(30);
+
+    var rentalBatchRequest =
+        RentalBatchRequest.builder()
+            .rentals(
+                List.of(
+                    RentalRequest.builder()
+                        .bookId(firstBookDto.getId())
+                        .studentId(savedStudentDto.id())
+                        .dueDate(dueDate)
+                        .build(),
+                    RentalRequest.builder()
+                        .bookId(savedLastCopyBookDto.getId())
+                        .studentId(savedStudentDto.id())
+                        .dueDate(dueDate)
+                        .build(),
+                    RentalRequest.builder()
+                        .bookId(savedLastCopyBookDto.getId())
+                        .studentId(savedStudentDto.id())
+                        .dueDate(dueDate)
+                        .build(),
+                    RentalRequest.builder()
+                        .bookId(firstBookDto.getId())
+                        .studentId(999L)
+                        .dueDate(dueDate)
+                        .build()))
+            .build();
+
+    mockMvc
+        .perform(
+            post("/rentals/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rentalBatchRequest)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(4))
+        .andExpect(jsonPath("$[0].success").value(true))
+        .andExpect(jsonPath("$[0].rental.id").isNumber())
+        .andExpect(jsonPath("$[1].success").value(true))
+        .andExpect(jsonPath("$[2].success").value(false))
+        .andExpect(jsonPath("$[2].error").value("Book is not available for rent."))
+        .andExpect(jsonPath("$[3].success").value(false))
+        .andExpect(jsonPath("$[3].error").value("Student not found with ID: 999"));
+
+    assertThat(bookService.findById(firstBookDto.getId()).getStock())
+        .isEqualTo(firstBookDto.getStock() - 1);
+    assertThat(bookService.findById(savedLastCopyBookDto.getId()).getStock()).isZero();
+  }
+
+  @Test
+  void testReturnBooksInBulk_ReportsReturnedAlreadyReturnedAndUnknownRentals() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var firstRentalDto = rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    var secondRentalDto =
+        rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    var returnedRentalDto =
+        rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate);
+    rentalService.returnBook(returnedRentalDto.getId());
+
+    var rentalBulkReturnRequest =
+        RentalBulkReturnRequest.builder()
+            .rentalIds(
+                List.of(
+                    firstRentalDto.getId(),
+                    secondRentalDto.getId(),
+                    returnedRentalDto.getId(),
+                    999L))
+            .build();
+
+    mockMvc
+        .perform(
+            put("/rentals/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rentalBulkReturnRequest)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned.length()").value(2))
+        .andExpect(jsonPath("$.returned[0]").value(firstRentalDto.getId()))
+        .andExpect(jsonPath("$.returned[1]").value(secondRentalDto.getId()))
+        .andExpect(jsonPath("$.alreadyReturned[0]").value(returnedRentalDto.getId()))
+        .andExpect(jsonPath("$.notFound[0]").value(999));
+
+    assertThat(bookService.findById(savedBookDto.getId()).getStock())
+        .isEqualTo(savedBookDto.getStock());
+  }
+
+  @Test
+  void testRentBookWithRepeatedIdempotencyKey_RentsOnlyOnce() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var rentalRequestJson =
+        objectMapper.writeValueAsString(
+            RentalRequest.builder()
+                .bookId(savedBookDto.getId())
+                .studentId(savedStudentDto.id())
+                .dueDate(LocalDateTime.now().plusDays(30))
+                .build());
+
+    var firstResult =
+        mockMvc
+            .perform(
+                post("/rentals")
+                    .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "rent-once")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(rentalRequestJson))
+            .andExpect(status().isCreated())
+            .andReturn();
+    var rentalId =
+        objectMapper.readTree(firstResult.getResponse().getContentAsString()).get("id").asLong();
+    mockMvc
+        .perform(
+            post("/rentals")
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "rent-once")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(rentalRequestJson))
+        .andExpect(status().isCreated())
+        .andExpect(header().string(IdempotencyService.IDEMPOTENT_REPLAYED_HEADER, "true"))
+        .andExpect(jsonPath("$.id").value(rentalId));
+
+    assertThat(bookService.findById(savedBookDto.getId()).getStock())
+        .isEqualTo(savedBookDto.getStock() - 1);
+  }
 }
@@ -0,0 +1,100 @@
+package io.bartmilo.student.enrolment.app.domain.rental.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.rental.model.OverdueRental;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(properties = "app.rental.overdue-sweep.chunk-size=2")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OverdueRentalSweeperIntegrationTests {
+
+  @Autowired private OverdueRentalSweeper overdueRentalSweeper;
+
+  @Autowired private RecordingOverdueRentalHandler recordingOverdueRentalHandler;
+
+  @Autowired private RentalService rentalService;
+
+  @Autowired private BookService bookService;
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void whenSweep_ReportsOnlyRentalsOverdueAndNotReturned() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var bookId = savedBookDto.getId();
+    var studentId = savedStudentDto.id();
+    var pastDueDate = LocalDateTime.now().minusDays(1);
+    var overdueIds =
+        List.of(
+            rentalService.rentBook(bookId, studentId, pastDueDate).getId(),
+            rentalService.rentBook(bookId, studentId, pastDueDate.minusDays(1)).getId(),
+            rentalService.rentBook(bookId, studentId, pastDueDate.minusDays(2)).getId());
+    var returned = rentalService.rentBook(bookId, studentId, pastDueDate);
+    rentalService.returnBook(returned.getId());
+    rentalService.rentBook(bookId, studentId, LocalDateTime.now().plusDays(30));
+
+    var rows = overdueRentalSweeper.sweep();
+
+    assertThat(rows).isEqualTo(3);
+    assertThat(recordingOverdueRentalHandler.overdueRentals)
+        .extracting(OverdueRental::rentalId)
+        .containsExactly(overdueIds.get(2), overdueIds.get(1), overdueIds.get(0));
+    assertThat(recordingOverdueRentalHandler.overdueRentals)
+        .allSatisfy(
+            overdueRental -> {
+              assertThat(overdueRental.bookId()).isEqualTo(bookId);
+              assertThat(overdueRental.studentId()).isEqualTo(studentId);
+            });
+  }
+
+  @Test
+  void whenSweep_RecordsRunMetrics() {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBookDto = bookService.save(TestDataUtil.createSingleTestBookDto());
+    rentalService.rentBook(
+        savedBookDto.getId(), savedStudentDto.id(), LocalDateTime.now().minusDays(1));
+
+    overdueRentalSweeper.sweep();
+    overdueRentalSweeper.sweep();
+
+    assertThat(meterRegistry.get("rental.overdue.sweep").timer().count()).isEqualTo(2);
+    var sweepRows = meterRegistry.get("rental.overdue.sweep.rows").summary();
+    assertThat(sweepRows.count()).isEqualTo(2);
+    assertThat(sweepRows.totalAmount()).isEqualTo(2);
+  }
+
+  @TestConfiguration
+  static class RecordingHandlerConfig {
+
+    @Bean
+    RecordingOverdueRentalHandler recordingOverdueRentalHandler() {
+      return new RecordingOverdueRentalHandler();
+    }
+  }
+
+  static class RecordingOverdueRentalHandler implements OverdueRentalHandler {
+
+    private final List<OverdueRental> overdueRentals = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void onOverdue(OverdueRental overdueRental) {
+      overdueRentals.add(overdueRental);
+    }
+  }
+}
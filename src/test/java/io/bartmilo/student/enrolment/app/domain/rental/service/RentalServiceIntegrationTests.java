@@ -11,6 +11,12 @@ import io.bartmilo.student.enrolment.app.domain.rental.model.RentalDto;
 import io.bartmilo.student.enrolment.app.domain.student.model.IdCardStatus;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -86,4 +92,39 @@ class RentalServiceIntegrationTests {
     var rentalId = rentalDto.getId();
     assertThrows(IllegalStateException.class, () -> rentalService.returnBook(rentalId));
   }
+
+  @Test
+  void whenHundredsOfParallelRentalsOfOneBook_ThenStockIsNeverOversold() throws Exception {
+    var savedStudentDto = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var bookDto = TestDataUtil.createSingleTestBookDto();
+    bookDto.setStock(50);
+    var savedBookDto = bookService.save(bookDto);
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var attempts = 300;
+
+    var executor = Executors.newFixedThreadPool(32);
+    var rentals = new ArrayList<Callable<RentalDto>>();
+    for (int i = 0; i < attempts; i++) {
+      rentals.add(() -> rentalService.rentBook(savedBookDto.getId(), savedStudentDto.id(), dueDate));
+    }
+    var results = executor.invokeAll(rentals);
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+    var successful = 0;
+    var unavailable = 0;
+    for (Future<RentalDto> result : results) {
+      try {
+        result.get();
+        successful++;
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause()).isInstanceOf(IllegalArgumentException.class);
+        unavailable++;
+      }
+    }
+
+    assertThat(successful).isEqualTo(50);
+    assertThat(unavailable).isEqualTo(attempts - 50);
+    assertThat(bookService.findById(savedBookDto.getId()).getStock()).isZero();
+  }
 }
@@ -6,15 +6,19 @@ import static org.mockito.Mockito.*;
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.book.mapper.BookMapper;
 import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.outbox.service.OutboxService;
 import io.bartmilo.student.enrolment.app.domain.rental.exception.RentalNotFoundException;
 import io.bartmilo.student.enrolment.app.domain.rental.mapper.RentalMapper;
 import io.bartmilo.student.enrolment.app.domain.rental.model.*;
 import io.bartmilo.student.enrolment.app.domain.rental.repository.RentalRepository;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.IdCardStatus;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentIdCardDto;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +26,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 class RentalServiceUnitTests {
@@ -32,6 +37,9 @@ class RentalServiceUnitTests {
   @Mock private StudentMapper studentMapper;
   @Mock private RentalMapper rentalMapper;
   @Mock private BookMapper bookMapper;
+  @Mock private OutboxService outboxService;
+  @Mock private ApplicationEventPublisher applicationEventPublisher;
+  @Mock private EntityManager entityManager;
 
   @InjectMocks private RentalServiceImpl rentalService;
 
@@ -39,7 +47,15 @@ class RentalServiceUnitTests {
   void setUp() {
     rentalService =
         new RentalServiceImpl(
-            studentService, bookService, rentalRepository, studentMapper, rentalMapper, bookMapper);
+            studentService,
+            bookService,
+            rentalRepository,
+            studentMapper,
+            rentalMapper,
+            bookMapper,
+            outboxService,
+            applicationEventPublisher,
+            entityManager);
   }
 
   @Test
@@ -67,6 +83,9 @@ class RentalServiceUnitTests {
     verify(bookService).decrementBookStock(bookId);
     verify(studentService).findById(studentId);
     verify(rentalRepository).save(any(RentalEntity.class));
+    verify(outboxService)
+        .enqueueAll(eq(RentalEvent.AGGREGATE_TYPE), eq(RentalEvent.RENTED), anyList(), any());
+    verify(applicationEventPublisher).publishEvent(any(RentalActivityEvent.class));
     assertNotNull(rental);
   }
 
@@ -82,6 +101,8 @@ class RentalServiceUnitTests {
 
     verify(bookService).incrementBookStock(rentalEntity.getBookEntity().getId());
     verify(rentalRepository).save(rentalEntity);
+    verify(outboxService)
+        .enqueueAll(eq(RentalEvent.AGGREGATE_TYPE), eq(RentalEvent.RETURNED), anyList(), any());
     assertNotNull(returnedRental.getReturnedAt());
   }
 
@@ -100,4 +121,72 @@ class RentalServiceUnitTests {
     when(rentalRepository.findById(rentalId)).thenReturn(Optional.empty());
     assertThrows(RentalNotFoundException.class, () -> rentalService.returnBook(rentalId));
   }
+
+  @Test
+  void whenRentBooksWithOneBookOutOfStock_ThenOtherRentalsAreStillCreated() {
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var studentDto = StudentDto.builder()
+        .id(1L)
+        .studentIdCardDto(TestDataUtil.createSingleTestStudentIdCardDto(1L))
+        .build();
+    var rentalDtoList = List.of(
+        RentalDto.builder().bookId(1L).studentId(1L).dueDate(dueDate).build(),
+        RentalDto.builder().bookId(2L).studentId(1L).dueDate(dueDate).build());
+
+    when(studentService.findAllById(anyCollection())).thenReturn(List.of(studentDto));
+    when(bookService.decrementBookStocks(List.of(1L, 2L))).thenReturn(new boolean[] {true, false});
+    when(bookService.isExists(2L)).thenReturn(true);
+    when(rentalMapper.convertDtoToEntity(any(RentalDto.class))).thenReturn(new RentalEntity());
+    when(rentalMapper.convertEntityToDto(any(RentalEntity.class))).thenReturn(new RentalDto());
+
+    var results = rentalService.rentBooks(rentalDtoList);
+
+    verify(studentService, times(1)).findAllById(anyCollection());
+    verify(rentalRepository).saveAll(argThat(entities -> entities.iterator().hasNext()));
+    assertEquals(2, results.size());
+    assertNotNull(results.get(0).rental());
+    assertNull(results.get(0).error());
+    assertNull(results.get(1).rental());
+    assertEquals("Book is not available for rent.", results.get(1).error());
+  }
+
+  @Test
+  void whenReturnBooksInBulk_ThenStockIsRestoredOncePerBook() {
+    var openRental = mock(RentalReturnView.class);
+    when(openRental.getId()).thenReturn(1L);
+    when(openRental.getBookId()).thenReturn(10L);
+    var secondOpenRental = mock(RentalReturnView.class);
+    when(secondOpenRental.getId()).thenReturn(2L);
+    when(secondOpenRental.getBookId()).thenReturn(10L);
+    var returnedRental = mock(RentalReturnView.class);
+    when(returnedRental.getId()).thenReturn(3L);
+    when(returnedRental.getReturnedAt()).thenReturn(LocalDateTime.now());
+    when(rentalRepository.findForReturnByIdIn(List.of(1L, 2L, 3L, 4L)))
+        .thenReturn(List.of(openRental, secondOpenRental, returnedRental));
+
+    var result = rentalService.returnBooks(List.of(1L, 2L, 3L, 4L));
+
+    verify(rentalRepository).markReturned(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    verify(bookService).incrementBookStock(10L, 2);
+    assertEquals(List.of(1L, 2L), result.returned());
+    assertEquals(List.of(3L), result.alreadyReturned());
+    assertEquals(List.of(4L), result.notFound());
+  }
+
+  @Test
+  void whenReturnBooksInBulk_ThenRentalsAreLockedInIdOrderAndReportedInRequestOrder() {
+    var firstRental = mock(RentalReturnView.class);
+    when(firstRental.getId()).thenReturn(1L);
+    when(firstRental.getBookId()).thenReturn(10L);
+    var secondRental = mock(RentalReturnView.class);
+    when(secondRental.getId()).thenReturn(2L);
+    when(secondRental.getBookId()).thenReturn(20L);
+    when(rentalRepository.findForReturnByIdIn(List.of(1L, 2L, 3L)))
+        .thenReturn(List.of(firstRental, secondRental));
+
+    var result = rentalService.returnBooks(List.of(3L, 2L, 1L, 2L));
+
+    assertEquals(List.of(2L, 1L), result.returned());
+    assertEquals(List.of(3L), result.notFound());
+  }
 }
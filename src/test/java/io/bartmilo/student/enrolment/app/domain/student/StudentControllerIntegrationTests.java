@@ -1,17 +1,25 @@
 package io.bartmilo.student.enrolment.app.domain.student;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.book.service.BookService;
+import io.bartmilo.student.enrolment.app.domain.idempotency.service.IdempotencyService;
+import io.bartmilo.student.enrolment.app.domain.rental.service.RentalService;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentRequest;
 import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -26,6 +34,8 @@ class StudentControllerIntegrationTests {
   @Autowired private MockMvc mockMvc;
   @Autowired private ObjectMapper objectMapper;
   @Autowired private StudentService studentService;
+  @Autowired private BookService bookService;
+  @Autowired private RentalService rentalService;
 
   @Test
   void testCreateStudent_ReturnsHttpStatus201Created() throws Exception {
@@ -80,6 +90,67 @@ class StudentControllerIntegrationTests {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void testGetStudentWithMatchingETag_ReturnsHttpStatus304NotModified() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var eTag =
+        mockMvc
+            .perform(get("/students/{id}", savedStudent.id()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(get("/students/{id}", savedStudent.id()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag))
+        .andExpect(content().string(""));
+
+    studentService.partialUpdate(savedStudent.id(), StudentDto.builder().age(27).build());
+
+    mockMvc
+        .perform(get("/students/{id}", savedStudent.id()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.age").value(27));
+  }
+
+  @Test
+  void testPatchStudentWithStaleIfMatch_ReturnsHttpStatus412PreconditionFailed()
+      throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var eTag =
+        mockMvc
+            .perform(get("/students/{id}", savedStudent.id()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    var newETag =
+        mockMvc
+            .perform(
+                patch("/students/{id}", savedStudent.id())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"lastName\": \"Badger\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lastName").value("Badger"))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertThat(newETag).isNotEqualTo(eTag);
+
+    mockMvc
+        .perform(
+            put("/students/{id}", savedStudent.id())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\": \"Otter\"}"))
+        .andExpect(status().isPreconditionFailed());
+    assertThat(studentService.findById(savedStudent.id()).lastName()).isEqualTo("Badger");
+  }
+
   @Test
   void testGetStudentById_ReturnsHttpStatus404NotFound() throws Exception {
     mockMvc
@@ -87,6 +158,45 @@ class StudentControllerIntegrationTests {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  void testGetStudentByEmail_MatchesCaseInsensitively() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+
+    mockMvc
+        .perform(get("/students/by-email").param("email", "Carol.Raccoon@GMAIL.com"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + savedStudent.version() + "\""))
+        .andExpect(jsonPath("$.id").value(savedStudent.id()))
+        .andExpect(jsonPath("$.email").value("carol.raccoon@gmail.com"));
+  }
+
+  @Test
+  void testGetStudentByEmail_ReturnsHttpStatus404NotFound() throws Exception {
+    mockMvc
+        .perform(get("/students/by-email").param("email", "nobody@example.com"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testSearchStudents_ReturnsPageOfPrefixMatches() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+
+    mockMvc
+        .perform(get("/students/search").param("lastName", "RAC").param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(savedStudent.id()))
+        .andExpect(jsonPath("$.content[0].lastName").value("Raccoon"))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void testSearchStudentsWithBlankPrefix_ReturnsHttpStatus400BadRequest() throws Exception {
+    mockMvc
+        .perform(get("/students/search").param("lastName", " "))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void testDeleteStudent_ReturnsHttpStatus204NoContent() throws Exception {
     var studentDto = TestDataUtil.createSingleTestStudentDto();
@@ -104,4 +214,176 @@ class StudentControllerIntegrationTests {
         .perform(delete("/students/{id}", 999).contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isNotFound());
   }
+
+  @Test
+  void testGetStudentRentals_PagesNewestFirstWithCursor() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBook = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var first = rentalService.rentBook(savedBook.getId(), savedStudent.id(), dueDate);
+    var second = rentalService.rentBook(savedBook.getId(), savedStudent.id(), dueDate);
+    var third = rentalService.rentBook(savedBook.getId(), savedStudent.id(), dueDate);
+
+    var firstPage =
+        mockMvc
+            .perform(get("/students/{id}/rentals", savedStudent.id()).param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].id").value(third.getId()))
+            .andExpect(jsonPath("$.content[1].id").value(second.getId()))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andReturn();
+    var nextCursor =
+        objectMapper
+            .readTree(firstPage.getResponse().getContentAsString())
+            .get("nextCursor")
+            .asText();
+
+    mockMvc
+        .perform(
+            get("/students/{id}/rentals", savedStudent.id())
+                .param("size", "2")
+                .param("after", nextCursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(first.getId()))
+        .andExpect(jsonPath("$.hasNext").value(false))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void testGetStudentRentals_FiltersByStatus() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+    var savedBook = bookService.save(TestDataUtil.createSingleTestBookDto());
+    var dueDate = LocalDateTime.now().plusDays(30);
+    var returned = rentalService.rentBook(savedBook.getId(), savedStudent.id(), dueDate);
+    var active = rentalService.rentBook(savedBook.getId(), savedStudent.id(), dueDate);
+    rentalService.returnBook(returned.getId());
+
+    mockMvc
+        .perform(get("/students/{id}/rentals", savedStudent.id()).param("status", "returned"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(returned.getId()));
+    mockMvc
+        .perform(get("/students/{id}/rentals", savedStudent.id()).param("status", "active"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].id").value(active.getId()));
+    mockMvc
+        .perform(get("/students/{id}/rentals", savedStudent.id()).param("status", "overdue"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(0));
+  }
+
+  @Test
+  void testGetStudentRentals_ReturnsHttpStatus400BadRequestForInvalidCursor() throws Exception {
+    var savedStudent = studentService.save(TestDataUtil.createSingleTestStudentDto());
+
+    mockMvc
+        .perform(get("/students/{id}/rentals", savedStudent.id()).param("after", "not-a-cursor"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testGetStudentRentalsOfNonExistingStudent_ReturnsHttpStatus404NotFound() throws Exception {
+    mockMvc.perform(get("/students/{id}/rentals", 999)).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testCreateStudentWithRepeatedIdempotencyKey_ReplaysFirstResponse() throws Exception {
+    var studentRequestJson =
+        objectMapper.writeValueAsString(new StudentRequest("Jan", "Kowalski", "jan@test.com", 21));
+
+    var firstResult =
+        mockMvc
+            .perform(
+                post("/students")
+                    .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "create-jan")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(studentRequestJson))
+            .andExpect(status().isCreated())
+            .andReturn();
+    var studentId =
+        objectMapper.readTree(firstResult.getResponse().getContentAsString()).get("id").asLong();
+
+    mockMvc
+        .perform(
+            post("/students")
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "create-jan")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(studentRequestJson))
+        .andExpect(status().isCreated())
+        .andExpect(header().string(IdempotencyService.IDEMPOTENT_REPLAYED_HEADER, "true"))
+        .andExpect(header().string("Location", firstResult.getResponse().getHeader("Location")))
+        .andExpect(jsonPath("$.id").value(studentId));
+    assertThat(studentService.findAll(Pageable.unpaged()).getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  void testCreateStudentWithIdempotencyKeyOfAnotherRequest_ReturnsHttpStatus422()
+      throws Exception {
+    mockMvc
+        .perform(
+            post("/students")
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "create-once")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new StudentRequest("Jan", "Kowalski", "jan@test.com", 21))))
+        .andExpect(status().isCreated());
+
+    mockMvc
+        .perform(
+            post("/students")
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "create-once")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new StudentRequest("Anna", "Nowak", "anna@test.com", 22))))
+        .andExpect(status().isUnprocessableEntity());
+    assertThat(studentService.findAll(Pageable.unpaged()).getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  void testGetStudentsInKeysetMode_PagesThroughStudentsByLastName() throws Exception {
+    TestDataUtil.createListOfTestStudentDto().forEach(studentService::save);
+
+    var firstPage =
+        mockMvc
+            .perform(
+                get("/students").param("after", "").param("sort", "lastName").param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].lastName").value("Cyrus"))
+            .andExpect(jsonPath("$.content[1].lastName").value("Gromul"))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andExpect(jsonPath("$.totalElements").doesNotExist())
+            .andReturn();
+    var nextCursor =
+        objectMapper
+            .readTree(firstPage.getResponse().getContentAsString())
+            .get("nextCursor")
+            .asText();
+
+    mockMvc
+        .perform(
+            get("/students")
+                .param("after", nextCursor)
+                .param("sort", "lastName")
+                .param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].lastName").value("Raccoon"))
+        .andExpect(jsonPath("$.hasNext").value(false))
+        .andExpect(jsonPath("$.nextCursor").isEmpty());
+  }
+
+  @Test
+  void testGetStudentsInKeysetModeWithUnknownSort_ReturnsHttpStatus400BadRequest()
+      throws Exception {
+    mockMvc
+        .perform(get("/students").param("after", "").param("sort", "age"))
+        .andExpect(status().isBadRequest());
+  }
 }
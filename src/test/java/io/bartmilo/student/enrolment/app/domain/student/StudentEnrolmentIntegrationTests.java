@@ -0,0 +1,88 @@
+package io.bartmilo.student.enrolment.app.domain.student;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.repository.StudentIdCardRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Counts the statements of an enrolment, which persists the student and its ID card together. The
+ * outbox relay and the hold expiry poll the database in the background, so they are held off.
+ */
+@SpringBootTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "app.outbox.relay.interval-ms=3600000",
+      "app.book.hold.tick-ms=3600000",
+      "app.book.hold.sweep-interval-ms=3600000"
+    })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+class StudentEnrolmentIntegrationTests {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private StudentIdCardRepository studentIdCardRepository;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void whenStudentIsCreated_ThenStudentAndCardAreInsertedByOneFlush() throws Exception {
+    var studentDtoList = TestDataUtil.createListOfTestStudentDto();
+    // The first two enrolments also lease the first block of IDs from each pooled sequence
+    createStudent(studentDtoList.get(0));
+    createStudent(studentDtoList.get(1));
+    statistics.clear();
+
+    var studentId = createStudent(studentDtoList.get(2));
+
+    // One insert of the student and one of its card, with nothing flushed before the commit
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+    assertThat(statistics.getFlushCount()).isEqualTo(1);
+    assertThat(studentIdCardRepository.findAll())
+        .anySatisfy(
+            studentIdCardEntity ->
+                assertThat(studentIdCardEntity.getStudentEntity().getId()).isEqualTo(studentId));
+  }
+
+  private long createStudent(StudentDto studentDto) throws Exception {
+    var studentResponseJson =
+        mockMvc
+            .perform(
+                post("/students")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(studentDto)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.studentIdCardResponse.cardNumber").exists())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(studentResponseJson).get("id").asLong();
+  }
+}
@@ -0,0 +1,109 @@
+package io.bartmilo.student.enrolment.app.domain.student;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.service.StudentService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Guards the fetch plans of the student reads against N+1 queries: however many students are read,
+ * the number of statements stays fixed. The outbox relay and the hold expiry poll the database in
+ * the background, so they are held off.
+ */
+@SpringBootTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "app.outbox.relay.interval-ms=3600000",
+      "app.book.hold.tick-ms=3600000",
+      "app.book.hold.sweep-interval-ms=3600000"
+    })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+class StudentFetchPlanIntegrationTests {
+
+  private static final int PAGE_SIZE = 50;
+
+  // The page and its count
+  private static final int MAX_PAGE_STATEMENTS = 2;
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  private List<Long> studentIds;
+
+  @BeforeEach
+  void setUp() {
+    studentIds =
+        IntStream.range(0, PAGE_SIZE)
+            .mapToObj(
+                i ->
+                    studentService.save(
+                        TestDataUtil.createSingleTestStudentDto().toBuilder()
+                            .email("student" + i + "@example.com")
+                            .build()))
+            .map(StudentDto::id)
+            .toList();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void whenPageOfStudentEntitiesIsRead_ThenCardsAreJoinedIntoThePage() {
+    var studentDtoPage = studentService.findAll(PageRequest.of(0, PAGE_SIZE));
+
+    assertThat(studentDtoPage.getContent()).hasSize(PAGE_SIZE);
+    assertThat(studentDtoPage.getContent())
+        .allSatisfy(studentDto -> assertThat(studentDto.studentIdCardDto()).isNotNull());
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_PAGE_STATEMENTS);
+  }
+
+  @Test
+  void whenPageOfStudentsIsListed_ThenStatementCountIsFixed() throws Exception {
+    mockMvc
+        .perform(get("/students").param("size", String.valueOf(PAGE_SIZE)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE))
+        .andExpect(jsonPath("$.content[49].studentIdCardResponse.cardNumber").exists());
+
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_PAGE_STATEMENTS);
+  }
+
+  @Test
+  void whenStudentsAreCheckedForRentals_ThenTheyAreLoadedInOneStatement() {
+    var studentDtoList = studentService.findAllById(studentIds);
+
+    assertThat(studentDtoList).hasSize(PAGE_SIZE);
+    assertThat(studentDtoList)
+        .allSatisfy(studentDto -> assertThat(studentDto.studentIdCardDto()).isNotNull());
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void whenStudentDetailIsRead_ThenItIsLoadedInOneStatement() {
+    var studentDto = studentService.findById(studentIds.get(0));
+
+    assertThat(studentDto.studentIdCardDto()).isNotNull();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,85 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CardNumberAllocatorIntegrationTests {
+
+  @Autowired private CardNumberAllocator cardNumberAllocator;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void whenNumbersAreAllocatedFromOneBlock_ThenTheyAreConsecutive() {
+    var first = cardNumberAllocator.nextNumber();
+    var blockEnd = first - first % CardNumberAllocator.BLOCK_SIZE + CardNumberAllocator.BLOCK_SIZE;
+
+    for (var expected = first + 1; expected < blockEnd; expected++) {
+      assertThat(cardNumberAllocator.nextNumber()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void whenThreadsAndNodesAllocateConcurrently_ThenAllNumbersAreUniqueAndValid() throws Exception {
+    // Two allocators on the same database stand in for two nodes
+    var allocators =
+        List.of(
+            new CardNumberAllocator(jdbcTemplate, entityManagerFactory),
+            new CardNumberAllocator(jdbcTemplate, entityManagerFactory));
+    var firstBlock = leasedBlocks();
+    var cardNumbers = ConcurrentHashMap.<String>newKeySet();
+    var executor = Executors.newFixedThreadPool(8);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < 8; thread++) {
+        var allocator = allocators.get(thread % allocators.size());
+        futures.add(executor.submit(() -> allocate(allocator, 2_500, cardNumbers)));
+      }
+      for (var future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cardNumbers).hasSize(8 * 2_500);
+    // Each node used up ten whole blocks, leasing every one of them once
+    assertThat(leasedBlocks() - firstBlock - 1).isEqualTo(20);
+    assertThat(cardNumbers)
+        .allSatisfy(
+            cardNumber -> {
+              assertThat(cardNumber).hasSize(15).startsWith("CARD");
+              var digits = cardNumber.substring(4, 14);
+              assertThat(cardNumber.charAt(14) - '0')
+                  .isEqualTo(CardNumberAllocator.checkDigit(digits));
+            });
+  }
+
+  /** Leases a block on a node of its own and returns its number. */
+  private long leasedBlocks() {
+    return new CardNumberAllocator(jdbcTemplate, entityManagerFactory).nextNumber()
+        / CardNumberAllocator.BLOCK_SIZE;
+  }
+
+  private static void allocate(CardNumberAllocator allocator, int count, Set<String> cardNumbers) {
+    for (int i = 0; i < count; i++) {
+      assertThat(cardNumbers.add(allocator.nextCardNumber())).isTrue();
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CardNumberAllocatorUnitTests {
+
+  @Test
+  void whenNumbersAreFormatted_ThenTheyFitTheColumnAndEndWithLuhnCheckDigit() {
+    assertThat(CardNumberAllocator.format(7_992_739_871L)).isEqualTo("CARD79927398713");
+    assertThat(CardNumberAllocator.format(1_000L)).isEqualTo("CARD00000010009");
+    assertThat(CardNumberAllocator.format(9_999_999_999L)).hasSize(15);
+  }
+
+  @Test
+  void whenSingleDigitIsMistyped_ThenCheckDigitNoLongerMatches() {
+    var digits = "7992739871";
+    var checkDigit = CardNumberAllocator.checkDigit(digits);
+
+    for (int i = 0; i < digits.length(); i++) {
+      var mistyped = new StringBuilder(digits);
+      mistyped.setCharAt(i, (char) ('0' + (digits.charAt(i) - '0' + 1) % 10));
+      assertThat(CardNumberAllocator.checkDigit(mistyped.toString())).isNotEqualTo(checkDigit);
+    }
+  }
+}
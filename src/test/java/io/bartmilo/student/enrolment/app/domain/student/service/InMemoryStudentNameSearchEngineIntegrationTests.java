@@ -0,0 +1,109 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentResponse;
+import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
+import io.bartmilo.student.enrolment.app.pagination.CursorSlice;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class InMemoryStudentNameSearchEngineIntegrationTests {
+
+  @Autowired private StudentNameSearchEngine studentNameSearchEngine;
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private StudentRepository studentRepository;
+
+  @Test
+  void whenStudentsAreSaved_ThenTheyAreFoundByPrefixIgnoringCase() {
+    var smith = saveStudent("Smith", 1);
+    var smithers = saveStudent("Smithers", 2);
+    var smyth = saveStudent("SMYTH", 3);
+    saveStudent("Jones", 4);
+
+    assertThat(studentIds(studentNameSearchEngine.search("smith", null, 10)))
+        .containsExactly(smith.id(), smithers.id());
+    assertThat(studentIds(studentNameSearchEngine.search(" SM ", null, 10)))
+        .containsExactly(smith.id(), smithers.id(), smyth.id());
+    assertThat(studentNameSearchEngine.search("mith", null, 10).content()).isEmpty();
+    assertThat(studentNameSearchEngine.search("smithersson", null, 10).content()).isEmpty();
+  }
+
+  @Test
+  void whenResultsSpanPages_ThenCursorWalksByLastNameThenId() {
+    var expectedIds = new ArrayList<Long>();
+    expectedIds.add(saveStudent("Baker", 1).id());
+    for (int i = 2; i <= 4; i++) {
+      expectedIds.add(saveStudent("Bakerson", i).id());
+    }
+    saveStudent("Ball", 5);
+    // Saved last, yet sorts between Baker and Bakerson
+    expectedIds.add(1, saveStudent("Bakers", 6).id());
+
+    var firstPage = studentNameSearchEngine.search("baker", null, 2);
+    var secondPage = studentNameSearchEngine.search("baker", firstPage.nextCursor(), 2);
+    var lastPage = studentNameSearchEngine.search("baker", secondPage.nextCursor(), 2);
+
+    assertThat(firstPage.hasNext()).isTrue();
+    assertThat(secondPage.hasNext()).isTrue();
+    assertThat(lastPage.hasNext()).isFalse();
+    assertThat(lastPage.nextCursor()).isNull();
+    var pagedIds = new ArrayList<Long>();
+    List.of(firstPage, secondPage, lastPage).forEach(page -> pagedIds.addAll(studentIds(page)));
+    assertThat(pagedIds).isEqualTo(expectedIds);
+    assertThat(lastPage.content().get(0).studentIdCardResponse()).isNotNull();
+  }
+
+  @Test
+  void whenStudentIsUpdatedOrDeleted_ThenIndexFollows() {
+    var student = saveStudent("Hughes", 1);
+
+    studentService.partialUpdate(student.id(), StudentDto.builder().lastName("Howard").build());
+
+    assertThat(studentNameSearchEngine.search("hug", null, 10).content()).isEmpty();
+    assertThat(studentNameSearchEngine.search("how", null, 10).content())
+        .singleElement()
+        .satisfies(
+            studentResponse -> {
+              assertThat(studentResponse.id()).isEqualTo(student.id());
+              assertThat(studentResponse.lastName()).isEqualTo("Howard");
+            });
+
+    studentService.delete(student.id());
+
+    assertThat(studentNameSearchEngine.search("how", null, 10).content()).isEmpty();
+  }
+
+  @Test
+  void whenRebuilt_ThenStudentsWrittenAroundTheServiceAreFound() {
+    var studentEntity = studentRepository.save(TestDataUtil.createSingleTestStudentEntity());
+    assertThat(studentNameSearchEngine.search("racc", null, 10).content()).isEmpty();
+
+    ((InMemoryStudentNameSearchEngine) studentNameSearchEngine).rebuild();
+
+    assertThat(studentIds(studentNameSearchEngine.search("racc", null, 10)))
+        .containsExactly(studentEntity.getId());
+  }
+
+  private StudentDto saveStudent(String lastName, int number) {
+    return studentService.save(
+        TestDataUtil.createSingleTestStudentDto().toBuilder()
+            .lastName(lastName)
+            .email("student" + number + "@example.com")
+            .build());
+  }
+
+  private static List<Long> studentIds(CursorSlice<StudentResponse> studentResponseSlice) {
+    return studentResponseSlice.content().stream().map(StudentResponse::id).toList();
+  }
+}
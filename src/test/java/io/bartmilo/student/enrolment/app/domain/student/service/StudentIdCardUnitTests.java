@@ -6,7 +6,6 @@ import static org.mockito.Mockito.*;
 
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentIdCardMapper;
-import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.*;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentIdCardRepository;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
@@ -18,7 +17,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Random;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 class StudentIdCardUnitTests {
@@ -30,35 +29,45 @@ class StudentIdCardUnitTests {
   @Mock
   private StudentIdCardMapper studentIdCardMapper;
   @Mock
-  private StudentMapper studentMapper;
-  @Mock
-  private Random random;
+  private CardNumberAllocator cardNumberAllocator;
 
   @InjectMocks
   private StudentIdCardServiceImpl studentIdCardService;
 
   @BeforeEach
   void setUp() {
-    when(random.nextInt()).thenReturn(123456); // For consistent card number generation
+    when(cardNumberAllocator.nextCardNumber()).thenReturn("CARD00000010009");
   }
 
   @Test
   void generateStudentIdCard_ShouldCreateActiveCardForNewStudent() {
-    var studentDto = TestDataUtil.createSingleTestStudentDto();
+    var studentDto = TestDataUtil.createSingleTestStudentDto().toBuilder().id(1L).build();
     var studentEntity = TestDataUtil.createSingleTestStudentEntity();
+    studentEntity.setId(1L);
     var studentIdCardEntity = TestDataUtil.createSingleTestStudentIdCardEntity(1L);
     var studentIdCardDto = TestDataUtil.createSingleTestStudentIdCardDto(1L);
 
-    when(studentMapper.convertDtoToEntity(any(StudentDto.class))).thenReturn(studentEntity);
-    when(studentRepository.saveAndFlush(any(StudentEntity.class))).thenReturn(studentEntity);
+    when(studentRepository.findById(1L)).thenReturn(Optional.of(studentEntity));
     when(studentIdCardRepository.save(any(StudentIdCardEntity.class))).thenReturn(studentIdCardEntity);
     when(studentIdCardMapper.convertEntityToDto(any(StudentIdCardEntity.class))).thenReturn(studentIdCardDto);
 
     var result = studentIdCardService.generateStudentIdCard(studentDto);
 
-    verify(studentRepository).saveAndFlush(studentEntity);
+    verify(studentRepository, never()).save(any(StudentEntity.class));
     verify(studentIdCardRepository).save(any(StudentIdCardEntity.class));
     assertThat(result).isEqualTo(studentIdCardDto);
     assertThat(result.status()).isEqualTo(IdCardStatus.ACTIVE);
   }
+
+  @Test
+  void issueStudentIdCard_ShouldLinkActiveCardWithoutSavingIt() {
+    var studentEntity = TestDataUtil.createSingleTestStudentEntity();
+
+    var result = studentIdCardService.issueStudentIdCard(studentEntity);
+
+    verifyNoInteractions(studentIdCardRepository, studentRepository);
+    assertThat(result.getStudentEntity()).isSameAs(studentEntity);
+    assertThat(studentEntity.getStudentIdCardEntity()).isSameAs(result);
+    assertThat(result.getStatus()).isEqualTo(IdCardStatus.ACTIVE);
+  }
 }
@@ -0,0 +1,71 @@
+package io.bartmilo.student.enrolment.app.domain.student.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.bartmilo.student.enrolment.app.TestDataUtil;
+import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
+import io.bartmilo.student.enrolment.app.domain.student.model.StudentSortKey;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Compares the statements run by the projected list read path with the entity path, which joins
+ * the ID card of every student through the {@code Student.withIdCard} fetch plan.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class StudentListProjectionIntegrationTests {
+
+  @Autowired private StudentService studentService;
+
+  @Autowired private StudentMapper studentMapper;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    TestDataUtil.createListOfTestStudentDto().forEach(studentService::save);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void whenPageIsProjected_ThenCardsAreJoinedAndNoEntityIsLoaded() {
+    var pageable = PageRequest.of(0, 2, Sort.by("id"));
+
+    var entityResponses =
+        studentService.findAll(pageable).map(studentMapper::convertDtoToResponse).getContent();
+    var entityPathStatements = statistics.getPrepareStatementCount();
+    statistics.clear();
+    var projectedResponses = studentService.findAllResponses(pageable).getContent();
+
+    assertThat(projectedResponses).isEqualTo(entityResponses);
+    assertThat(projectedResponses)
+        .allSatisfy(
+            studentResponse -> assertThat(studentResponse.studentIdCardResponse()).isNotNull());
+    // The page and its count on both paths, but only the entity path hydrates entities
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(entityPathStatements).isEqualTo(2);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  @Test
+  void whenKeysetPageIsProjected_ThenOneStatementIsRun() {
+    var studentResponseSlice = studentService.findAllResponses(StudentSortKey.ID, null, 2);
+
+    assertThat(studentResponseSlice.content()).hasSize(2);
+    assertThat(studentResponseSlice.hasNext()).isTrue();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+}
@@ -76,6 +76,31 @@ class StudentServiceIntegrationTests {
     assertThat(foundStudentDto).isEqualTo(savedStudentDto);
   }
 
+  @Test
+  void whenFindByEmail_ThenEmailIsMatchedCaseInsensitivelyAndCacheFollowsChanges() {
+    var studentDto =
+        TestDataUtil.createSingleTestStudentDto().toBuilder()
+            .email(" Carol.Raccoon@Gmail.com")
+            .build();
+    var savedStudentDto = studentService.save(studentDto);
+    assertThat(savedStudentDto.email()).isEqualTo("carol.raccoon@gmail.com");
+    assertThat(studentService.findByEmail("CAROL.RACCOON@GMAIL.COM")).isEqualTo(savedStudentDto);
+
+    var updatedStudentDto =
+        studentService.partialUpdate(
+            savedStudentDto.id(), StudentDto.builder().email("Carol.Badger@Gmail.com").build());
+
+    assertThrows(
+        StudentNotFoundException.class,
+        () -> studentService.findByEmail("carol.raccoon@gmail.com"));
+    assertThat(studentService.findByEmail("carol.badger@gmail.com")).isEqualTo(updatedStudentDto);
+
+    studentService.delete(savedStudentDto.id());
+
+    assertThrows(
+        StudentNotFoundException.class, () -> studentService.findByEmail("carol.badger@gmail.com"));
+  }
+
   @Test
   void whenCheckExistence_ThenConfirm() {
     var studentDto = TestDataUtil.createSingleTestStudentDto();
@@ -98,7 +123,8 @@ class StudentServiceIntegrationTests {
             savedStudentDto.email(),
             savedStudentDto.age(),
             savedStudentDto.studentIdCardDto(),
-            savedStudentDto.bookDtoList());
+            savedStudentDto.bookDtoList(),
+            null);
 
     var updatedStudentDto =
         studentService.partialUpdate(savedStudentDto.id(), updatedStudentDtoInfo);
@@ -9,13 +9,10 @@ import static org.mockito.Mockito.*;
 
 import io.bartmilo.student.enrolment.app.TestDataUtil;
 import io.bartmilo.student.enrolment.app.domain.student.exception.StudentNotFoundException;
-import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentIdCardMapper;
 import io.bartmilo.student.enrolment.app.domain.student.mapper.StudentMapper;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentDto;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentEntity;
-import io.bartmilo.student.enrolment.app.domain.student.model.StudentIdCardDto;
 import io.bartmilo.student.enrolment.app.domain.student.model.StudentIdCardEntity;
-import io.bartmilo.student.enrolment.app.domain.student.repository.StudentIdCardRepository;
 import io.bartmilo.student.enrolment.app.domain.student.repository.StudentRepository;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +21,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
@@ -31,10 +30,9 @@ import org.springframework.data.domain.PageRequest;
 class StudentServiceUnitTests {
 
   @Mock private StudentRepository studentRepositoryMock;
-  @Mock private StudentIdCardRepository studentIdCardRepositoryMock;
   @Mock private StudentIdCardService studentIdCardServiceMock;
   @Mock private StudentMapper studentMapperMock;
-  @Mock private StudentIdCardMapper studentIdCardMapperMock;
+  @Mock private ApplicationEventPublisher applicationEventPublisherMock;
 
   private StudentService studentService;
 
@@ -45,37 +43,38 @@ class StudentServiceUnitTests {
             studentRepositoryMock,
             studentIdCardServiceMock,
             studentMapperMock,
-            studentIdCardMapperMock,
-            studentIdCardRepositoryMock);
+            applicationEventPublisherMock,
+            new NoOpCacheManager());
   }
 
   @Test
-  void whenStudentIsSaved_ThenCanBeRecalled() {
+  void whenStudentIsSaved_ThenCardIsIssuedAndPersistedWithIt() {
     var studentDto = TestDataUtil.createSingleTestStudentDto();
     var studentEntity = TestDataUtil.createSingleTestStudentEntity();
-    var studentIdCardDto = TestDataUtil.createSingleTestStudentIdCardDto(1L);
     var studentIdCardEntity = TestDataUtil.createSingleTestStudentIdCardEntity(1L);
     when(studentMapperMock.convertDtoToEntity(any(StudentDto.class))).thenReturn(studentEntity);
+    when(studentIdCardServiceMock.issueStudentIdCard(studentEntity))
+        .thenAnswer(
+            invocation -> {
+              studentEntity.setStudentIdCardEntity(studentIdCardEntity);
+              return studentIdCardEntity;
+            });
     when(studentRepositoryMock.save(any(StudentEntity.class))).thenReturn(studentEntity);
     when(studentMapperMock.convertEntityToDto(any(StudentEntity.class))).thenReturn(studentDto);
-    when(studentIdCardServiceMock.generateStudentIdCard(any(StudentDto.class)))
-        .thenReturn(studentIdCardDto);
-    when(studentIdCardMapperMock.convertDtoToEntity(any(StudentIdCardDto.class)))
-        .thenReturn(studentIdCardEntity);
-    when(studentIdCardRepositoryMock.save(any(StudentIdCardEntity.class)))
-        .thenReturn(studentIdCardEntity);
+
     var savedStudentDto = studentService.save(studentDto);
 
-    verify(studentRepositoryMock, times(2)).save(studentEntity);
-    verify(studentIdCardRepositoryMock).save(studentIdCardEntity);
-    verify(studentIdCardServiceMock).generateStudentIdCard(savedStudentDto);
     var studentEntityCaptor = ArgumentCaptor.forClass(StudentEntity.class);
-    verify(studentRepositoryMock, times(2)).save(studentEntityCaptor.capture());
+    verify(studentRepositoryMock).save(studentEntityCaptor.capture());
+    verify(studentRepositoryMock, never()).saveAndFlush(any(StudentEntity.class));
+    verify(studentIdCardServiceMock, never()).generateStudentIdCard(any(StudentDto.class));
     var capturedStudentEntity = studentEntityCaptor.getValue();
     assertAll(
         () ->
-            assertNotNull(
-                capturedStudentEntity.getStudentIdCardEntity(), "Student ID Card should be linked"),
+            assertEquals(
+                studentIdCardEntity,
+                capturedStudentEntity.getStudentIdCardEntity(),
+                "Student ID Card should be linked before the student is saved"),
         () ->
             assertEquals(
                 studentDto,
@@ -87,32 +86,22 @@ class StudentServiceUnitTests {
   void whenListOfStudentsIsSaved_ThenAllStudentsShouldBeCorrectlySavedAndReturned() {
     var studentEntityList = TestDataUtil.createListOfTestStudentEntity();
     var studentDtoList = TestDataUtil.createListOfTestStudentDto();
-    var studentIdCardEntityList = TestDataUtil.createListOfTestStudentIdCardEntity();
-    var studentIdCardDtoList = TestDataUtil.createListOfTestStudentIdCardDto();
     for (int i = 0; i < studentEntityList.size(); i++) {
       var studentEntity = studentEntityList.get(i);
       var studentDto = studentDtoList.get(i);
-      var studentIdCardDto = studentIdCardDtoList.get(i);
-      var studentIdCardEntity = studentIdCardEntityList.get(i);
 
       when(studentMapperMock.convertDtoToEntity(studentDto)).thenReturn(studentEntity);
       when(studentRepositoryMock.save(studentEntity)).thenReturn(studentEntity);
       when(studentMapperMock.convertEntityToDto(studentEntity)).thenReturn(studentDto);
-      when(studentIdCardServiceMock.generateStudentIdCard(studentDto)).thenReturn(studentIdCardDto);
-      when(studentIdCardMapperMock.convertDtoToEntity(studentIdCardDto))
-          .thenReturn(studentIdCardEntity);
-      when(studentIdCardRepositoryMock.save(studentIdCardEntity)).thenReturn(studentIdCardEntity);
     }
 
     var savedStudentDtos = studentDtoList.stream().map(studentService::save).toList();
 
     for (int i = 0; i < studentEntityList.size(); i++) {
       var expectedSavedEntity = studentEntityList.get(i);
-      var expectedSavedIdCardEntity = studentIdCardEntityList.get(i);
 
-      verify(studentRepositoryMock, times(2)).save(expectedSavedEntity);
-      verify(studentIdCardRepositoryMock, times(3)).save(expectedSavedIdCardEntity);
-      verify(studentIdCardServiceMock).generateStudentIdCard(savedStudentDtos.get(i));
+      verify(studentIdCardServiceMock).issueStudentIdCard(expectedSavedEntity);
+      verify(studentRepositoryMock).save(expectedSavedEntity);
       assertThat(savedStudentDtos.get(i)).isEqualToComparingFieldByField(studentDtoList.get(i));
     }
   }
@@ -151,6 +140,20 @@ class StudentServiceUnitTests {
     assertThat(result).isEqualToComparingFieldByField(expectedDto);
   }
 
+  @Test
+  void whenFindByEmail_ThenLookupIsInLowerCase() {
+    var student = TestDataUtil.createSingleTestStudentEntity();
+    var expectedDto = TestDataUtil.createSingleTestStudentDto();
+    when(studentRepositoryMock.findStudentByEmail("carol.raccoon@gmail.com"))
+        .thenReturn(Optional.of(student));
+    when(studentMapperMock.convertEntityToDto(student)).thenReturn(expectedDto);
+
+    var result = studentService.findByEmail(" Carol.Raccoon@GMAIL.com ");
+
+    assertThat(result).isEqualTo(expectedDto);
+    assertThrows(IllegalArgumentException.class, () -> studentService.findByEmail(" "));
+  }
+
   @Test
   void whenCheckIfStudentExists_ThenReturnTrueOrFalse() {
     var studentId = 1L;
@@ -174,6 +177,7 @@ class StudentServiceUnitTests {
             student.getEmail(),
             student.getAge(),
             null,
+            null,
             null);
     var updatedStudentEntity =
         new StudentEntity(
@@ -183,16 +187,18 @@ class StudentServiceUnitTests {
             student.getEmail(),
             student.getAge(),
             null,
+            null,
             null);
 
     when(studentRepositoryMock.findById(studentId)).thenReturn(Optional.of(student));
-    when(studentRepositoryMock.save(any(StudentEntity.class))).thenReturn(updatedStudentEntity);
+    when(studentRepositoryMock.saveAndFlush(any(StudentEntity.class)))
+        .thenReturn(updatedStudentEntity);
     when(studentMapperMock.convertEntityToDto(updatedStudentEntity)).thenReturn(partialUpdateDto);
 
     var updatedStudentDto = studentService.partialUpdate(studentId, partialUpdateDto);
 
     assertAll(
-        () -> verify(studentRepositoryMock).save(updatedStudentEntity),
+        () -> verify(studentRepositoryMock).saveAndFlush(updatedStudentEntity),
         () -> assertEquals(partialUpdateDto.firstName(), updatedStudentDto.firstName()));
   }
 